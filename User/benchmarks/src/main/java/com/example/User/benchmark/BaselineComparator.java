@@ -0,0 +1,91 @@
+package com.example.User.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against the committed baseline and fails on regressions.
+ * Usage: {@code java -cp target/benchmarks.jar com.example.User.benchmark.BaselineComparator
+ * baseline.json result.json [tolerancePercent]}
+ */
+public final class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <result.json> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW   %-70s %12.1f ops/s %10.1f B/op%n", entry.getKey(), after.score(),
+                        after.allocatedBytesPerOp());
+                continue;
+            }
+            boolean slower = after.score() < before.score() * (1 - tolerance);
+            boolean allocatesMore = after.allocatedBytesPerOp() > before.allocatedBytesPerOp() * (1 + tolerance)
+                    && after.allocatedBytesPerOp() - before.allocatedBytesPerOp() >= 1;
+            String status = slower || allocatesMore ? "WORSE" : "OK";
+            if (slower || allocatesMore) {
+                regressions++;
+            }
+            System.out.printf("%-5s %-70s %12.1f -> %12.1f ops/s %10.1f -> %10.1f B/op%n", status, entry.getKey(),
+                    before.score(), after.score(), before.allocatedBytesPerOp(), after.allocatedBytesPerOp());
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new HashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            JsonNode allocation = null;
+            for (Map.Entry<String, JsonNode> metric : iterable(run.path("secondaryMetrics"))) {
+                if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                    allocation = metric.getValue();
+                }
+            }
+            results.put(run.path("benchmark").asText() + params(run.path("params")),
+                    new Result(run.path("primaryMetric").path("score").asDouble(),
+                            allocation == null ? 0 : allocation.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    private static String params(JsonNode params) {
+        if (params.isMissingNode() || params.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, JsonNode> param : iterable(params)) {
+            builder.append(builder.length() == 0 ? "(" : ",").append(param.getKey()).append('=')
+                    .append(param.getValue().asText());
+        }
+        return builder.append(')').toString();
+    }
+
+    private static Iterable<Map.Entry<String, JsonNode>> iterable(JsonNode node) {
+        return node::fields;
+    }
+
+    private record Result(double score, double allocatedBytesPerOp) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.User.customAnnotations.implementation;
+
+import com.example.User.entities.request.UserRequestDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the custom constraint validators run on every registration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidEmailImplementation validEmail;
+    private IsMatchingPasswordImplementation isMatchingPassword;
+    private UserRequestDTO userRequestDTO;
+
+    @Setup
+    public void setup() {
+        validEmail = new ValidEmailImplementation();
+        isMatchingPassword = new IsMatchingPasswordImplementation();
+        userRequestDTO = UserRequestDTO.builder()
+                .name("Abhishek Ray")
+                .email("abhishekray1894@gmail.com")
+                .phoneNumber("+919876543210")
+                .password("password123")
+                .confirmPassword("password123")
+                .build();
+    }
+
+    @Benchmark
+    public boolean validateEmail() {
+        return validEmail.validateEmail(userRequestDTO.getEmail());
+    }
+
+    @Benchmark
+    public boolean validateInvalidEmail() {
+        return validEmail.validateEmail("abhishekray1894gmailcom");
+    }
+
+    @Benchmark
+    public boolean isMatchingPassword() {
+        return isMatchingPassword.isValid(userRequestDTO, null);
+    }
+}
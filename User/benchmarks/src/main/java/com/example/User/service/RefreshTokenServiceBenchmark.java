@@ -0,0 +1,41 @@
+package com.example.User.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing a refresh token, paid on every login and refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshTokenServiceBenchmark {
+
+    private RefreshTokenService refreshTokenService;
+    private String rawToken;
+
+    @Setup
+    public void setup() {
+        refreshTokenService = new RefreshTokenService(null, 1209600000L);
+        rawToken = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public Object hashToken() {
+        return refreshTokenService.hashToken(rawToken);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.User.utility;
+
+import com.example.User.entities.models.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing an access token and of the parse paths used by JwtAuthFilter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTUtilityBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    private static final List<String> ROLES = List.of("ROLE_USER");
+
+    private JWTUtility uncachedJwtUtility;
+    private JWTUtility cachedJwtUtility;
+    private String token;
+
+    @Setup
+    public void setup() {
+        uncachedJwtUtility = new JWTUtility(SECRET, 300000, 0, 60000);
+        cachedJwtUtility = new JWTUtility(SECRET, 300000, 10000, 60000);
+        token = cachedJwtUtility.generateToken("hari@gmail.com", ROLES, 0);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachedJwtUtility.generateToken("hari@gmail.com", ROLES, 0);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return uncachedJwtUtility.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return cachedJwtUtility.verify(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return uncachedJwtUtility.extractUsername(token);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.User.utility;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Insert throughput of a user_entity-shaped table keyed by random UUIDv4 against UUIDv7, both BINARY(16), as the
+ * table grows. Runs against a real MySQL, because the effect comes from InnoDB page splits and buffer pool misses
+ * once the primary key no longer fits in memory, which JMH cannot show.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar com.example.User.utility.UuidInsertBenchmark
+ * <jdbcUrl> <user> <password> [rows] [batchSize]}, with 10,000,000 rows in batches of 1,000 by default.
+ * Prints the insert rate of every million rows for each scheme.
+ */
+public final class UuidInsertBenchmark {
+
+    private static final int REPORT_EVERY = 1_000_000;
+
+    private UuidInsertBenchmark() {
+    }
+
+    private enum Scheme {
+        V4 {
+            @Override
+            UUID next() {
+                return UUID.randomUUID();
+            }
+        },
+        V7 {
+            @Override
+            UUID next() {
+                return UuidV7.next();
+            }
+        };
+
+        abstract UUID next();
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: UuidInsertBenchmark <jdbcUrl> <user> <password> [rows] [batchSize]");
+            System.exit(2);
+        }
+        String url = args[0].contains("rewriteBatchedStatements") ? args[0]
+                : args[0] + (args[0].contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        long rows = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+        int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : 1_000;
+
+        try (Connection connection = DriverManager.getConnection(url, args[1], args[2])) {
+            for (Scheme scheme : Scheme.values()) {
+                run(connection, scheme, rows, batchSize);
+            }
+        }
+    }
+
+    private static void run(Connection connection, Scheme scheme, long rows, int batchSize) throws SQLException {
+        String table = "bench_user_" + scheme.name().toLowerCase();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id BINARY(16) NOT NULL PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL, "
+                    + "email VARCHAR(255) NOT NULL, "
+                    + "phone_number VARCHAR(255) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, "
+                    + "created_at DATETIME(6) NULL, "
+                    + "is_kyc_done BIT(1) NOT NULL, "
+                    + "version BIGINT NOT NULL, "
+                    + "UNIQUE KEY uk_email (email)"
+                    + ") ENGINE=InnoDB");
+        }
+        connection.setAutoCommit(false);
+        System.out.printf("%s: inserting %,d rows in batches of %,d%n", scheme, rows, batchSize);
+
+        String password = "$2a$10$abcdefghijklmnopqrstuuJ1q0vZ3o3c9V5VQ6B0gNf2s1wqVvJ4a";
+        long started = System.nanoTime();
+        long intervalStarted = started;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, name, email, phone_number, password, created_at, is_kyc_done, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, b'0', 0)")) {
+            for (long row = 1; row <= rows; row++) {
+                UUID id = scheme.next();
+                insert.setBytes(1, UuidBytes.toBytes(id));
+                insert.setString(2, "User " + row);
+                // Emails are random in both schemes, so the secondary index costs the same
+                insert.setString(3, Long.toHexString(ThreadLocalRandom.current().nextLong()) + row + "@example.com");
+                insert.setString(4, "+1" + (4_000_000_000L + row));
+                insert.setString(5, password);
+                insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                insert.addBatch();
+                if (row % batchSize == 0 || row == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if (row % REPORT_EVERY == 0 || row == rows) {
+                    long now = System.nanoTime();
+                    long intervalRows = row % REPORT_EVERY == 0 ? REPORT_EVERY : row % REPORT_EVERY;
+                    System.out.printf("%s %,12d rows  %,10.0f rows/s%n", scheme, row,
+                            intervalRows / ((now - intervalStarted) / 1e9));
+                    intervalStarted = now;
+                }
+            }
+        }
+        System.out.printf("%s: %,d rows in %.1f s, %,.0f rows/s overall%n%n", scheme, rows,
+                (System.nanoTime() - started) / 1e9, rows / ((System.nanoTime() - started) / 1e9));
+        connection.setAutoCommit(true);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.User.wallet.engine;
+
+import com.example.User.wallet.journal.TransferLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A flash sale on the {@link TransferEngine}: buyers spread over every shard pay one merchant wallet, which
+ * refunds one payment in a hundred. Without splitting, every payment queues on the merchant's shard; with it,
+ * the merchant is split once the shard falls behind and payments proceed on the buyers' shards. Run it with as
+ * many JMH threads as shards, e.g. {@code -t 8 -p shards=8}; see the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlashSaleBenchmark {
+
+    private static final int WINDOW = 256;
+    private static final int REFUND_EVERY = 100;
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Param({"8"})
+    public int shards;
+
+    @Param({"100000"})
+    public int buyers;
+
+    @Param({"false", "true"})
+    public boolean splitting;
+
+    private TransferEngine engine;
+    private UUID merchant;
+    private UUID[] buyerIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HotWalletPolicy policy = splitting ? new HotWalletPolicy(shards, 100, 5_000, 64) : HotWalletPolicy.DISABLED;
+        engine = new TransferEngine(shards, 65_536, TransferLog.NONE, policy);
+        merchant = UUID.randomUUID();
+        engine.openWallet(merchant);
+        buyerIds = new UUID[buyers];
+        for (int i = 0; i < buyers; i++) {
+            buyerIds[i] = UUID.randomUUID();
+            engine.openWallet(buyerIds[i]);
+            engine.deposit(buyerIds[i], INITIAL_BALANCE);
+        }
+        engine.balance(buyerIds[buyers - 1]).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Window {
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<TransferResult>[] pending = new CompletableFuture[WINDOW];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public int checkout(Window window) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < WINDOW; i++) {
+            UUID buyer = buyerIds[random.nextInt(buyers)];
+            window.pending[i] = random.nextInt(REFUND_EVERY) == 0
+                    ? engine.transfer(merchant, buyer, 1 + random.nextInt(100))
+                    : engine.transfer(buyer, merchant, 1 + random.nextInt(100));
+        }
+        int completed = 0;
+        for (CompletableFuture<TransferResult> transfer : window.pending) {
+            if (transfer.join() == TransferResult.COMPLETED) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+}
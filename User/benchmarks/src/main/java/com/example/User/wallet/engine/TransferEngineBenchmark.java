@@ -0,0 +1,89 @@
+package com.example.User.wallet.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers per second of the {@link TransferEngine} between random wallets, so that a share of 1 - 1/shards of
+ * them cross shards. Every invocation submits a window of transfers and waits for all of them, as a server
+ * handling many concurrent requests would. Run it with as many JMH threads as shards to see the scaling, e.g.
+ * {@code -t 4 -p shards=4}; see the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferEngineBenchmark {
+
+    private static final int WINDOW = 256;
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"100000"})
+    public int wallets;
+
+    private TransferEngine engine;
+    private UUID[] walletIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        engine = new TransferEngine(shards, 65_536);
+        walletIds = new UUID[wallets];
+        for (int i = 0; i < wallets; i++) {
+            walletIds[i] = UUID.randomUUID();
+            engine.openWallet(walletIds[i]);
+            engine.deposit(walletIds[i], INITIAL_BALANCE);
+        }
+        engine.balance(walletIds[wallets - 1]).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Window {
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<TransferResult>[] pending = new CompletableFuture[WINDOW];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public int transfer(Window window) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < WINDOW; i++) {
+            UUID from = walletIds[random.nextInt(wallets)];
+            UUID to = walletIds[random.nextInt(wallets)];
+            window.pending[i] = engine.transfer(from, to, 1 + random.nextInt(100));
+        }
+        int completed = 0;
+        for (CompletableFuture<TransferResult> transfer : window.pending) {
+            if (transfer.join() == TransferResult.COMPLETED) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+}
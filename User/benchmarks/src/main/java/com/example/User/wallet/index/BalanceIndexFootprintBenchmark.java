@@ -0,0 +1,129 @@
+package com.example.User.wallet.index;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Heap footprint and collector cost of wallet balances held in a {@code HashMap<UUID, BigDecimal>} against the
+ * same balances in an {@link OffHeapBalanceMap}. Not a JMH benchmark: what differs is the live set the collector
+ * has to trace, which shows in the heap after a full collection, in the time that collection takes, and in the
+ * collections triggered by the garbage of a steady stream of balance updates.
+ *
+ * <p>Usage: {@code java -Xmx16g -XX:+UseG1GC -cp target/benchmarks.jar
+ * com.example.User.wallet.index.BalanceIndexFootprintBenchmark <heap|off-heap> [wallets] [updates]}, with
+ * 20,000,000 wallets and 100,000,000 updates by default. Run each kind in its own JVM so that neither inherits
+ * the other's heap.
+ */
+public final class BalanceIndexFootprintBenchmark {
+
+    private BalanceIndexFootprintBenchmark() {
+    }
+
+    private interface Balances {
+        void put(UUID walletId, long balance);
+
+        void add(UUID walletId, long amount);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !(args[0].equals("heap") || args[0].equals("off-heap"))) {
+            System.err.println("Usage: BalanceIndexFootprintBenchmark <heap|off-heap> [wallets] [updates]");
+            System.exit(2);
+        }
+        int wallets = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+        long updates = args.length > 2 ? Long.parseLong(args[2]) : 100_000_000L;
+
+        Balances balances;
+        if (args[0].equals("heap")) {
+            Map<UUID, BigDecimal> map = new HashMap<>();
+            balances = new Balances() {
+                @Override
+                public void put(UUID walletId, long balance) {
+                    map.put(walletId, BigDecimal.valueOf(balance, 2));
+                }
+
+                @Override
+                public void add(UUID walletId, long amount) {
+                    map.merge(walletId, BigDecimal.valueOf(amount, 2), BigDecimal::add);
+                }
+            };
+        } else {
+            OffHeapBalanceMap map = OffHeapBalanceMap.withCapacity(wallets);
+            balances = new Balances() {
+                @Override
+                public void put(UUID walletId, long balance) {
+                    map.putIfAbsent(walletId, balance);
+                }
+
+                @Override
+                public void add(UUID walletId, long amount) {
+                    map.addAndGet(walletId, amount);
+                }
+            };
+        }
+
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(42);
+        long[] ids = new long[wallets * 2];
+        for (int i = 0; i < wallets; i++) {
+            ids[2 * i] = random.nextLong();
+            ids[2 * i + 1] = random.nextLong();
+            balances.put(new UUID(ids[2 * i], ids[2 * i + 1]), 10_000);
+        }
+        System.out.printf("%s: loaded %,d wallets in %.1f s%n", args[0], wallets, (System.nanoTime() - started) / 1e9);
+
+        long fullCollection = timeFullCollection();
+        // The id array is the benchmark's own and the same for both kinds
+        long heapUsed = heapUsed() - (long) ids.length * Long.BYTES;
+        System.out.printf("%s: %,d MB heap, %,d MB direct, %.0f bytes per wallet; full collection %,d ms%n",
+                args[0], heapUsed >> 20, directUsed() >> 20, (double) (heapUsed + directUsed()) / wallets,
+                fullCollection);
+
+        long collectionsBefore = collections();
+        long collectionTimeBefore = collectionTime();
+        started = System.nanoTime();
+        for (long i = 0; i < updates; i++) {
+            int wallet = random.nextInt(wallets);
+            balances.add(new UUID(ids[2 * wallet], ids[2 * wallet + 1]), random.nextInt(-100, 101));
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%s: %,d updates in %.1f s (%,.0f/s), %,d collections taking %,d ms%n", args[0], updates,
+                seconds, updates / seconds, collections() - collectionsBefore,
+                collectionTime() - collectionTimeBefore);
+    }
+
+    private static long timeFullCollection() {
+        long started = System.nanoTime();
+        System.gc();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directUsed() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long collections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .sum();
+    }
+
+    private static long collectionTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.User.cache;
+
+import com.example.User.repository.UserRepository;
+import com.example.User.utility.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory Bloom filter of registered emails, so that registration can tell a new email from a probable
+ * duplicate without a query.
+ *
+ * <p>The filter only ever errs towards "maybe registered": callers confirm a hit with a query, and the unique
+ * constraint on the email stays the authority. Emails registered on other nodes, or while the filter is being
+ * rebuilt, are missing until the next rebuild; a missing email only costs the duplicate a password hash before
+ * the constraint rejects it. Emails are lower-cased, matching the case-insensitive collation of the column.
+ */
+@Slf4j
+@Component
+public class EmailExistenceFilter implements MeterBinder {
+
+    private static final int BYTES_PER_KIB = 1024;
+
+    private final UserRepository userRepository;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final int rebuildPageSize;
+    private volatile BloomFilter filter;
+    private Counter falsePositives;
+
+    public EmailExistenceFilter(UserRepository repository,
+                                @Value("${user.email-filter.expected-insertions:1000000}") long insertions,
+                                @Value("${user.email-filter.fpp:0.01}") double falsePositiveProbability,
+                                @Value("${user.email-filter.rebuild-page-size:10000}") int pageSize) {
+        this.userRepository = repository;
+        this.expectedInsertions = insertions;
+        this.fpp = falsePositiveProbability;
+        this.rebuildPageSize = pageSize;
+        this.filter = BloomFilter.create(insertions, falsePositiveProbability);
+    }
+
+    /**
+     * @param email the email to check
+     * @return false if the email is certainly not registered, true if it may be
+     */
+    public boolean mightContain(String email) {
+        return filter.mightContain(normalize(email));
+    }
+
+    /**
+     * Records a registered email.
+     *
+     * @param email the email of the new user
+     */
+    public void add(String email) {
+        filter.put(normalize(email));
+    }
+
+    /**
+     * Records that a hit of the filter turned out not to be registered.
+     */
+    public void recordFalsePositive() {
+        if (falsePositives != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the emails in the database at startup, sized for twice the current number of
+     * users. Emails are read in pages along the unique email index, so no long transaction is held.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedInsertions, userRepository.count() * 2), fpp);
+        long loaded = 0;
+        String after = "";
+        List<String> page;
+        do {
+            page = userRepository.findEmailsAfter(after, PageRequest.of(0, rebuildPageSize));
+            for (String email : page) {
+                rebuilt.put(normalize(email));
+            }
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == rebuildPageSize);
+        filter = rebuilt;
+        log.info("Loaded {} emails into the email existence filter ({} KiB) in {} ms", loaded,
+                rebuilt.bitSize() / Byte.SIZE / BYTES_PER_KIB,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Registers the false positive counter and the size of the filter.
+     *
+     * @param registry the registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        falsePositives = Counter.builder("users.email-filter.false-positives")
+                .description("Registrations the email filter reported as probable duplicates that were new")
+                .register(registry);
+        Gauge.builder("users.email-filter.bits", this, emailFilter -> emailFilter.filter.bitSize())
+                .description("Size of the email existence filter in bits")
+                .register(registry);
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.User.cache;
+
+import com.example.User.entities.models.UserInvalidationEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus that only reaches subscribers of the current node.
+ * Suitable for single-node deployments and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.invalidation-bus", havingValue = "in-process", matchIfMissing = true)
+public final class InProcessUserInvalidationBus implements UserInvalidationBus {
+
+    private final List<Consumer<UserInvalidationEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UserInvalidationEvent event) {
+        subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidationEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.User.cache;
+
+import com.example.User.entities.models.UserInvalidationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus that fans invalidations out to every node through a Kafka topic.
+ * Each node consumes the topic with its own consumer group, so every node sees every invalidation.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user.cache.invalidation-bus", havingValue = "kafka")
+public final class KafkaUserInvalidationBus implements UserInvalidationBus {
+
+    private static final String ORIGIN_NODE_HEADER = "origin-node";
+
+    private final List<Consumer<UserInvalidationEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public KafkaUserInvalidationBus(KafkaTemplate<String, Object> template,
+                                    @Value("${user.cache.invalidation-topic}") String invalidationTopic) {
+        this.kafkaTemplate = template;
+        this.topic = invalidationTopic;
+    }
+
+    @Override
+    public void publish(UserInvalidationEvent event) {
+        notifySubscribers(event);
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, event.email(), event);
+        record.headers().add(ORIGIN_NODE_HEADER, nodeId.getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish user invalidation for userId={}", event.userId(), ex);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidationEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Applies invalidations published by other nodes.
+     *
+     * @param event      the invalidation
+     * @param originNode the node that published the invalidation
+     */
+    @KafkaListener(topics = "${user.cache.invalidation-topic}",
+            groupId = "user-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void onRemoteInvalidation(@Payload UserInvalidationEvent event,
+                                     @Header(ORIGIN_NODE_HEADER) String originNode) {
+        if (!nodeId.equals(originNode)) {
+            notifySubscribers(event);
+        }
+    }
+
+    private void notifySubscribers(UserInvalidationEvent event) {
+        subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.User.cache;
+
+import com.example.User.entities.User;
+import com.example.User.entities.models.UserInvalidationEvent;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.UserVersionTracker;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Near-cache of users by email and by id in front of {@link UserRepository}.
+ * Entries are bounded in number and age, and are dropped on every node when a user changes.
+ * Cached users are shared between requests and must not be modified; load the user from the
+ * repository to update it and call {@link #invalidate(User)} once the change is committed.
+ */
+@Component
+public final class UserCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final UserInvalidationBus invalidationBus;
+    private final UserVersionTracker userVersionTracker;
+    private final Cache<String, User> usersByEmail;
+    private final Cache<UUID, User> usersById;
+
+    public UserCache(UserRepository repository, UserInvalidationBus bus, UserVersionTracker versionTracker,
+                     @Value("${user.cache.max-size:10000}") long maxSize,
+                     @Value("${user.cache.ttl-ms:300000}") long ttlMs) {
+        this.userRepository = repository;
+        this.invalidationBus = bus;
+        this.userVersionTracker = versionTracker;
+        this.usersByEmail = newCache(maxSize, ttlMs);
+        this.usersById = newCache(maxSize, ttlMs);
+        bus.subscribe(this::evict);
+    }
+
+    /**
+     * Finds a user by email, loading it from the database on a cache miss.
+     *
+     * @param email the email of the user
+     * @return an Optional containing the User if found, or empty if not found
+     */
+    public Optional<User> findByEmail(String email) {
+        User cached = usersByEmail.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> loaded = userRepository.findByEmail(email);
+        loaded.ifPresent(this::cache);
+        return loaded;
+    }
+
+    /**
+     * Finds a user by id, loading it from the database on a cache miss.
+     *
+     * @param id the id of the user
+     * @return an Optional containing the User if found, or empty if not found
+     */
+    public Optional<User> findById(UUID id) {
+        User cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> loaded = userRepository.findById(id);
+        loaded.ifPresent(this::cache);
+        return loaded;
+    }
+
+    /**
+     * Drops the user from the caches of every node.
+     *
+     * @param user the user that changed
+     */
+    public void invalidate(User user) {
+        invalidationBus.publish(new UserInvalidationEvent(user.getId(), user.getEmail(), user.getVersion()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, usersByEmail, "users.by-email");
+        CaffeineCacheMetrics.monitor(registry, usersById, "users.by-id");
+        Gauge.builder("users.cache.hit.ratio", this, UserCache::hitRatio)
+                .description("Share of user lookups served from the near-cache")
+                .register(registry);
+    }
+
+    private double hitRatio() {
+        long hits = usersByEmail.stats().hitCount() + usersById.stats().hitCount();
+        long requests = usersByEmail.stats().requestCount() + usersById.stats().requestCount();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    private void cache(User user) {
+        // A load racing with an invalidation must not bring the old version back
+        if (userVersionTracker.isStale(user.getEmail(), user.getVersion())) {
+            return;
+        }
+        usersByEmail.put(user.getEmail(), user);
+        usersById.put(user.getId(), user);
+    }
+
+    private void evict(UserInvalidationEvent event) {
+        userVersionTracker.recordVersion(event.email(), event.version());
+        usersByEmail.invalidate(event.email());
+        usersById.invalidate(event.userId());
+    }
+
+    private static <K> Cache<K, User> newCache(long maxSize, long ttlMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+}
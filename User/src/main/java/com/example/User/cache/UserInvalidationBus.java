@@ -0,0 +1,25 @@
+package com.example.User.cache;
+
+import com.example.User.entities.models.UserInvalidationEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Distributes user invalidations to the user caches of every node.
+ */
+public interface UserInvalidationBus {
+
+    /**
+     * Publishes an invalidation. Subscribers on the publishing node are notified before this method returns.
+     *
+     * @param event the invalidation to publish
+     */
+    void publish(UserInvalidationEvent event);
+
+    /**
+     * Registers a subscriber that is notified of every invalidation, local or remote.
+     *
+     * @param subscriber the subscriber to notify
+     */
+    void subscribe(Consumer<UserInvalidationEvent> subscriber);
+}
@@ -0,0 +1,93 @@
+package com.example.User.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value deserializer that reads both the {@link CompactEvents} encoding and JSON, so consumers keep working
+ * while producers switch from JSON to the compact encoding.
+ *
+ * <p>Compact messages carry their type id. JSON messages are read as the target type given to the constructor or
+ * by the {@value #VALUE_TYPE_CONFIG} consumer property, otherwise as the type named by the JsonSerializer type
+ * header; only event types with a compact encoding are ever instantiated from that header.
+ *
+ * @param <T> the type of the values
+ */
+public final class CompactEventDeserializer<T> implements Deserializer<T> {
+
+    public static final String VALUE_TYPE_CONFIG = "compact.event.value.type";
+
+    /** Type header written by Spring's JsonSerializer. */
+    static final String TYPE_ID_HEADER = "__TypeId__";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Class<? extends T> targetType;
+
+    public CompactEventDeserializer() {
+    }
+
+    public CompactEventDeserializer(Class<? extends T> type) {
+        this.targetType = type;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object type = configs.get(VALUE_TYPE_CONFIG);
+        if (targetType != null || type == null) {
+            return;
+        }
+        try {
+            targetType = type instanceof Class<?> c ? (Class<? extends T>) c
+                    : (Class<? extends T>) Class.forName(type.toString().trim());
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException("Unknown " + VALUE_TYPE_CONFIG + " " + type, ex);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (CompactEvents.isCompact(data)) {
+                return targetType != null ? CompactEvents.decode(data, targetType) : cast(CompactEvents.decode(data));
+            }
+            Class<?> type = targetType != null ? targetType : typeFromHeader(headers);
+            return cast(objectMapper.readValue(data, type));
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException ex) {
+            throw new SerializationException("Cannot deserialize a record of " + topic, ex);
+        }
+    }
+
+    private static Class<?> typeFromHeader(Headers headers) throws ClassNotFoundException {
+        Header header = headers == null ? null : headers.lastHeader(TYPE_ID_HEADER);
+        if (header == null) {
+            throw new IllegalArgumentException("JSON record without a target type or " + TYPE_ID_HEADER + " header");
+        }
+        String name = new String(header.value(), StandardCharsets.UTF_8);
+        Class<?> type = Class.forName(name, false, CompactEventDeserializer.class.getClassLoader());
+        if (!CompactEvents.supports(type)) {
+            throw new IllegalArgumentException("Refusing to deserialize JSON as " + name);
+        }
+        return type;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object value) {
+        return (T) value;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.User.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value serializer that writes events in the {@link CompactEvents} encoding.
+ *
+ * <p>Everything is written as JSON unless the {@value #FORMAT_CONFIG} producer property is {@code binary}, which
+ * keeps producers readable by consumers that only understand JSON until every consumer runs
+ * {@link CompactEventDeserializer}. Types without a compact encoding are always written as JSON. JSON values carry
+ * the same type header as Spring's JsonSerializer.
+ */
+public final class CompactEventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "compact.event.format";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private boolean compact;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        if (format != null) {
+            compact = "binary".equalsIgnoreCase(format.toString().trim());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (compact && CompactEvents.supports(data.getClass())) {
+                return CompactEvents.encode(data);
+            }
+            if (headers != null) {
+                headers.remove(CompactEventDeserializer.TYPE_ID_HEADER);
+                headers.add(CompactEventDeserializer.TYPE_ID_HEADER,
+                        data.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            }
+            return objectMapper.writeValueAsBytes(data);
+        } catch (IllegalArgumentException | JsonProcessingException ex) {
+            throw new SerializationException("Cannot serialize " + data.getClass().getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.User.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the events exchanged between services.
+ *
+ * <p>A message is a three-byte header, the magic byte {@code 0xCE}, the type id and the schema version,
+ * followed by the fixed-layout body of the event type: UUIDs as two big-endian longs, strings as a signed
+ * 16-bit byte length (-1 for null) and their UTF-8 bytes. The magic byte can never start a JSON document, which
+ * lets readers accept both encodings while producers switch over.
+ */
+public final class CompactEvents {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final String CONTENT_TYPE = "application/vnd.ewallet.event+binary";
+
+    static final int HEADER_SIZE = 3;
+    static final int UUID_SIZE = 16;
+
+    private static final EventCodec<?>[] BY_ID = new EventCodec<?>[1 << Byte.SIZE];
+    private static final Map<Class<?>, EventCodec<?>> BY_TYPE;
+
+    static {
+        EventCodec<?>[] codecs = {new WalletCreationEventCodec(), new UserInvalidationEventCodec()};
+        for (EventCodec<?> codec : codecs) {
+            BY_ID[Byte.toUnsignedInt(codec.typeId())] = codec;
+        }
+        BY_TYPE = Map.of(codecs[0].type(), codecs[0], codecs[1].type(), codecs[1]);
+    }
+
+    private CompactEvents() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return BY_TYPE.containsKey(type);
+    }
+
+    /**
+     * Tells whether a payload is in the compact encoding rather than JSON.
+     *
+     * @param data the payload
+     * @return true if the payload starts with the compact header
+     */
+    public static boolean isCompact(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    /**
+     * Encodes an event.
+     *
+     * @param event the event
+     * @return the message
+     * @throws IllegalArgumentException if the event type has no compact encoding
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Object event) {
+        EventCodec<Object> codec = (EventCodec<Object>) BY_TYPE.get(event.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("No compact encoding for " + event.getClass().getName());
+        }
+        return codec.encode(event);
+    }
+
+    /**
+     * Decodes a message of any registered event type.
+     *
+     * @param data the message
+     * @return the event
+     * @throws IllegalArgumentException if the message is malformed, of an unknown type or of a newer
+     *                                  incompatible version
+     */
+    public static Object decode(byte[] data) {
+        if (!isCompact(data)) {
+            throw new IllegalArgumentException("Not a compact event");
+        }
+        int typeId = Byte.toUnsignedInt(data[1]);
+        EventCodec<?> codec = BY_ID[typeId];
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown event type id " + typeId);
+        }
+        int version = Byte.toUnsignedInt(data[2]);
+        if (version == 0) {
+            throw new IllegalArgumentException("Invalid schema version 0 of " + codec.type().getSimpleName());
+        }
+        try {
+            return codec.decode(ByteBuffer.wrap(data, HEADER_SIZE, data.length - HEADER_SIZE),
+                    Math.min(version, codec.version()));
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated " + codec.type().getSimpleName(), ex);
+        }
+    }
+
+    /**
+     * Decodes a message of the given event type.
+     *
+     * @param <T>  the event type
+     * @param data the message
+     * @param type the class of the event type
+     * @return the event
+     * @throws IllegalArgumentException if the message is malformed or of another type
+     */
+    public static <T> T decode(byte[] data, Class<T> type) {
+        Object event = decode(data);
+        if (!type.isInstance(event)) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " but got "
+                    + event.getClass().getSimpleName());
+        }
+        return type.cast(event);
+    }
+
+    static ByteBuffer allocate(EventCodec<?> codec, int bodySize) {
+        return ByteBuffer.allocate(HEADER_SIZE + bodySize)
+                .put(MAGIC)
+                .put(codec.typeId())
+                .put(codec.version());
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int stringSize(byte[] utf8) {
+        if (utf8 != null && utf8.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String of " + utf8.length + " bytes is too long");
+        }
+        return Short.BYTES + (utf8 == null ? 0 : utf8.length);
+    }
+
+    static void putString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) utf8.length).put(utf8);
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.User.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout binary encoding of one event type. See {@link CompactEvents} for the message header.
+ *
+ * <p>Schema evolution: a new version may only append fields to the body. Readers decode the fields they know and
+ * ignore the rest, so an old reader keeps working with newer messages; a reader given an older version uses
+ * defaults for the fields that version lacks. Any other change needs a new type id.
+ *
+ * @param <T> the event type
+ */
+interface EventCodec<T> {
+
+    /**
+     * Identifies the event type in the message header; never reused for another type.
+     *
+     * @return the type id
+     */
+    byte typeId();
+
+    Class<T> type();
+
+    /**
+     * The schema version this codec writes.
+     *
+     * @return the schema version, from 1
+     */
+    byte version();
+
+    /**
+     * Encodes an event, header included.
+     *
+     * @param event the event
+     * @return the message
+     */
+    byte[] encode(T event);
+
+    /**
+     * Decodes the body of a message.
+     *
+     * @param body    the body, positioned after the header
+     * @param version the schema version of the message, at most {@link #version()}
+     * @return the event
+     */
+    T decode(ByteBuffer body, int version);
+}
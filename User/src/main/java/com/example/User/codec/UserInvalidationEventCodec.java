@@ -0,0 +1,50 @@
+package com.example.User.codec;
+
+import com.example.User.entities.models.UserInvalidationEvent;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Version 1: userId (16 bytes), version (8 bytes), email (string).
+ */
+final class UserInvalidationEventCodec implements EventCodec<UserInvalidationEvent> {
+
+    @Override
+    public byte typeId() {
+        return 2;
+    }
+
+    @Override
+    public Class<UserInvalidationEvent> type() {
+        return UserInvalidationEvent.class;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public byte[] encode(UserInvalidationEvent event) {
+        UUID userId = event.userId();
+        if (userId == null) {
+            throw new IllegalArgumentException("UserInvalidationEvent without a userId");
+        }
+        byte[] email = CompactEvents.utf8(event.email());
+        ByteBuffer buffer = CompactEvents.allocate(this,
+                CompactEvents.UUID_SIZE + Long.BYTES + CompactEvents.stringSize(email));
+        buffer.putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putLong(event.version());
+        CompactEvents.putString(buffer, email);
+        return buffer.array();
+    }
+
+    @Override
+    public UserInvalidationEvent decode(ByteBuffer body, int version) {
+        UUID userId = new UUID(body.getLong(), body.getLong());
+        long userVersion = body.getLong();
+        return new UserInvalidationEvent(userId, CompactEvents.getString(body), userVersion);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.User.codec;
+
+import com.example.User.entities.models.WalletCreationEvent;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Version 1: userId (16 bytes), phoneNumber (string).
+ */
+final class WalletCreationEventCodec implements EventCodec<WalletCreationEvent> {
+
+    @Override
+    public byte typeId() {
+        return 1;
+    }
+
+    @Override
+    public Class<WalletCreationEvent> type() {
+        return WalletCreationEvent.class;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public byte[] encode(WalletCreationEvent event) {
+        UUID userId = event.getUserId();
+        if (userId == null) {
+            throw new IllegalArgumentException("WalletCreationEvent without a userId");
+        }
+        byte[] phoneNumber = CompactEvents.utf8(event.getPhoneNumber());
+        ByteBuffer buffer = CompactEvents.allocate(this,
+                CompactEvents.UUID_SIZE + CompactEvents.stringSize(phoneNumber));
+        buffer.putLong(userId.getMostSignificantBits()).putLong(userId.getLeastSignificantBits());
+        CompactEvents.putString(buffer, phoneNumber);
+        return buffer.array();
+    }
+
+    @Override
+    public WalletCreationEvent decode(ByteBuffer body, int version) {
+        UUID userId = new UUID(body.getLong(), body.getLong());
+        return new WalletCreationEvent(userId, CompactEvents.getString(body));
+    }
+}
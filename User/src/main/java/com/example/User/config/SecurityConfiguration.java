@@ -1,10 +1,17 @@
 package com.example.User.config;
 
+import com.example.User.entities.Role;
 import com.example.User.filter.JsonUsernamePasswordAuthFilter;
 import com.example.User.filter.JwtAuthFilter;
 import com.example.User.handler.SuccessfullLoginHandler;
 import com.example.User.handler.UnsuccessfulLoginHandler;
+import com.example.User.service.UserAuthenticationProvider;
+import com.example.User.utility.BCryptWorkFactorCalibrator;
+import com.example.User.utility.CalibratedBCryptPasswordEncoder;
+import com.example.User.utility.OffloadingPasswordEncoder;
+import com.example.User.utility.PasswordHashingExecutor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -13,12 +20,9 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 
@@ -37,18 +41,14 @@ public class SecurityConfiguration {
     private JwtAuthFilter jwtAuthFilter;
 
     /**
-     * Configures the AuthenticationManager with a UserDetailsService and PasswordEncoder.
-     * @param userDetailsService the service to load user-specific data
-     * @param passwordEncoder the encoder to hash passwords
+     * Configures the AuthenticationManager with the provider that checks passwords against a single user lookup.
+     * Stored hashes whose cost differs from the calibrated one are rehashed on successful login.
+     * @param userAuthenticationProvider the provider that authenticates email and password logins
      * @return AuthenticationManager instance
      */
     @Bean
-    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
-                                                       PasswordEncoder passwordEncoder) {
-        var provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder);
-        return new ProviderManager(provider);
+    public AuthenticationManager authenticationManager(UserAuthenticationProvider userAuthenticationProvider) {
+        return new ProviderManager(userAuthenticationProvider);
     }
 
 
@@ -71,11 +71,15 @@ public class SecurityConfiguration {
 
         http
                     .csrf(csrf -> csrf
-                                    .ignoringRequestMatchers("/api/users/register", "/login", "/api/users/login", "/api/users/refresh")
+                                    .ignoringRequestMatchers("/api/users/register", "/login", "/api/users/login", "/api/users/refresh",
+                                            "/api/users/me/password", "/api/admin/**")
                     )
                     .authorizeHttpRequests(auth -> auth
+                            // Requests were authorized before they went async, e.g. streamed bulk imports
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                             .requestMatchers("/", "/login", "/error", "/error/**", "/favicon.ico", "/logout",
                                     "/api/users/register", "/api/users/login", "/api/users/refresh", "/public/**").permitAll()
+                            .requestMatchers("/api/admin/**").hasRole(Role.ADMIN.name())
                             .anyRequest().authenticated()
                     )
 //                    .formLogin(form -> form
@@ -100,11 +104,17 @@ public class SecurityConfiguration {
 
     /**
      * Password encoder bean using BCrypt hashing algorithm.
+     * The cost is calibrated for the host at startup, and hashing runs on the bounded
+     * password hashing pool instead of the request threads.
+     * @param passwordHashingExecutor the pool that runs the hashing
+     * @param calibrator the calibrator that picks the BCrypt cost
      * @return PasswordEncoder instance
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           BCryptWorkFactorCalibrator calibrator) {
+        return new OffloadingPasswordEncoder(new CalibratedBCryptPasswordEncoder(calibrator.calibrate()),
+                passwordHashingExecutor);
     }
 
 
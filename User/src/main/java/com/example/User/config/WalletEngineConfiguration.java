@@ -0,0 +1,129 @@
+package com.example.User.config;
+
+import com.example.User.wallet.TransactionHistoryLog;
+import com.example.User.wallet.engine.HotWalletPolicy;
+import com.example.User.wallet.engine.TransferEngine;
+import com.example.User.wallet.index.OffHeapBalanceMap;
+import com.example.User.wallet.journal.LedgerJournal;
+import com.example.User.wallet.journal.LedgerReplayer;
+import com.example.User.wallet.journal.TransferLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory transfer engine of the wallet subsystem. Off by default. With {@code wallet.journal.enabled}, which
+ * follows {@code wallet.engine.enabled} unless set, every committed operation is journaled before it is
+ * acknowledged, and the balances are rebuilt from the journal on startup; without it they live in memory only.
+ * Deposits and transfers are also written to the transaction history of the wallets.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "wallet.engine.enabled", havingValue = "true")
+public class WalletEngineConfiguration {
+
+    /**
+     * Opens the ledger journal, recovering a torn tail left by a crash.
+     * @param directory the directory of the segment files
+     * @param segmentRecords the number of records per segment file
+     * @param maxBatch the maximum number of records per fsync
+     * @param maxDelayMicros how long the writer waits for more records before an fsync
+     * @return the journal
+     * @throws IOException if the journal cannot be opened or is corrupt
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "wallet.journal.enabled", havingValue = "true", matchIfMissing = true)
+    public LedgerJournal ledgerJournal(
+            @Value("${wallet.journal.directory}") Path directory,
+            @Value("${wallet.journal.segment-records:1048576}") int segmentRecords,
+            @Value("${wallet.journal.max-batch:1024}") int maxBatch,
+            @Value("${wallet.journal.max-delay-us:200}") long maxDelayMicros) throws IOException {
+        return LedgerJournal.open(directory, segmentRecords, maxBatch, maxDelayMicros);
+    }
+
+    /**
+     * Writes the transaction history of the operations made durable by the journal, or of every operation
+     * without one. It is closed after the transfer engine, whose operations in flight it writes, and before the
+     * journal.
+     * @param ledgerJournal the journal, if enabled
+     * @param jdbcTemplate writes the entries
+     * @param transactionManager the transaction of each batch of entries
+     * @param maxBatch the maximum number of operations per batch
+     * @return the transaction history log
+     */
+    @Bean(destroyMethod = "close")
+    public TransactionHistoryLog transactionHistoryLog(
+            ObjectProvider<LedgerJournal> ledgerJournal,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${wallet.transactions.history-max-batch:1024}") int maxBatch) {
+        TransferLog journal = ledgerJournal.getIfAvailable();
+        return new TransactionHistoryLog(journal == null ? TransferLog.NONE : journal, jdbcTemplate,
+                new TransactionTemplate(transactionManager), maxBatch);
+    }
+
+    /**
+     * When to split a hot wallet into sub-balances across shards.
+     * @param parts the sub-balances of a split wallet, at most the number of shards; 1 disables splitting
+     * @param windowMillis the length of a measurement window
+     * @param touchesPerWindow the operations on one wallet within a window that make it a candidate
+     * @param minQueueDepth the backlog of its shard from which a candidate is split
+     * @return the policy
+     */
+    @Bean
+    public HotWalletPolicy hotWalletPolicy(
+            @Value("${wallet.engine.hot-wallet.parts:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+            int parts,
+            @Value("${wallet.engine.hot-wallet.window-ms:100}") long windowMillis,
+            @Value("${wallet.engine.hot-wallet.touches-per-window:5000}") int touchesPerWindow,
+            @Value("${wallet.engine.hot-wallet.min-queue-depth:1024}") int minQueueDepth) {
+        return new HotWalletPolicy(parts, windowMillis, touchesPerWindow, minQueueDepth);
+    }
+
+    /**
+     * Starts the transfer engine, restoring the balances of the journal if there is one. It is closed with the
+     * context, after the transfers in flight complete and before the journal.
+     * @param shards the number of single-writer shards, one thread each
+     * @param ringCapacity the number of queued commands per shard before callers are held back
+     * @param hotWalletPolicy when to split a hot wallet
+     * @param transactionHistoryLog records every committed operation, in the journal first if there is one
+     * @param ledgerJournal the journal, if enabled
+     * @return the transfer engine
+     * @throws IOException if the journal cannot be replayed
+     */
+    @Bean(destroyMethod = "close")
+    public TransferEngine transferEngine(
+            @Value("${wallet.engine.shards:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int shards,
+            @Value("${wallet.engine.ring-capacity:65536}") int ringCapacity,
+            HotWalletPolicy hotWalletPolicy,
+            TransactionHistoryLog transactionHistoryLog,
+            ObjectProvider<LedgerJournal> ledgerJournal) throws IOException {
+        TransferEngine engine = new TransferEngine(shards, ringCapacity, transactionHistoryLog, hotWalletPolicy);
+        LedgerJournal journal = ledgerJournal.getIfAvailable();
+        if (journal == null) {
+            return engine;
+        }
+        long started = System.nanoTime();
+        OffHeapBalanceMap balances = LedgerReplayer.rebuildBalances(journal.directory());
+        List<CompletableFuture<Void>> restored = new ArrayList<>();
+        balances.forEach((msb, lsb, balance, version) -> restored.add(engine.restore(new UUID(msb, lsb), balance)));
+        CompletableFuture.allOf(restored.toArray(CompletableFuture[]::new)).join();
+        log.info("Restored {} wallets from {} journal records in {} ms", balances.size(),
+                journal.recoveredRecords(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return engine;
+    }
+}
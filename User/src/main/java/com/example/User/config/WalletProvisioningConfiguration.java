@@ -0,0 +1,122 @@
+package com.example.User.config;
+
+import com.example.User.codec.CompactEventDeserializer;
+import com.example.User.entities.models.WalletCreationEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kafka consumer for wallet provisioning: batch listener, manual offset commits after each batch is written.
+ */
+@Configuration
+@ConditionalOnProperty(name = "wallet.provisioning.enabled", havingValue = "true", matchIfMissing = true)
+public class WalletProvisioningConfiguration {
+
+    @Value("${wallet.provisioning.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${wallet.provisioning.max-retries:5}")
+    private long maxRetries;
+
+    @Value("${wallet.provisioning.dead-letter-topic:wallet-creation-topic.DLT}")
+    private String deadLetterTopic;
+
+    /**
+     * Builds the container factory of the wallet creation listener.
+     * The outbox publishes payloads without type headers, so values are always read as WalletCreationEvent, in
+     * the compact encoding or as JSON; records that cannot be deserialized reach the listener as null values
+     * instead of blocking the partition.
+     * A batch that fails to be written is retried from the event that fails, and its offsets are not committed
+     * meanwhile. An event that still fails after maxRetries retries, such as one the wallets table rejects, is
+     * published to the dead-letter topic so that it does not block its partition. Failures to reach the database
+     * are retried until it is back instead, as every event would fail alike. Events that cannot be deserialized
+     * are dead-lettered at once, with the bytes they were received with.
+     * @param kafkaProperties the spring.kafka settings
+     * @param sslBundles the SSL bundles, if any
+     * @param maxPollRecords the maximum batch size
+     * @param fetchMinBytes the bytes the broker waits for before answering a fetch
+     * @param fetchMaxWaitMs how long the broker waits for fetchMinBytes
+     * @param concurrency the number of consumers, at most one per partition
+     * @param kafkaTemplate the template publishing to the dead-letter topic
+     * @return the container factory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, WalletCreationEvent> walletCreationListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            @Value("${wallet.provisioning.max-poll-records:500}") int maxPollRecords,
+            @Value("${wallet.provisioning.fetch-min-bytes:65536}") int fetchMinBytes,
+            @Value("${wallet.provisioning.fetch-max-wait-ms:100}") int fetchMaxWaitMs,
+            @Value("${wallet.provisioning.concurrency:3}") int concurrency,
+            KafkaTemplate<String, Object> kafkaTemplate) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        properties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+
+        var consumerFactory = new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new CompactEventDeserializer<>(WalletCreationEvent.class)));
+
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, WalletCreationEvent>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(errorHandler(kafkaProperties, sslBundles, kafkaTemplate));
+        return factory;
+    }
+
+    private DefaultErrorHandler errorHandler(KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles,
+                                             KafkaTemplate<String, Object> kafkaTemplate) {
+        // Unreadable events are published as the raw bytes they arrived with, everything else as the event
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(), new ByteArraySerializer())));
+        templates.put(Object.class, kafkaTemplate);
+        // Partition -1 lets the producer pick one, so the dead-letter topic may have fewer partitions
+        var recoverer = new DeadLetterPublishingRecoverer(templates,
+                (record, ex) -> new TopicPartition(deadLetterTopic, -1));
+        var errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(retryBackoffMs, maxRetries));
+        errorHandler.setBackOffFunction((record, ex) -> isDatabaseUnavailable(ex)
+                ? new FixedBackOff(retryBackoffMs, FixedBackOff.UNLIMITED_ATTEMPTS)
+                : null);
+        return errorHandler;
+    }
+
+    private static boolean isDatabaseUnavailable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof DataAccessResourceFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
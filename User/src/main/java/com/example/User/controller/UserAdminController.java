@@ -0,0 +1,55 @@
+package com.example.User.controller;
+
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.entities.request.RoleChangeRequest;
+import com.example.User.entities.response.UserResponseDTO;
+import com.example.User.service.UserService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@Slf4j
+public class UserAdminController {
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Replaces the roles of a user. Admins only.
+     * Access tokens issued for the previous roles are no longer trusted for their claims on any node.
+     * @param userId the id of the user.
+     * @param roleChangeRequest the complete set of roles the user should hold, such as ["USER", "ADMIN"].
+     * @return the updated user, 400 if a role is unknown, or 404 if there is no user with this id.
+     */
+    @PutMapping(value = "/{userId}/roles", produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponseDTO> changeRoles(@PathVariable UUID userId,
+                                                       @Valid @RequestBody RoleChangeRequest roleChangeRequest) {
+        int roles = 0;
+        for (String name : roleChangeRequest.getRoles()) {
+            try {
+                roles |= Role.valueOf(name).mask();
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        User user = userService.changeRoles(userId, roles);
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Roles of user {} changed to {}", userId, Role.names(roles));
+        return ResponseEntity.ok(user.toResponseDTO());
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.User.controller;
 
+import com.example.User.customExceptions.InvalidRefreshTokenException;
+import com.example.User.entities.Role;
 import com.example.User.entities.User;
+import com.example.User.entities.models.AuthenticatedUser;
 import com.example.User.entities.models.LoginRequest;
 import com.example.User.entities.models.LoginResponse;
 import com.example.User.entities.models.RefreshTokenRequest;
+import com.example.User.entities.request.PasswordChangeRequest;
 import com.example.User.entities.request.UserRequestDTO;
 import com.example.User.entities.response.UserResponseDTO;
 import com.example.User.service.RefreshTokenService;
@@ -18,7 +22,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import java.util.Map;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -59,11 +62,11 @@ public class UserController {
                 )
         );
 
-        String username = auth.getName();
-        User user = userService.getUserByEmail(username);
-
-        String token = jwtUtil.generateToken(username, Map.of("roles", auth.getAuthorities()));
-        String refreshToken = refreshTokenService.createRefreshToken(user);
+        // The principal carries the user read to check the password, so the tokens need no second lookup
+        AuthenticatedUser principal = (AuthenticatedUser) auth.getPrincipal();
+        String token = jwtUtil.generateToken(principal.getEmail(), Role.names(principal.getRoles()),
+                principal.getVersion());
+        String refreshToken = refreshTokenService.createRefreshToken(principal.getId());
         
         return new LoginResponse(token, refreshToken, "Bearer", jwtUtil.getJwtExpirationInMs());
     }
@@ -77,17 +80,17 @@ public class UserController {
             consumes = MediaType.APPLICATION_JSON_VALUE)
     public LoginResponse refreshToken(@RequestBody RefreshTokenRequest refreshTokenRequest) {
         var refreshToken = refreshTokenService.validateRefreshToken(refreshTokenRequest.getRefreshToken());
-        // Fetch user explicitly to avoid lazy loading issues
-        User user = userService.getUserByEmail(refreshToken.getUser().getEmail());
-        
-        // Convert roles to authorities format for consistency with login
-        var authorities = user.getRoles().stream()
-                .map(role -> (org.springframework.security.core.GrantedAuthority) () -> role)
-                .toList();
+        // The JPA store reads the user with the token; other stores only know the id and go through the user cache
+        User user = refreshToken.user() != null
+                ? refreshToken.user()
+                : userService.getUserById(refreshToken.userId());
+        if (user == null) {
+            throw new InvalidRefreshTokenException();
+        }
         
-        // Generate new access token
-        String newAccessToken = jwtUtil.generateToken(user.getEmail(), 
-                Map.of("roles", authorities));
+        // Generate new access token carrying the roles and version of the user
+        String newAccessToken = jwtUtil.generateToken(user.getEmail(), Role.names(user.getRoles()),
+                user.getVersion());
         
         // Generate new refresh token (rotate refresh token for security)
         String newRefreshToken = refreshTokenService.createRefreshToken(user);
@@ -96,6 +99,21 @@ public class UserController {
                 jwtUtil.getJwtExpirationInMs());
     }
 
+    /**
+     * Endpoint for the authenticated user to change their password.
+     * Access tokens issued before the change are no longer trusted for their claims on any node.
+     * @param authentication the authenticated user.
+     * @param passwordChangeRequest the current and the new password.
+     * @return 204 No Content once the password is changed, 401 if the current password does not match.
+     */
+    @PutMapping(value = "/me/password", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> changePassword(Authentication authentication,
+                                               @Valid @RequestBody PasswordChangeRequest passwordChangeRequest) {
+        User user = userService.changePassword(authentication.getName(),
+                passwordChangeRequest.getCurrentPassword(), passwordChangeRequest.getNewPassword());
+        return user == null ? ResponseEntity.notFound().build() : ResponseEntity.noContent().build();
+    }
+
     @GetMapping(value="/me", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<UserResponseDTO> getCurrentUser(Authentication authentication) {
         String email = authentication.getName();
@@ -0,0 +1,40 @@
+package com.example.User.controller;
+
+import com.example.User.service.UserImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@Slf4j
+public class UserImportController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    /**
+     * Creates users in bulk. Admins only.
+     * The request body is NDJSON with one registration request per line. The response streams one result per
+     * non-blank line, in order, as each chunk of lines is committed, so neither side holds the whole file.
+     *
+     * @param body the NDJSON request body
+     * @return the streamed NDJSON results
+     */
+    @PostMapping(value = "/import", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> importUsers(InputStream body) {
+        StreamingResponseBody results = output -> userImportService.importUsers(body, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(results);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.User.controller;
+
+import com.example.User.customExceptions.WalletAccessDeniedException;
+import com.example.User.entities.User;
+import com.example.User.entities.WalletTransaction;
+import com.example.User.entities.response.TransactionPageDTO;
+import com.example.User.service.TransactionHistoryService;
+import com.example.User.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/wallets")
+@Slf4j
+public class WalletController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    /**
+     * Endpoint to read the transaction history of a wallet, newest first. Users can only read their own.
+     * @param userId the owner of the wallet.
+     * @param cursor the nextCursor of the previous page, absent for the first page.
+     * @param direction only CREDIT or only DEBIT entries, absent for both.
+     * @param type only entries of this type, absent for all.
+     * @param limit the page size, absent for the default.
+     * @param authentication the authenticated user.
+     * @return ResponseEntity<TransactionPageDTO> containing the page and the cursor of the next one.
+     */
+    @GetMapping(value = "/{userId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TransactionPageDTO> getTransactions(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) WalletTransaction.Direction direction,
+            @RequestParam(required = false) WalletTransaction.Type type,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        User user = userService.getUserByEmail(authentication.getName());
+        if (user == null || !user.getId().equals(userId)) {
+            log.warn("Denied access to the wallet of user {} for {}", userId, authentication.getName());
+            throw new WalletAccessDeniedException(userId);
+        }
+        return ResponseEntity.ok(transactionHistoryService.getTransactions(userId, cursor, direction, type, limit));
+    }
+}
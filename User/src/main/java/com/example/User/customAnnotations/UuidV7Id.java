@@ -0,0 +1,21 @@
+package com.example.User.customAnnotations;
+
+import com.example.User.customAnnotations.implementation.UuidV7IdGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Generates the annotated UUID identifier as a time-ordered version 7 UUID.
+ * Combine with {@code @JdbcTypeCode(SqlTypes.BINARY)} to store it as BINARY(16).
+ */
+@IdGeneratorType(UuidV7IdGenerator.class)
+@Target({FIELD, METHOD})
+@Retention(RUNTIME)
+public @interface UuidV7Id {
+}
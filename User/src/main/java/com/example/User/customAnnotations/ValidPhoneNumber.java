@@ -0,0 +1,22 @@
+package com.example.User.customAnnotations;
+
+import com.example.User.customAnnotations.implementation.ValidPhoneNumberImplementation;
+import jakarta.validation.Constraint;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+@Target({FIELD, ANNOTATION_TYPE})
+@Retention(RUNTIME)
+@Constraint(validatedBy = {ValidPhoneNumberImplementation.class})
+public @interface ValidPhoneNumber {
+    String message() default "Invalid phone number format";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends jakarta.validation.Payload>[] payload() default {};
+}
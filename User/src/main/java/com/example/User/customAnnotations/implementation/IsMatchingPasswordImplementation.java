@@ -19,7 +19,7 @@ public class IsMatchingPasswordImplementation implements ConstraintValidator<IsM
      */
     @Override
     public boolean isValid(UserRequestDTO userRequestDTO, jakarta.validation.ConstraintValidatorContext context) {
-        return userRequestDTO.getPassword().equals(userRequestDTO.getConfirmPassword());
+        return ValidationEngine.passwordsMatch(userRequestDTO.getPassword(), userRequestDTO.getConfirmPassword());
     }
 
 }
@@ -4,19 +4,15 @@ import com.example.User.customAnnotations.ValidEmail;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class ValidEmailImplementation implements ConstraintValidator<ValidEmail, String> {
 
-    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
     @Override
     public void initialize(ValidEmail constraintAnnotation) {
         // Initialization logic if needed
     }
 
     /**
-     * Validates the email format using a regular expression.
+     * Validates the email format.
      *
      * @param s the email string to validate
      * @param constraintValidatorContext context in which the constraint is evaluated
@@ -28,15 +24,13 @@ public class ValidEmailImplementation implements ConstraintValidator<ValidEmail,
     }
 
     /**
-     * Validates the email format using a regular expression.
+     * Validates the email format with the single-pass {@link ValidationEngine}.
      *
      * @param email the email string to validate
      * @return true if the email is valid, false otherwise
      */
     boolean validateEmail(String email) {
-        Pattern pattern = Pattern.compile(EMAIL_REGEX);
-        Matcher matcher = pattern.matcher(email);
-        return matcher.matches();
+        return ValidationEngine.isValidEmail(email);
     }
 
 }
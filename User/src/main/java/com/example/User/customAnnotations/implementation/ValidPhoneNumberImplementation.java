@@ -0,0 +1,21 @@
+package com.example.User.customAnnotations.implementation;
+
+import com.example.User.customAnnotations.ValidPhoneNumber;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class ValidPhoneNumberImplementation implements ConstraintValidator<ValidPhoneNumber, String> {
+
+    /**
+     * Validates that the phone number is in E.164 format.
+     * A missing phone number is accepted, as with {@code @Pattern}.
+     *
+     * @param phoneNumber the phone number to validate
+     * @param context context in which the constraint is evaluated
+     * @return true if the phone number is absent or valid, false otherwise
+     */
+    @Override
+    public boolean isValid(String phoneNumber, ConstraintValidatorContext context) {
+        return phoneNumber == null || ValidationEngine.isValidE164(phoneNumber);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.User.customAnnotations.implementation;
+
+/**
+ * Single-pass, allocation-free checks behind the registration constraints.
+ * Each check accepts exactly the strings accepted by the regular expression it replaces.
+ */
+public final class ValidationEngine {
+
+    private static final int MAX_E164_DIGITS = 15;
+
+    private ValidationEngine() {
+    }
+
+    /**
+     * Checks an email address against {@code ^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$}.
+     *
+     * @param email the email to check
+     * @return true if the email is valid, false otherwise or if it is null
+     */
+    public static boolean isValidEmail(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                at = i;
+                break;
+            }
+            if (!isLocalPartChar(c)) {
+                return false;
+            }
+        }
+        if (at <= 0) {
+            return false;
+        }
+        // The top-level domain follows the last dot, so only letters may follow it
+        int lastDot = -1;
+        boolean lettersSinceDot = true;
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+                lettersSinceDot = true;
+            } else if (isAsciiLetter(c)) {
+                continue;
+            } else if (isAsciiDigit(c) || c == '-') {
+                lettersSinceDot = false;
+            } else {
+                return false;
+            }
+        }
+        return lastDot > at + 1 && length - lastDot - 1 >= 2 && lettersSinceDot;
+    }
+
+    /**
+     * Checks an E.164 phone number against {@code ^\+?[1-9]\d{1,14}$}.
+     *
+     * @param phoneNumber the phone number to check
+     * @return true if the phone number is valid, false otherwise or if it is null
+     */
+    public static boolean isValidE164(CharSequence phoneNumber) {
+        if (phoneNumber == null) {
+            return false;
+        }
+        int length = phoneNumber.length();
+        int start = length > 0 && phoneNumber.charAt(0) == '+' ? 1 : 0;
+        int digits = length - start;
+        if (digits < 2 || digits > MAX_E164_DIGITS) {
+            return false;
+        }
+        char first = phoneNumber.charAt(start);
+        if (first < '1' || first > '9') {
+            return false;
+        }
+        for (int i = start + 1; i < length; i++) {
+            if (!isAsciiDigit(phoneNumber.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a password and its confirmation are equal.
+     *
+     * @param password        the password
+     * @param confirmPassword the confirmation of the password
+     * @return true if both are present and equal, false otherwise
+     */
+    public static boolean passwordsMatch(CharSequence password, CharSequence confirmPassword) {
+        if (password == null || confirmPassword == null) {
+            return false;
+        }
+        int length = password.length();
+        if (length != confirmPassword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (password.charAt(i) != confirmPassword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.User.customExceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException() {
+        super("Invalid page cursor");
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.User.customExceptions;
+
+import lombok.Getter;
+
+@Getter
+public class PasswordHashingOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    /**
+     * Exception thrown when the password hashing pool cannot accept more work.
+     * @param retryAfter the number of seconds the client should wait before retrying
+     */
+    public PasswordHashingOverloadedException(long retryAfter) {
+        super("Password hashing capacity exhausted, retry later");
+        this.retryAfterSeconds = retryAfter;
+    }
+}
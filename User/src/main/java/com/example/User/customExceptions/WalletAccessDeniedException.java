@@ -0,0 +1,13 @@
+package com.example.User.customExceptions;
+
+import java.util.UUID;
+
+public class WalletAccessDeniedException extends RuntimeException {
+    /**
+     * Exception thrown when a user asks for the wallet of another user.
+     * @param userId the owner of the wallet that was asked for
+     */
+    public WalletAccessDeniedException(UUID userId) {
+        super("Access denied to the wallet of user " + userId);
+    }
+}
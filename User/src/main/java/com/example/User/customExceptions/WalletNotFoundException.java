@@ -0,0 +1,13 @@
+package com.example.User.customExceptions;
+
+import java.util.UUID;
+
+public class WalletNotFoundException extends RuntimeException {
+    /**
+     * Exception thrown when a user has no wallet yet; it is created shortly after registration.
+     * @param userId the user whose wallet was asked for
+     */
+    public WalletNotFoundException(UUID userId) {
+        super("No wallet for user " + userId);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.User.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease and progress of a background maintenance job.
+ * This class maps to the "maintenance_job_state" table in the database; there is one row per job.
+ */
+@Entity
+@Table(name = "maintenance_job_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaintenanceJobState {
+
+    private static final int JOB_NAME_LENGTH = 64;
+    private static final int LEASE_OWNER_LENGTH = 100;
+    private static final int PHASE_LENGTH = 32;
+
+    @Id
+    @Column(length = JOB_NAME_LENGTH)
+    private String jobName;
+
+    /**
+     * Node currently holding the lease, or null when nobody does.
+     */
+    @Column(length = LEASE_OWNER_LENGTH)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * Threshold of the run in progress, or null when no run is in progress.
+     * Kept so that a run interrupted by a crash resumes with the same threshold.
+     */
+    private LocalDateTime runThreshold;
+
+    @Column(length = PHASE_LENGTH)
+    private String phase;
+
+    /**
+     * Keyset position of the last row processed by the run in progress.
+     */
+    private LocalDateTime cursorTime;
+
+    private UUID cursorId;
+
+    private long rowsProcessed;
+
+    private LocalDateTime lastCompletedAt;
+}
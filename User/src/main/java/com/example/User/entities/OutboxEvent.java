@@ -0,0 +1,71 @@
+package com.example.User.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting to be published, written in the same transaction as the change it describes.
+ * This class maps to the "outbox_events" table in the database.
+ */
+@Entity
+@Table(name = "outbox_events",
+        // Unsent rows are polled in id order: sent_at IS NULL ORDER BY id
+        indexes = @Index(name = "idx_outbox_events_sent_at", columnList = "sent_at, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    private static final int TOPIC_LENGTH = 128;
+    private static final int NAME_LENGTH = 64;
+    private static final int PAYLOAD_LENGTH = 4096;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = TOPIC_LENGTH)
+    private String topic;
+
+    @Column(length = NAME_LENGTH)
+    private String messageKey;
+
+    /**
+     * Simple name of the event class, sent as the event-type header.
+     */
+    @Column(nullable = false, length = NAME_LENGTH)
+    private String eventType;
+
+    @Column(nullable = false, length = NAME_LENGTH)
+    private String contentType;
+
+    @Column(nullable = false, length = PAYLOAD_LENGTH)
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    private byte[] payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    /**
+     * When the relay got the broker's acknowledgement, or null while the event is pending.
+     */
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
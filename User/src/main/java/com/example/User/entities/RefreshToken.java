@@ -1,8 +1,13 @@
 package com.example.User.entities;
 
+import com.example.User.customAnnotations.UuidV7Id;
+import com.example.User.utility.TokenHasher;
+import com.example.User.utility.UuidBytes;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -12,7 +17,17 @@ import java.util.UUID;
  * This class maps to the "refresh_tokens" table in the database.
  */
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens",
+        // Unique keys of a partitioned table must include the partitioning column, expiry_date. Named apart from
+        // uk_refresh_tokens_token_hash, the UNIQUE (token_hash) of an unpartitioned table
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_token_hash_expiry",
+                columnNames = {"token_hash", "expiry_date"}),
+        indexes = {
+                // Keyset order of the purge job
+                @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date, id"),
+                @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at, id"),
+                @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id, expiry_date")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,18 +35,30 @@ import java.util.UUID;
 @Builder
 public class RefreshToken {
 
+    /**
+     * Time-ordered UUIDv7, stored as BINARY(16) so that inserts append to the clustered index.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = UuidBytes.LENGTH)
     private UUID id;
 
-    @Column(nullable = false, unique = true, length = 500)
-    private String token;
+    /**
+     * SHA-256 digest of the raw token, stored as BINARY(32).
+     */
+    @Column(name = "token_hash", nullable = false, length = TokenHasher.DIGEST_LENGTH)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private byte[] tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    // Partitioned tables cannot have foreign keys, so user_id is not a database-level foreign key. Nothing stops a
+    // user from being deleted with tokens left: whatever deletes users must delete their tokens too. Left-over
+    // tokens are never accepted, as they are only read joined with their user, and retention removes them.
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
-    @Column(nullable = false)
+    @Column(name = "expiry_date", nullable = false)
     private LocalDateTime expiryDate;
 
     @CreationTimestamp
@@ -40,6 +67,7 @@ public class RefreshToken {
     /**
      * Timestamp when the token was revoked, if ever.
      */
+    @Column(name = "revoked_at")
     private LocalDateTime revokedAt;
 
     @Column(nullable = false)
@@ -0,0 +1,132 @@
+package com.example.User.entities;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Registry of the roles a user can hold.
+ *
+ * <p>A user's roles are stored as a bitmask in the {@code roles} column of user_entity, one bit per role, so
+ * loading a user needs no second query and holds no collection. The bit of a role is part of the stored data and
+ * must never change; new roles take the next free bit. The authorities and role names of every mask are built
+ * once, so mapping a user to its authorities allocates nothing.
+ */
+public enum Role {
+    USER(0),
+    ADMIN(1);
+
+    private static final List<GrantedAuthority>[] AUTHORITIES_BY_MASK;
+    private static final List<String>[] NAMES_BY_MASK;
+
+    static {
+        int masks = 1 << maxBit();
+        @SuppressWarnings("unchecked")
+        List<GrantedAuthority>[] authorities = new List[masks];
+        @SuppressWarnings("unchecked")
+        List<String>[] names = new List[masks];
+        for (int mask = 0; mask < masks; mask++) {
+            List<GrantedAuthority> maskAuthorities = new ArrayList<>();
+            List<String> maskNames = new ArrayList<>();
+            for (Role role : values()) {
+                if ((mask & role.mask()) != 0) {
+                    maskAuthorities.add(role.grantedAuthority);
+                    maskNames.add(role.authority);
+                }
+            }
+            authorities[mask] = List.copyOf(maskAuthorities);
+            names[mask] = List.copyOf(maskNames);
+        }
+        AUTHORITIES_BY_MASK = authorities;
+        NAMES_BY_MASK = names;
+    }
+
+    private final int bit;
+    private final String authority;
+    private final GrantedAuthority grantedAuthority;
+
+    Role(int position) {
+        this.bit = position;
+        this.authority = "ROLE_" + name();
+        this.grantedAuthority = new SimpleGrantedAuthority(authority);
+    }
+
+    public int mask() {
+        return 1 << bit;
+    }
+
+    /**
+     * The Spring Security authority of the role, such as {@code ROLE_USER}.
+     *
+     * @return the authority name
+     */
+    public String authority() {
+        return authority;
+    }
+
+    public static int mask(Role... roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Maps authority names, such as the roles claim of a token, to a mask; unknown names are ignored.
+     *
+     * @param authorities the authority names
+     * @return the mask of the known roles among them
+     */
+    public static int mask(Collection<String> authorities) {
+        int mask = 0;
+        for (Role role : values()) {
+            if (authorities.contains(role.authority)) {
+                mask |= role.mask();
+            }
+        }
+        return mask;
+    }
+
+    public static boolean has(int mask, Role role) {
+        return (mask & role.mask()) != 0;
+    }
+
+    /**
+     * Returns the shared, immutable authorities of a mask.
+     *
+     * @param mask the roles mask of a user
+     * @return the granted authorities of the roles in the mask
+     */
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES_BY_MASK[checked(mask)];
+    }
+
+    /**
+     * Returns the shared, immutable authority names of a mask.
+     *
+     * @param mask the roles mask of a user
+     * @return the authority names of the roles in the mask
+     */
+    public static List<String> names(int mask) {
+        return NAMES_BY_MASK[checked(mask)];
+    }
+
+    private static int checked(int mask) {
+        if (mask < 0 || mask >= AUTHORITIES_BY_MASK.length) {
+            throw new IllegalArgumentException("Unknown role bits in mask " + Integer.toBinaryString(mask));
+        }
+        return mask;
+    }
+
+    private static int maxBit() {
+        int max = 0;
+        for (Role role : values()) {
+            max = Math.max(max, role.bit + 1);
+        }
+        return max;
+    }
+}
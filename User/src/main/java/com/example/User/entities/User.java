@@ -1,25 +1,25 @@
 package com.example.User.entities;
 
+import com.example.User.customAnnotations.UuidV7Id;
 import com.example.User.customAnnotations.ValidEmail;
+import com.example.User.customAnnotations.ValidPhoneNumber;
 import com.example.User.entities.response.UserResponseDTO;
+import com.example.User.utility.UuidBytes;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
-import jakarta.persistence.FetchType;
-import jakarta.validation.constraints.Pattern;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -36,8 +36,13 @@ import java.util.UUID;
 @Builder
 public class User {
 
+    /**
+     * Time-ordered UUIDv7, stored as BINARY(16) so that inserts append to the clustered index.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = UuidBytes.LENGTH)
     private UUID id;
 
     @Column(nullable = false)
@@ -48,10 +53,7 @@ public class User {
     private String email;
 
     @Column(nullable = false, unique = true)
-    @Pattern(
-            regexp = "^\\+?[1-9]\\d{1,14}$",
-            message = "Invalid phone number format"
-    )
+    @ValidPhoneNumber
     private String phoneNumber;
 
     @Column(nullable = false)
@@ -63,8 +65,19 @@ public class User {
     @Column(nullable = false)
     private boolean isKycDone = false;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    private Set<String> roles = Set.of("ROLE_USER");
+    /**
+     * Bitmask of the {@link Role}s of the user.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private int roles = Role.USER.mask();
+
+    /**
+     * Incremented on every update; access tokens carry it so stale tokens can be detected.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
 
     /**
      * Converts this User entity to a UserResponseDTO.
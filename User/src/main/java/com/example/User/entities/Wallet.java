@@ -0,0 +1,62 @@
+package com.example.User.entities;
+
+import com.example.User.customAnnotations.UuidV7Id;
+import com.example.User.utility.UuidBytes;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The wallet of a user, created from the user's WalletCreationEvent.
+ * This class maps to the "wallets" table in the database; there is at most one wallet per user.
+ */
+@Entity
+@Table(name = "wallets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallets_user_id", columnNames = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Wallet {
+
+    @Id
+    @UuidV7Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = UuidBytes.LENGTH)
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "user_id", nullable = false, length = UuidBytes.LENGTH)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private String phoneNumber;
+
+    /**
+     * Balance in minor units of the currency.
+     */
+    @Column(nullable = false)
+    private long balance;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,104 @@
+package com.example.User.entities;
+
+import com.example.User.customAnnotations.UuidV7Id;
+import com.example.User.utility.UuidBytes;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the transaction history of a wallet: a transfer between two wallets is one DEBIT entry in the
+ * source wallet and one CREDIT entry in the destination wallet.
+ * This class maps to the "wallet_transactions" table in the database.
+ */
+@Entity
+@Table(name = "wallet_transactions",
+        // History pages are read newest first by keyset on (created_at, id) within a wallet. One index per
+        // combination of the optional filters puts the filtered columns before the sort columns, so that every
+        // page is a single seek followed by a scan of the page's own entries, at any depth. Each index also
+        // carries the remaining columns of a page, so the page is read from the index without primary key lookups.
+        indexes = {
+                @Index(name = "idx_wallet_transactions_wallet",
+                        columnList = "wallet_id, created_at DESC, id DESC, type, direction, amount, "
+                                + "counterparty_wallet_id"),
+                @Index(name = "idx_wallet_transactions_direction",
+                        columnList = "wallet_id, direction, created_at DESC, id DESC, type, amount, "
+                                + "counterparty_wallet_id"),
+                @Index(name = "idx_wallet_transactions_type",
+                        columnList = "wallet_id, type, created_at DESC, id DESC, direction, amount, "
+                                + "counterparty_wallet_id"),
+                @Index(name = "idx_wallet_transactions_direction_type",
+                        columnList = "wallet_id, direction, type, created_at DESC, id DESC, amount, "
+                                + "counterparty_wallet_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletTransaction {
+
+    private static final int TYPE_LENGTH = 16;
+    private static final int DIRECTION_LENGTH = 8;
+
+    public enum Type {
+        DEPOSIT,
+        WITHDRAWAL,
+        TRANSFER
+    }
+
+    public enum Direction {
+        CREDIT,
+        DEBIT
+    }
+
+    @Id
+    @UuidV7Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = UuidBytes.LENGTH)
+    private UUID id;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "wallet_id", nullable = false, length = UuidBytes.LENGTH)
+    private UUID walletId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = TYPE_LENGTH)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = DIRECTION_LENGTH)
+    private Direction direction;
+
+    /**
+     * Amount in minor units of the currency, always positive; the direction tells whether it was added or taken.
+     */
+    @Column(nullable = false)
+    private long amount;
+
+    /**
+     * The wallet on the other side of a transfer, or null for deposits and withdrawals.
+     */
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "counterparty_wallet_id", length = UuidBytes.LENGTH)
+    private UUID counterpartyWalletId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
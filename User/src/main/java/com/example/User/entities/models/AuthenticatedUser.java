@@ -0,0 +1,53 @@
+package com.example.User.entities.models;
+
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Principal of a password login. Carries the user that was loaded to check the password, so that issuing the
+ * tokens needs no second lookup. The user may be shared with the user cache and must not be modified.
+ * The password hash is not exposed once the login has succeeded.
+ *
+ * @param user the authenticated user
+ */
+public record AuthenticatedUser(User user) implements UserDetails {
+
+    public UUID getId() {
+        return user.getId();
+    }
+
+    public String getEmail() {
+        return user.getEmail();
+    }
+
+    /**
+     * @return the role bitmask of the user
+     */
+    public int getRoles() {
+        return user.getRoles();
+    }
+
+    public long getVersion() {
+        return user.getVersion();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Role.authorities(user.getRoles());
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return user.getEmail();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.User.entities.models;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A row selected for purging, with the keyset position it was selected at.
+ *
+ * @param id      the primary key of the row
+ * @param sortKey the indexed time column the purge walks, such as the expiry date
+ */
+public record PurgeCandidate(UUID id, LocalDateTime sortKey) {
+}
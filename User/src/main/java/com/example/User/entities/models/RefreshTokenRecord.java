@@ -0,0 +1,38 @@
+package com.example.User.entities.models;
+
+import com.example.User.entities.User;
+
+import java.util.UUID;
+
+/**
+ * Storage-independent view of a refresh token.
+ *
+ * @param tokenHash   the 32-byte SHA-256 digest of the raw token
+ * @param userId      the id of the user the token was issued to
+ * @param expiresAtMs the expiry of the token in epoch milliseconds
+ * @param revokedAtMs the revocation time in epoch milliseconds, or 0 if the token is not revoked
+ * @param user        the user, when the backend loaded it in the same read as the token; {@code null} otherwise
+ */
+public record RefreshTokenRecord(byte[] tokenHash, UUID userId, long expiresAtMs, long revokedAtMs, User user) {
+
+    /**
+     * A token as held by a backend that does not load the user with it.
+     *
+     * @param tokenHash   the 32-byte SHA-256 digest of the raw token
+     * @param userId      the id of the user the token was issued to
+     * @param expiresAtMs the expiry of the token in epoch milliseconds
+     * @param revokedAtMs the revocation time in epoch milliseconds, or 0 if the token is not revoked
+     * @return the token, without its user
+     */
+    public static RefreshTokenRecord withoutUser(byte[] tokenHash, UUID userId, long expiresAtMs, long revokedAtMs) {
+        return new RefreshTokenRecord(tokenHash, userId, expiresAtMs, revokedAtMs, null);
+    }
+
+    public boolean isRevoked() {
+        return revokedAtMs != 0;
+    }
+
+    public boolean isExpired(long nowMs) {
+        return expiresAtMs < nowMs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.User.entities.models;
+
+import com.example.User.customExceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the transaction history of a wallet: the last entry of a page, whose successors make the next page.
+ * Clients get it as an opaque URL-safe string and send it back unchanged.
+ *
+ * @param createdAt when the last entry was created, to the microsecond
+ * @param id        the id of the last entry, which orders entries created in the same microsecond
+ */
+public record TransactionCursor(LocalDateTime createdAt, UUID id) {
+
+    private static final byte VERSION = 1;
+    private static final int SIZE = 1 + 8 + 16;
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), createdAt);
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                .put(VERSION)
+                .putLong(micros)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @param cursor a cursor returned with a previous page
+     * @return the position it stands for
+     * @throws InvalidCursorException if the cursor was not made by {@link #encode()}
+     */
+    public static TransactionCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException();
+        }
+        if (bytes.length != SIZE || bytes[0] != VERSION) {
+            throw new InvalidCursorException();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, SIZE - 1);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC)
+                .plus(buffer.getLong(), ChronoUnit.MICROS);
+        return new TransactionCursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.User.entities.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one line of a bulk user import, written back as one NDJSON line.
+ *
+ * @param line   the 1-based line number in the uploaded file
+ * @param status the outcome of the line
+ * @param userId the id of the created user, or null if no user was created
+ * @param error  why no user was created, or null if one was
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportResult(long line, Status status, UUID userId, String error) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public static UserImportResult created(long line, UUID userId) {
+        return new UserImportResult(line, Status.CREATED, userId, null);
+    }
+
+    public static UserImportResult duplicate(long line, String error) {
+        return new UserImportResult(line, Status.DUPLICATE, null, error);
+    }
+
+    public static UserImportResult invalid(long line, String error) {
+        return new UserImportResult(line, Status.INVALID, null, error);
+    }
+}
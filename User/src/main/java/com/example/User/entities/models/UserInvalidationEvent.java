@@ -0,0 +1,13 @@
+package com.example.User.entities.models;
+
+import java.util.UUID;
+
+/**
+ * Announces that a user changed, so every node drops its cached copy.
+ *
+ * @param userId  the id of the user that changed
+ * @param email   the email of the user that changed
+ * @param version the version of the user after the change
+ */
+public record UserInvalidationEvent(UUID userId, String email, long version) {
+}
@@ -0,0 +1,14 @@
+package com.example.User.entities.models;
+
+import java.util.List;
+
+/**
+ * Claims of an access token whose signature and expiry have been verified.
+ *
+ * @param subject     the username the token was issued to
+ * @param roles       the role names carried by the token, or null if the token has none
+ * @param version     the user version carried by the token, or null if the token has none
+ * @param expiresAtMs the expiry of the token in epoch milliseconds
+ */
+public record VerifiedToken(String subject, List<String> roles, Long version, long expiresAtMs) {
+}
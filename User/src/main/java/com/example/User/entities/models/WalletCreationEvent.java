@@ -1,12 +1,16 @@
 package com.example.User.entities.models;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class WalletCreationEvent {
         private UUID userId;
         private String phoneNumber;
@@ -0,0 +1,15 @@
+package com.example.User.entities.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PasswordChangeRequest {
+    @NotEmpty
+    private String currentPassword;
+
+    @NotEmpty
+    private String newPassword;
+}
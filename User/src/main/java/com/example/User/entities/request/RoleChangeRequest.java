@@ -0,0 +1,17 @@
+package com.example.User.entities.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The complete set of roles a user should hold, by {@link com.example.User.entities.Role} name.
+ */
+@Getter
+@AllArgsConstructor
+public class RoleChangeRequest {
+    @NotEmpty
+    private List<String> roles;
+}
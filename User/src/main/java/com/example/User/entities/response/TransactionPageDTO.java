@@ -0,0 +1,12 @@
+package com.example.User.entities.response;
+
+import java.util.List;
+
+/**
+ * A page of the transaction history of a wallet, newest first.
+ *
+ * @param transactions the entries of the page
+ * @param nextCursor   the cursor of the next page, or null on the last page
+ */
+public record TransactionPageDTO(List<TransactionResponseDTO> transactions, String nextCursor) {
+}
@@ -0,0 +1,22 @@
+package com.example.User.entities.response;
+
+import com.example.User.entities.WalletTransaction;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of a page of the transaction history of a wallet.
+ *
+ * @param id                   the id of the entry
+ * @param type                 the kind of operation
+ * @param direction            whether the amount was added to the wallet or taken from it
+ * @param amount               the amount in minor units of the currency
+ * @param counterpartyWalletId the wallet on the other side of a transfer, absent otherwise
+ * @param createdAt            when the operation was recorded
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionResponseDTO(UUID id, WalletTransaction.Type type, WalletTransaction.Direction direction,
+                                     long amount, UUID counterpartyWalletId, LocalDateTime createdAt) {
+}
@@ -1,13 +1,20 @@
 package com.example.User.exceptionHandler;
 
+import com.example.User.customExceptions.InvalidCursorException;
 import com.example.User.customExceptions.InvalidJwtException;
 import com.example.User.customExceptions.InvalidRefreshTokenException;
+import com.example.User.customExceptions.PasswordHashingOverloadedException;
 import com.example.User.customExceptions.UserAlreadyExistsException;
+import com.example.User.customExceptions.WalletAccessDeniedException;
+import com.example.User.customExceptions.WalletNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -78,6 +85,92 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
     }
 
+    /**
+     * Handles BadCredentialsException, such as a wrong current password, and returns a response with status 401
+     * Unauthorized.
+     *
+     * @param ex the exception that was thrown
+     * @return a ResponseEntity containing the error details
+     */
+    @ExceptionHandler(BadCredentialsException.class)
+    public ResponseEntity<Map<String, Object>> handleBadCredentials(BadCredentialsException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.UNAUTHORIZED.value());
+        error.put("error", "Unauthorized");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    }
+
+    /**
+     * Handles PasswordHashingOverloadedException and returns a response with status 503 Service Unavailable.
+     *
+     * @param ex the exception that was thrown
+     * @return a ResponseEntity containing the error details and a Retry-After header
+     */
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handlePasswordHashingOverloaded(PasswordHashingOverloadedException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handles WalletAccessDeniedException and returns a response with status 403 Forbidden.
+     *
+     * @param ex the exception that was thrown
+     * @return a ResponseEntity containing the error details
+     */
+    @ExceptionHandler(WalletAccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleWalletAccessDenied(WalletAccessDeniedException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.FORBIDDEN.value());
+        error.put("error", "Forbidden");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
+    /**
+     * Handles WalletNotFoundException and returns a response with status 404 Not Found.
+     *
+     * @param ex the exception that was thrown
+     * @return a ResponseEntity containing the error details
+     */
+    @ExceptionHandler(WalletNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleWalletNotFound(WalletNotFoundException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.NOT_FOUND.value());
+        error.put("error", "Not Found");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    /**
+     * Handles InvalidCursorException and MethodArgumentTypeMismatchException, such as an unknown filter value,
+     * and returns a response with status 400 Bad Request.
+     *
+     * @param ex the exception that was thrown
+     * @return a ResponseEntity containing the error details
+     */
+    @ExceptionHandler({InvalidCursorException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<Map<String, Object>> handleInvalidRequestParameter(RuntimeException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Bad Request");
+        error.put("message", ex instanceof MethodArgumentTypeMismatchException mismatch
+                ? "Invalid value for " + mismatch.getName()
+                : ex.getMessage());
+        error.put("timestamp", Instant.now().toString());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     /**
      * Handles HttpClientErrorException and returns a response with status 400 Bad Request.
      *
@@ -1,5 +1,9 @@
 package com.example.User.filter;
+import com.example.User.entities.Role;
+import com.example.User.entities.models.VerifiedToken;
+import com.example.User.repository.UserRepository;
 import com.example.User.service.JPAUserDetailService;
+import com.example.User.service.UserVersionTracker;
 import com.example.User.utility.JWTUtility;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -8,54 +12,113 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 @Slf4j
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JWTUtility jwtUtil;
     private final JPAUserDetailService userDetailsService;
+    private final UserVersionTracker userVersionTracker;
+    private final UserRepository userRepository;
+    private final boolean statelessPrincipal;
 
-    public JwtAuthFilter(JWTUtility jwtUtil, JPAUserDetailService userDetailsService) {
-        this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+    public JwtAuthFilter(JWTUtility jwtUtility, JPAUserDetailService userDetailService,
+                         UserVersionTracker versionTracker, UserRepository repository,
+                         @Value("${jwt.stateless-principal:true}") boolean statelessPrincipalEnabled) {
+        this.jwtUtil = jwtUtility;
+        this.userDetailsService = userDetailService;
+        this.userVersionTracker = versionTracker;
+        this.userRepository = repository;
+        this.statelessPrincipal = statelessPrincipalEnabled;
     }
 
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response , FilterChain chain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
-        log.info("JwtAuthFilter: Extracted authHeader: {}", authHeader);
+        VerifiedToken verifiedToken = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            log.info("JwtAuthFilter: Extracted token: {}", token);
+            String token = authHeader.substring(7);
 
             try {
-                username = jwtUtil.extractUsername(token);
-                log.info("JwtAuthFilter: Extracted username: {}", username);
+                verifiedToken = jwtUtil.verify(token);
+                log.debug("JwtAuthFilter: Extracted username: {}", verifiedToken.subject());
             } catch (JwtException e) {
                 // invalid token -> let it fall through and the AuthenticationEntryPoint will handle
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            log.info("JwtAuthFilter: Loaded userDetails for username: {}", username);
-            if (jwtUtil.isTokenValid(token, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if (verifiedToken != null && verifiedToken.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = verifiedToken.subject();
+            List<GrantedAuthority> authorities = statelessPrincipal ? authoritiesFromClaims(verifiedToken) : null;
+            UsernamePasswordAuthenticationToken authToken = null;
+            if (authorities != null) {
+                authToken = new UsernamePasswordAuthenticationToken(username, null, authorities);
+            } else {
+                // Legacy or stale token: resolve the authorities from the database
+                try {
+                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    log.debug("JwtAuthFilter: Loaded userDetails for username: {}", username);
+                    authToken = new UsernamePasswordAuthenticationToken(userDetails, null,
+                            userDetails.getAuthorities());
+                } catch (UsernameNotFoundException e) {
+                    // deleted user -> leave the request unauthenticated
+                }
+            }
+            if (authToken != null) {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                log.info("JwtAuthFilter: Set authentication for user: {}", username);
+                log.debug("JwtAuthFilter: Set authentication for user: {}", username);
             }
         }
         chain.doFilter(request, response);
     }
+
+    /**
+     * Builds the authorities from the verified claims of a token.
+     *
+     * @param verifiedToken the verified claims
+     * @return the authorities, or null if the token lacks the role or version claims or its version is stale
+     */
+    private List<GrantedAuthority> authoritiesFromClaims(VerifiedToken verifiedToken) {
+        if (verifiedToken.version() == null || verifiedToken.roles() == null
+                || verifiedToken.version() < latestVersion(verifiedToken.subject())) {
+            return null;
+        }
+        // Tokens only carry role names issued from a Role mask, so the shared authority lists can be reused
+        return Role.authorities(Role.mask(verifiedToken.roles()));
+    }
+
+    /**
+     * Returns the latest version of a user. Without a recent entry in the tracker, as after a restart or a missed
+     * invalidation, the version is read from the database and recorded for the next requests.
+     *
+     * @param email the email of the user
+     * @return the version, or {@code Long.MAX_VALUE} if the user no longer exists, so that no claims are trusted
+     */
+    private long latestVersion(String email) {
+        OptionalLong known = userVersionTracker.latestVersion(email);
+        if (known.isPresent()) {
+            return known.getAsLong();
+        }
+        Optional<Long> stored = userRepository.findVersionByEmail(email);
+        if (stored.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        userVersionTracker.recordVersion(email, stored.get());
+        return stored.get();
+    }
 }
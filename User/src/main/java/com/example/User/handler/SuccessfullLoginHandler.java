@@ -1,8 +1,9 @@
 package com.example.User.handler;
 
+import com.example.User.cache.UserCache;
 import com.example.User.entities.User;
+import com.example.User.entities.models.AuthenticatedUser;
 import com.example.User.entities.response.UserResponseDTO;
-import com.example.User.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,7 +23,7 @@ public class SuccessfullLoginHandler implements AuthenticationSuccessHandler {
     private final ObjectMapper mapper;
 
     @Autowired
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
     /**
      * Handles successful authentication by retrieving user details and sending them in the response.
@@ -36,9 +37,10 @@ public class SuccessfullLoginHandler implements AuthenticationSuccessHandler {
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                         Authentication authentication) throws IOException, ServletException {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow();
+        // Password logins carry the user they were checked against
+        User user = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? principal.user()
+                : userCache.findByEmail(authentication.getName()).orElseThrow();
         UserResponseDTO userResponseDTO = user.toResponseDTO();
         response.setStatus(HttpServletResponse.SC_OK);
         response.setContentType("application/json");
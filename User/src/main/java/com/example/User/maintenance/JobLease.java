@@ -0,0 +1,107 @@
+package com.example.User.maintenance;
+
+import com.example.User.entities.MaintenanceJobState;
+import com.example.User.repository.MaintenanceJobStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database-backed lease that lets a single node run a maintenance job at a time.
+ * The lease is a row of maintenance_job_state taken with a conditional UPDATE, so it needs no extra
+ * infrastructure; a node that dies keeps it only until it expires. Every call runs in its own transaction.
+ */
+@Slf4j
+@Component
+public class JobLease {
+
+    private final MaintenanceJobStateRepository jobStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+
+    public JobLease(MaintenanceJobStateRepository stateRepository, PlatformTransactionManager transactionManager) {
+        this.jobStateRepository = stateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Takes the lease of a job, or extends it if this node already holds it.
+     *
+     * @param jobName the name of the job
+     * @param ttl     how long the lease lasts without being extended
+     * @return whether this node holds the lease
+     */
+    public boolean tryAcquire(String jobName, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status ->
+                jobStateRepository.tryAcquireLease(jobName, owner, now, now.plus(ttl)));
+        if (updated != null && updated == 1) {
+            return true;
+        }
+        if (createState(jobName)) {
+            updated = transactionTemplate.execute(status ->
+                    jobStateRepository.tryAcquireLease(jobName, owner, now, now.plus(ttl)));
+            return updated != null && updated == 1;
+        }
+        return false;
+    }
+
+    /**
+     * Gives up the lease of a job if this node holds it.
+     *
+     * @param jobName the name of the job
+     */
+    public void release(String jobName) {
+        transactionTemplate.executeWithoutResult(status -> jobStateRepository.releaseLease(jobName, owner));
+    }
+
+    /**
+     * The identity of this node in the lease rows: its host name and a random id per process.
+     *
+     * @return the owner name of this node
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Creates the state row of a job on its first run.
+     *
+     * @param jobName the name of the job
+     * @return whether the row was missing, in which case acquiring is worth another try
+     */
+    private boolean createState(String jobName) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (jobStateRepository.existsById(jobName)) {
+                    return false;
+                }
+                jobStateRepository.saveAndFlush(MaintenanceJobState.builder().jobName(jobName).build());
+                return true;
+            }));
+        } catch (DataIntegrityViolationException ex) {
+            // Another node created it first
+            log.debug("State row of job {} was created concurrently", jobName);
+            return true;
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.User.maintenance;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retention for a refresh_tokens table range-partitioned by month of expiry_date.
+ *
+ * <p>On MySQL the table has one partition per month, {@code pYYYYMM}, plus a {@code pmax} catch-all; this
+ * component splits future months out of {@code pmax} ahead of time and drops whole partitions once every token
+ * in them expired before the retention threshold, which costs no redo or undo per row. Revoked tokens are not
+ * removed before their partition is dropped. Databases without partitioning, such as the H2 used by the tests,
+ * get the same month-granular retention through a DELETE up to the same boundary.
+ *
+ * <p>See db/migration/mysql/003-refresh-tokens-partitioned.sql for the table layout.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "refresh-token.partitioning.enabled", havingValue = "true")
+public class RefreshTokenPartitionManager implements RefreshTokenRetention {
+
+    static final String JOB_NAME = "refresh-token-partitions";
+    static final String CATCH_ALL_PARTITION = "pmax";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final Duration LEASE_TTL = Duration.ofMinutes(10);
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLease jobLease;
+    private final int monthsAhead;
+    private final boolean nativePartitions;
+
+    public RefreshTokenPartitionManager(JdbcTemplate template,
+                                        JobLease lease,
+                                        DataSource dataSource,
+                                        @Value("${refresh-token.partitioning.months-ahead:3}") int aheadMonths) {
+        this.jdbcTemplate = template;
+        this.jobLease = lease;
+        this.monthsAhead = aheadMonths;
+        this.nativePartitions = isMySql(dataSource);
+        if (!nativePartitions) {
+            log.info("Database has no range partitioning; refresh token retention falls back to DELETE");
+        }
+    }
+
+    /**
+     * Creates the partitions of the current month and the next {@code months-ahead} months, so that tokens
+     * never land in {@code pmax}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${refresh-token.partitioning.maintenance-cron:0 30 2 * * ?}")
+    public void createFuturePartitions() {
+        if (!nativePartitions || !jobLease.tryAcquire(JOB_NAME, LEASE_TTL)) {
+            return;
+        }
+        try {
+            List<Partition> partitions = listPartitions();
+            if (partitions.isEmpty()) {
+                log.warn("refresh_tokens is not partitioned; apply 003-refresh-tokens-partitioned.sql first");
+                return;
+            }
+            LocalDate highestBound = partitions.stream()
+                    .filter(partition -> partition.upperBound() != null)
+                    .map(Partition::upperBound)
+                    .max(LocalDate::compareTo)
+                    .orElse(LocalDate.MIN);
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                LocalDate upperBound = month.plusMonths(1).atDay(1);
+                if (!upperBound.isAfter(highestBound)) {
+                    continue;
+                }
+                // pmax is empty as long as partitions are created ahead of time, so the split moves no rows
+                jdbcTemplate.execute("ALTER TABLE refresh_tokens REORGANIZE PARTITION " + CATCH_ALL_PARTITION
+                        + " INTO (PARTITION " + month.format(PARTITION_NAME)
+                        + " VALUES LESS THAN ('" + upperBound + "'), PARTITION " + CATCH_ALL_PARTITION
+                        + " VALUES LESS THAN (MAXVALUE))");
+                highestBound = upperBound;
+                log.info("Created refresh token partition {}", month.format(PARTITION_NAME));
+            }
+        } finally {
+            jobLease.release(JOB_NAME);
+        }
+    }
+
+    /**
+     * Drops the partitions whose upper bound is not after the threshold.
+     *
+     * @param threshold the retention threshold
+     * @return the estimated number of tokens removed, or 0 if another node holds the lease
+     */
+    @Override
+    public int purgeOlderThan(LocalDateTime threshold) {
+        if (!jobLease.tryAcquire(JOB_NAME, LEASE_TTL)) {
+            log.info("Skipping refresh token partition drop: another node holds the lease");
+            return 0;
+        }
+        try {
+            // Month granularity: a month is only removed once all of it is past the threshold
+            LocalDate boundary = YearMonth.from(threshold).atDay(1);
+            if (!nativePartitions) {
+                return jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expiry_date < ?", boundary.atStartOfDay());
+            }
+            List<String> names = new ArrayList<>();
+            long rows = 0;
+            for (Partition partition : listPartitions()) {
+                if (partition.upperBound() != null && !partition.upperBound().isAfter(boundary)) {
+                    names.add(partition.name());
+                    rows += partition.estimatedRows();
+                }
+            }
+            if (!names.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE refresh_tokens DROP PARTITION " + String.join(", ", names));
+                log.info("Dropped refresh token partitions {} (about {} rows)", names, rows);
+            }
+            return (int) Math.min(Integer.MAX_VALUE, rows);
+        } finally {
+            jobLease.release(JOB_NAME);
+        }
+    }
+
+    private List<Partition> listPartitions() {
+        return jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS "
+                        + "FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'refresh_tokens' "
+                        + "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString("PARTITION_NAME"),
+                        parseBound(rs.getString("PARTITION_DESCRIPTION")), rs.getLong("TABLE_ROWS")));
+    }
+
+    /**
+     * Parses a RANGE COLUMNS bound such as {@code '2026-11-01 00:00:00'}; MAXVALUE has no bound.
+     *
+     * @param description the PARTITION_DESCRIPTION of the partition
+     * @return the first day past the partition, or null for MAXVALUE
+     */
+    static LocalDate parseBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.length() > DATE_LENGTH ? value.substring(0, DATE_LENGTH) : value);
+    }
+
+    private static boolean isMySql(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("mysql");
+        } catch (MetaDataAccessException ex) {
+            log.warn("Could not determine the database product; assuming no range partitioning", ex);
+            return false;
+        }
+    }
+
+    private record Partition(String name, LocalDate upperBound, long estimatedRows) {
+    }
+}
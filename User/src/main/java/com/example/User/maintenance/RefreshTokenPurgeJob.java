@@ -0,0 +1,226 @@
+package com.example.User.maintenance;
+
+import com.example.User.entities.MaintenanceJobState;
+import com.example.User.entities.models.PurgeCandidate;
+import com.example.User.repository.MaintenanceJobStateRepository;
+import com.example.User.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes old refresh tokens in bounded batches instead of one unbounded DELETE.
+ *
+ * <p>A run first walks the expiry index, then the revocation index, in keyset order; each batch selects at most
+ * {@code refresh-token.purge.batch-size} ids and deletes them by primary key in its own short transaction,
+ * which also records the keyset position. Batches are paced so the run never deletes more than
+ * {@code refresh-token.purge.rows-per-second}. The run holds a {@link JobLease}, so only one node purges at a
+ * time, and a run interrupted by a crash or a shutdown resumes from its recorded position and threshold.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "refresh-token.partitioning.enabled", havingValue = "false", matchIfMissing = true)
+public final class RefreshTokenPurgeJob implements RefreshTokenRetention, MeterBinder, DisposableBean {
+
+    static final String JOB_NAME = "refresh-token-purge";
+
+    /** Keyset position before every row. */
+    private static final LocalDateTime START_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final UUID START_ID = new UUID(0, 0);
+
+    enum Phase { EXPIRED, REVOKED }
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MaintenanceJobStateRepository jobStateRepository;
+    private final JobLease jobLease;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long rowsPerSecond;
+    private final Duration leaseTtl;
+    private final AtomicLong backlog = new AtomicLong();
+    private volatile boolean stopping;
+    private Counter rowsPurged;
+    private Timer batchLatency;
+
+    public RefreshTokenPurgeJob(RefreshTokenRepository tokenRepository,
+                                MaintenanceJobStateRepository stateRepository,
+                                JobLease lease,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${refresh-token.purge.batch-size:1000}") int maxBatchSize,
+                                @Value("${refresh-token.purge.rows-per-second:5000}") long maxRowsPerSecond,
+                                @Value("${refresh-token.purge.lease-ttl-ms:300000}") long leaseTtlMs) {
+        this.refreshTokenRepository = tokenRepository;
+        this.jobStateRepository = stateRepository;
+        this.jobLease = lease;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = maxBatchSize;
+        this.rowsPerSecond = maxRowsPerSecond;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMs);
+    }
+
+    /**
+     * Purges tokens that expired, or were revoked, before the threshold. If a previous run was interrupted,
+     * that run is finished first, with its own threshold.
+     *
+     * @param threshold the threshold for a new run
+     * @return the number of tokens deleted by this call, or 0 if another node holds the lease
+     */
+    @Override
+    public int purgeOlderThan(LocalDateTime threshold) {
+        if (!jobLease.tryAcquire(JOB_NAME, leaseTtl)) {
+            log.info("Skipping refresh token purge: another node holds the lease");
+            return 0;
+        }
+        try {
+            return runLeased(threshold);
+        } finally {
+            jobLease.release(JOB_NAME);
+        }
+    }
+
+    private int runLeased(LocalDateTime requestedThreshold) {
+        MaintenanceJobState state = transactionTemplate.execute(status -> startOrResume(requestedThreshold));
+        LocalDateTime threshold = state.getRunThreshold();
+        backlog.set(refreshTokenRepository.countByExpiryDateBefore(threshold)
+                + refreshTokenRepository.countRevokedBefore(threshold));
+
+        int purged = 0;
+        while (!stopping) {
+            if (!jobLease.tryAcquire(JOB_NAME, leaseTtl)) {
+                log.warn("Stopping refresh token purge: the lease was lost");
+                break;
+            }
+            long started = System.nanoTime();
+            BatchResult result = transactionTemplate.execute(status -> purgeBatch(threshold));
+            long elapsed = System.nanoTime() - started;
+            if (batchLatency != null) {
+                batchLatency.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            if (rowsPurged != null) {
+                rowsPurged.increment(result.deleted());
+            }
+            backlog.accumulateAndGet(result.deleted(), (remaining, deleted) -> Math.max(0, remaining - deleted));
+            purged += result.deleted();
+            if (result.finished()) {
+                log.info("Refresh token purge finished: {} tokens deleted", purged);
+                break;
+            }
+            if (!throttle(result.deleted(), elapsed)) {
+                break;
+            }
+        }
+        return purged;
+    }
+
+    private MaintenanceJobState startOrResume(LocalDateTime requestedThreshold) {
+        MaintenanceJobState state = jobStateRepository.findById(JOB_NAME).orElseThrow();
+        if (state.getRunThreshold() != null) {
+            log.info("Resuming refresh token purge with threshold {} in phase {} after {} rows",
+                    state.getRunThreshold(), state.getPhase(), state.getRowsProcessed());
+            return state;
+        }
+        state.setRunThreshold(requestedThreshold);
+        state.setPhase(Phase.EXPIRED.name());
+        state.setCursorTime(START_TIME);
+        state.setCursorId(START_ID);
+        state.setRowsProcessed(0);
+        return jobStateRepository.save(state);
+    }
+
+    private BatchResult purgeBatch(LocalDateTime threshold) {
+        MaintenanceJobState state = jobStateRepository.findById(JOB_NAME).orElseThrow();
+        Phase phase = Phase.valueOf(state.getPhase());
+        PageRequest page = PageRequest.ofSize(batchSize);
+        List<PurgeCandidate> candidates = phase == Phase.EXPIRED
+                ? refreshTokenRepository.findExpiredBatch(threshold, state.getCursorTime(), state.getCursorId(), page)
+                : refreshTokenRepository.findRevokedBatch(threshold, state.getCursorTime(), state.getCursorId(), page);
+
+        if (candidates.isEmpty()) {
+            if (phase == Phase.EXPIRED) {
+                state.setPhase(Phase.REVOKED.name());
+                state.setCursorTime(START_TIME);
+                state.setCursorId(START_ID);
+                return new BatchResult(0, false);
+            }
+            state.setRunThreshold(null);
+            state.setPhase(null);
+            state.setCursorTime(null);
+            state.setCursorId(null);
+            state.setLastCompletedAt(LocalDateTime.now());
+            return new BatchResult(0, true);
+        }
+
+        int deleted = refreshTokenRepository.deleteByIdIn(candidates.stream().map(PurgeCandidate::id).toList());
+        PurgeCandidate last = candidates.get(candidates.size() - 1);
+        state.setCursorTime(last.sortKey());
+        state.setCursorId(last.id());
+        state.setRowsProcessed(state.getRowsProcessed() + deleted);
+        return new BatchResult(deleted, false);
+    }
+
+    /**
+     * Sleeps long enough to keep the run under the rows-per-second cap.
+     *
+     * @param deleted      the rows deleted by the last batch
+     * @param elapsedNanos the time the last batch took
+     * @return false if the job was interrupted
+     */
+    private boolean throttle(int deleted, long elapsedNanos) {
+        if (rowsPerSecond <= 0 || deleted == 0) {
+            return true;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(deleted) / rowsPerSecond;
+        long sleepNanos = budgetNanos - elapsedNanos;
+        if (sleepNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        rowsPurged = Counter.builder("refresh-tokens.purge.rows")
+                .description("Refresh tokens deleted by the purge job")
+                .register(registry);
+        batchLatency = Timer.builder("refresh-tokens.purge.batch.latency")
+                .description("Time to select and delete one batch of refresh tokens")
+                .register(registry);
+        Gauge.builder("refresh-tokens.purge.backlog", backlog, AtomicLong::get)
+                .description("Refresh tokens left to delete by the run in progress")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        // The run stops after its current batch and resumes from its recorded position on the next trigger
+        stopping = true;
+    }
+
+    private record BatchResult(int deleted, boolean finished) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.User.maintenance;
+
+import java.time.LocalDateTime;
+
+/**
+ * Removes refresh tokens that are no longer needed. {@code refresh-token.partitioning.enabled} selects between
+ * batched deletes on a plain table and partition drops on a table partitioned by expiry date.
+ */
+public interface RefreshTokenRetention {
+
+    /**
+     * Removes tokens that expired, or were revoked, before the threshold.
+     *
+     * @param threshold the retention threshold
+     * @return the number of tokens removed, exact or estimated depending on the strategy
+     */
+    int purgeOlderThan(LocalDateTime threshold);
+}
@@ -0,0 +1,53 @@
+package com.example.User.outbox;
+
+import com.example.User.entities.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for the broker that keeps published events in memory, for tests and local runs without Kafka.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.publisher", havingValue = "in-memory")
+public final class InMemoryOutboxPublisher implements OutboxPublisher {
+
+    /**
+     * An event as the broker would have received it.
+     *
+     * @param topic       the topic of the event
+     * @param key         the message key
+     * @param eventType   the event-type header
+     * @param contentType the content-type header
+     * @param payload     the serialized event
+     */
+    public record PublishedMessage(String topic, String key, String eventType, String contentType, byte[] payload) {
+    }
+
+    private final List<PublishedMessage> published = new CopyOnWriteArrayList<>();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            published.add(new PublishedMessage(event.getTopic(), event.getMessageKey(), event.getEventType(),
+                    event.getContentType(), event.getPayload()));
+        }
+        batchSizes.add(events.size());
+    }
+
+    public List<PublishedMessage> getPublished(String topic) {
+        return published.stream().filter(message -> message.topic().equals(topic)).toList();
+    }
+
+    public List<Integer> getBatchSizes() {
+        return List.copyOf(batchSizes);
+    }
+
+    public void clear() {
+        published.clear();
+        batchSizes.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.User.outbox;
+
+import com.example.User.entities.OutboxEvent;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox events to Kafka. The payload is already serialized, so it is sent as raw bytes with its
+ * content type and event type as headers. The producer takes the spring.kafka.producer settings, linger and
+ * batch size included, so a relay batch goes out as a few large produce requests.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.publisher", havingValue = "kafka", matchIfMissing = true)
+public final class KafkaOutboxPublisher implements OutboxPublisher, DisposableBean {
+
+    static final String EVENT_TYPE_HEADER = "event-type";
+    static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final long sendTimeoutMs;
+
+    public KafkaOutboxPublisher(KafkaProperties kafkaProperties,
+                                ObjectProvider<SslBundles> sslBundles,
+                                @Value("${outbox.publisher.send-timeout-ms:30000}") long timeoutMs) {
+        this.producerFactory = new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(), new ByteArraySerializer());
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        this.sendTimeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ProducerRecord<String, byte[]> record =
+                    new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+            record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+            record.headers().add(CONTENT_TYPE_HEADER, event.getContentType().getBytes(StandardCharsets.UTF_8));
+            sends.add(kafkaTemplate.send(record));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Failed to publish outbox events", ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        producerFactory.destroy();
+    }
+}
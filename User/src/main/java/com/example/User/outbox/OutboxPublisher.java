@@ -0,0 +1,19 @@
+package com.example.User.outbox;
+
+import com.example.User.entities.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Sends outbox events to the broker. Selected with the {@code outbox.publisher} property.
+ */
+public interface OutboxPublisher {
+
+    /**
+     * Publishes a batch and waits until the broker acknowledged every event of it.
+     *
+     * @param events the events, in id order
+     * @throws IllegalStateException if any event of the batch could not be published
+     */
+    void publish(List<OutboxEvent> events);
+}
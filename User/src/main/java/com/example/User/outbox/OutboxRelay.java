@@ -0,0 +1,159 @@
+package com.example.User.outbox;
+
+import com.example.User.entities.OutboxEvent;
+import com.example.User.maintenance.JobLease;
+import com.example.User.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to the broker.
+ *
+ * <p>Every poll reads up to {@code outbox.relay.batch-size} pending events in id order, publishes them as one
+ * batch and marks the whole batch sent with a single UPDATE, repeating while batches come back full. Only the
+ * node holding the {@link JobLease} relays, which keeps the order of events on a topic. Delivery is at least
+ * once: events published right before a crash are published again, so consumers must be idempotent.
+ */
+@Slf4j
+@Component
+public final class OutboxRelay implements MeterBinder, DisposableBean {
+
+    static final String JOB_NAME = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final JobLease jobLease;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration leaseTtl;
+    private final Duration sentRetention;
+    private final AtomicLong lagMs = new AtomicLong();
+    private volatile boolean stopping;
+    private DistributionSummary batchSizes;
+    private Counter published;
+    private Counter failures;
+
+    public OutboxRelay(OutboxEventRepository repository,
+                       OutboxPublisher publisher,
+                       JobLease lease,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:500}") int maxBatchSize,
+                       @Value("${outbox.relay.lease-ttl-ms:30000}") long leaseTtlMs,
+                       @Value("${outbox.relay.sent-retention-ms:86400000}") long sentRetentionMs) {
+        this.outboxEventRepository = repository;
+        this.outboxPublisher = publisher;
+        this.jobLease = lease;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = maxBatchSize;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMs);
+        this.sentRetention = Duration.ofMillis(sentRetentionMs);
+    }
+
+    /**
+     * Publishes pending events until the outbox is drained or a publication fails.
+     *
+     * @return the number of events published
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}",
+            initialDelayString = "${outbox.relay.initial-delay-ms:1000}")
+    public int relayPending() {
+        int relayed = 0;
+        while (!stopping) {
+            // Extended before every batch, so a long drain never outlives the lease and races another node
+            if (!jobLease.tryAcquire(JOB_NAME, leaseTtl)) {
+                if (relayed > 0) {
+                    log.warn("Stopping outbox relay after {} events: the lease was lost", relayed);
+                }
+                break;
+            }
+            List<OutboxEvent> batch = transactionTemplate.execute(status ->
+                    outboxEventRepository.findPending(PageRequest.ofSize(batchSize)));
+            if (batch == null || batch.isEmpty()) {
+                lagMs.set(0);
+                break;
+            }
+            lagMs.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis()));
+            try {
+                outboxPublisher.publish(batch);
+            } catch (RuntimeException ex) {
+                if (failures != null) {
+                    failures.increment();
+                }
+                log.warn("Outbox relay failed to publish {} events starting at id {}; retrying on the next poll",
+                        batch.size(), batch.get(0).getId(), ex);
+                break;
+            }
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.markSent(ids, LocalDateTime.now()));
+            if (batchSizes != null) {
+                batchSizes.record(batch.size());
+            }
+            if (published != null) {
+                published.increment(batch.size());
+            }
+            relayed += batch.size();
+            if (batch.size() < batchSize) {
+                lagMs.set(0);
+                break;
+            }
+        }
+        return relayed;
+    }
+
+    /**
+     * Deletes events sent longer ago than {@code outbox.relay.sent-retention-ms}, one batch per transaction.
+     */
+    @Scheduled(cron = "${outbox.relay.cleanup-cron:0 15 * * * ?}")
+    public void purgeSent() {
+        LocalDateTime threshold = LocalDateTime.now().minus(sentRetention);
+        Integer deleted;
+        do {
+            if (stopping) {
+                return;
+            }
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = outboxEventRepository.findSentBefore(threshold, PageRequest.ofSize(batchSize));
+                return ids.isEmpty() ? 0 : outboxEventRepository.deleteByIdIn(ids);
+            });
+        } while (deleted != null && deleted == batchSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("outbox.relay.lag", lagMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest pending outbox event at the last poll")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Outbox events published per batch")
+                .register(registry);
+        published = Counter.builder("outbox.relay.published")
+                .description("Outbox events published")
+                .register(registry);
+        failures = Counter.builder("outbox.relay.failures")
+                .description("Outbox batches that failed to publish")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        stopping = true;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.User.outbox;
+
+import com.example.User.codec.CompactEvents;
+import com.example.User.entities.OutboxEvent;
+import com.example.User.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Appends events to the outbox. Must be called inside the transaction of the change the event describes,
+ * so that the event is stored if and only if the change commits; {@link OutboxRelay} publishes it afterwards.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT_EVENT = "INSERT INTO outbox_events "
+            + "(topic, message_key, event_type, content_type, payload, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean compactPayloads;
+
+    public OutboxWriter(OutboxEventRepository repository,
+                        JdbcTemplate template,
+                        ObjectMapper mapper,
+                        @Value("${outbox.payload-format:json}") String payloadFormat) {
+        this.outboxEventRepository = repository;
+        this.jdbcTemplate = template;
+        this.objectMapper = mapper;
+        this.compactPayloads = "binary".equalsIgnoreCase(payloadFormat);
+    }
+
+    /**
+     * Stores an event for publication.
+     *
+     * @param topic the topic to publish to
+     * @param key   the message key, which also picks the partition
+     * @param event the event, in the compact binary encoding if {@code outbox.payload-format} is binary and the
+     *              event type has one, as JSON otherwise
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String key, Object event) {
+        boolean compact = isCompact(event);
+        outboxEventRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .eventType(event.getClass().getSimpleName())
+                .contentType(contentType(compact))
+                .payload(serialize(event, compact))
+                .build());
+    }
+
+    /**
+     * Stores many events for publication with one JDBC batch. The outbox ids are database-generated, which
+     * keeps Hibernate from batching, so the rows are inserted directly; they are relayed in the given order.
+     *
+     * @param topic  the topic to publish to
+     * @param events the events, encoded as by {@link #append(String, String, Object)}
+     * @param key    maps an event to its message key
+     * @param <T>    the event type
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void appendAll(String topic, List<T> events, Function<T, String> key) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (T event : events) {
+            boolean compact = isCompact(event);
+            rows.add(new Object[] {
+                    topic,
+                    key.apply(event),
+                    event.getClass().getSimpleName(),
+                    contentType(compact),
+                    serialize(event, compact),
+                    now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    private boolean isCompact(Object event) {
+        return compactPayloads && CompactEvents.supports(event.getClass());
+    }
+
+    private static String contentType(boolean compact) {
+        return compact ? CompactEvents.CONTENT_TYPE : MediaType.APPLICATION_JSON_VALUE;
+    }
+
+    private byte[] serialize(Object event, boolean compact) {
+        try {
+            return compact ? CompactEvents.encode(event) : objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Cannot serialize " + event.getClass().getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.User.repository;
+
+import com.example.User.entities.MaintenanceJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface MaintenanceJobStateRepository extends JpaRepository<MaintenanceJobState, String> {
+    /**
+     * Takes or extends the lease of a job if it is free, expired or already held by the owner.
+     *
+     * @param jobName the name of the job
+     * @param owner   the node asking for the lease
+     * @param now     the current time
+     * @param until   the new expiry of the lease
+     * @return 1 if the owner now holds the lease, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE MaintenanceJobState s SET s.leaseOwner = :owner, s.leaseExpiresAt = :until "
+            + "WHERE s.jobName = :jobName "
+            + "AND (s.leaseOwner IS NULL OR s.leaseOwner = :owner OR s.leaseExpiresAt < :now)")
+    int tryAcquireLease(@Param("jobName") String jobName, @Param("owner") String owner,
+                        @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Gives up the lease of a job if the owner holds it.
+     *
+     * @param jobName the name of the job
+     * @param owner   the node releasing the lease
+     * @return 1 if the lease was released, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE MaintenanceJobState s SET s.leaseOwner = NULL, s.leaseExpiresAt = NULL "
+            + "WHERE s.jobName = :jobName AND s.leaseOwner = :owner")
+    int releaseLease(@Param("jobName") String jobName, @Param("owner") String owner);
+}
@@ -0,0 +1,53 @@
+package com.example.User.repository;
+
+import com.example.User.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Finds the oldest pending events, in id order.
+     *
+     * @param page the batch size
+     * @return the pending events
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.sentAt IS NULL ORDER BY e.id")
+    List<OutboxEvent> findPending(Pageable page);
+
+    /**
+     * Marks events as sent, in a single statement.
+     *
+     * @param ids    the ids of the events
+     * @param sentAt the time of the broker acknowledgement
+     * @return the number of events marked
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt WHERE e.id IN :ids AND e.sentAt IS NULL")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Finds the ids of events sent before the threshold, in id order.
+     *
+     * @param threshold the threshold
+     * @param page      the batch size
+     * @return the ids of the events
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.sentAt < :threshold ORDER BY e.id")
+    List<Long> findSentBefore(@Param("threshold") LocalDateTime threshold, Pageable page);
+
+    /**
+     * Deletes the events with the given ids.
+     *
+     * @param ids the ids of the events
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
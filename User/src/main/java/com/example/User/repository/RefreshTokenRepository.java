@@ -1,44 +1,120 @@
 package com.example.User.repository;
 
 import com.example.User.entities.RefreshToken;
-import com.example.User.entities.User;
+import com.example.User.entities.models.PurgeCandidate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
     /**
-     * Finds a refresh token by its token string.
+     * Finds an unexpired refresh token by digest together with its user, roles included, in a single
+     * statement. The expiry predicate lets a table partitioned by expiry date skip expired partitions.
      *
-     * @param token the refresh token string
-     * @return an Optional containing the RefreshToken if found, or empty if not found
+     * @param tokenHash the 32-byte digest of the refresh token
+     * @param now       the current time
+     * @return an Optional containing the RefreshToken with its user loaded, or empty if not found or expired
      */
-    Optional<RefreshToken> findByToken(String token);
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user "
+            + "WHERE rt.tokenHash = :tokenHash AND rt.expiryDate > :now")
+    Optional<RefreshToken> findWithUserByTokenHash(@Param("tokenHash") byte[] tokenHash,
+                                                   @Param("now") LocalDateTime now);
 
     /**
-     * Finds a refresh token by user.
+     * Deletes an unexpired refresh token by digest without loading it first. Expired tokens are left to
+     * retention.
      *
-     * @param user the user entity
-     * @return an Optional containing the RefreshToken if found, or empty if not found
+     * @param tokenHash the 32-byte digest of the refresh token
+     * @param now       the current time
+     * @return the number of tokens deleted
      */
-    Optional<RefreshToken> findByUser(User user);
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash AND rt.expiryDate > :now")
+    int deleteByTokenHash(@Param("tokenHash") byte[] tokenHash, @Param("now") LocalDateTime now);
 
     /**
-     * Deletes refresh tokens that are either:
-     * - revoked for more than 30 days, or
-     * - expired for more than 30 days.
+     * Revokes every unexpired refresh token of the user that is not revoked yet, in a single statement.
+     * Expired tokens cannot be used anyway, and skipping them keeps the statement partition-prunable.
      *
-     * @param threshold date-time threshold (now - 30 days)
+     * @param userId    the id of the user
+     * @param revokedAt the revocation time
+     * @return the number of tokens revoked
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt " +
-            "WHERE (rt.revoked = true AND rt.revokedAt < :threshold) " +
-            "   OR (rt.expiryDate < :threshold)")
-    void deleteOldTokens(@Param("threshold") LocalDateTime threshold);
-}
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.revokedAt = :revokedAt "
+            + "WHERE rt.user.id = :userId AND rt.revoked = false AND rt.expiryDate > :revokedAt")
+    int revokeAllForUser(@Param("userId") UUID userId, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * Finds the next batch of tokens that expired before the threshold, walking the expiry index in
+     * (expiryDate, id) order from the given keyset position.
+     *
+     * @param threshold the expiry threshold
+     * @param afterTime the expiry date of the last row already processed
+     * @param afterId   the id of the last row already processed
+     * @param page      the batch size
+     * @return the ids of the tokens, in index order
+     */
+    @Query("SELECT new com.example.User.entities.models.PurgeCandidate(rt.id, rt.expiryDate) FROM RefreshToken rt "
+            + "WHERE rt.expiryDate < :threshold "
+            + "AND (rt.expiryDate > :afterTime OR (rt.expiryDate = :afterTime AND rt.id > :afterId)) "
+            + "ORDER BY rt.expiryDate, rt.id")
+    List<PurgeCandidate> findExpiredBatch(@Param("threshold") LocalDateTime threshold,
+                                          @Param("afterTime") LocalDateTime afterTime,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable page);
 
+    /**
+     * Finds the next batch of tokens revoked before the threshold that have not expired before it, walking the
+     * revocation index in (revokedAt, id) order from the given keyset position.
+     *
+     * @param threshold the revocation threshold
+     * @param afterTime the revocation time of the last row already processed
+     * @param afterId   the id of the last row already processed
+     * @param page      the batch size
+     * @return the ids of the tokens, in index order
+     */
+    @Query("SELECT new com.example.User.entities.models.PurgeCandidate(rt.id, rt.revokedAt) FROM RefreshToken rt "
+            + "WHERE rt.revoked = true AND rt.revokedAt < :threshold AND rt.expiryDate >= :threshold "
+            + "AND (rt.revokedAt > :afterTime OR (rt.revokedAt = :afterTime AND rt.id > :afterId)) "
+            + "ORDER BY rt.revokedAt, rt.id")
+    List<PurgeCandidate> findRevokedBatch(@Param("threshold") LocalDateTime threshold,
+                                          @Param("afterTime") LocalDateTime afterTime,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable page);
+
+    /**
+     * Counts the tokens that expired before the threshold.
+     *
+     * @param threshold the expiry threshold
+     * @return the number of tokens
+     */
+    long countByExpiryDateBefore(LocalDateTime threshold);
+
+    /**
+     * Counts the tokens revoked before the threshold that have not expired before it.
+     *
+     * @param threshold the revocation threshold
+     * @return the number of tokens
+     */
+    @Query("SELECT COUNT(rt) FROM RefreshToken rt "
+            + "WHERE rt.revoked = true AND rt.revokedAt < :threshold AND rt.expiryDate >= :threshold")
+    long countRevokedBefore(@Param("threshold") LocalDateTime threshold);
+
+    /**
+     * Deletes the tokens with the given ids.
+     *
+     * @param ids the primary keys of the tokens
+     * @return the number of tokens deleted
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<UUID> ids);
+}
@@ -1,8 +1,15 @@
 package com.example.User.repository;
 
 import com.example.User.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,4 +22,55 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      */
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Checks whether an email is registered, reading only the unique email index.
+     *
+     * @param email the email address
+     * @return true if a user has the email
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Finds which of the given emails are registered, in one query on the unique email index.
+     *
+     * @param emails the emails to check
+     * @return the registered emails among them, as stored
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Finds the next page of emails after the given one in email order, walking the unique email index.
+     *
+     * @param after the last email already read, or an empty string to start
+     * @param page  the page size; the page number must be 0
+     * @return the emails of the page
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email > :after ORDER BY u.email")
+    List<String> findEmailsAfter(@Param("after") String after, Pageable page);
+
+    /**
+     * Reads the version of a user without loading the entity.
+     *
+     * @param email the email of the user
+     * @return the version of the user, or empty if no user has the email
+     */
+    @Query("SELECT u.version FROM User u WHERE u.email = :email")
+    Optional<Long> findVersionByEmail(@Param("email") String email);
+
+    /**
+     * Replaces the password hash of a user without reading it, if the user is still at the given version.
+     * The version is kept, since the password itself is unchanged and issued tokens stay valid.
+     *
+     * @param id       the id of the user
+     * @param version  the version the hash was checked against
+     * @param password the new password hash
+     * @return the number of users updated, 0 if the user changed in the meantime
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.version = :version")
+    int updatePasswordHash(@Param("id") UUID id, @Param("version") long version,
+                           @Param("password") String password);
 }
@@ -0,0 +1,24 @@
+package com.example.User.repository;
+
+import com.example.User.entities.Wallet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WalletRepository extends JpaRepository<Wallet, UUID> {
+    Optional<Wallet> findByUserId(UUID userId);
+
+    /**
+     * Finds which of the given users already have a wallet, in one statement.
+     *
+     * @param userIds the ids of the users
+     * @return the ids of the users that have a wallet
+     */
+    @Query("SELECT w.userId FROM Wallet w WHERE w.userId IN :userIds")
+    List<UUID> findExistingUserIds(@Param("userIds") Collection<UUID> userIds);
+}
@@ -1,17 +1,24 @@
 package com.example.User.service;
 
+import com.example.User.cache.UserCache;
+import com.example.User.entities.Role;
 import com.example.User.entities.User;
+import com.example.User.entities.models.AuthenticatedUser;
 import com.example.User.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
-public class JPAUserDetailService implements UserDetailsService {
+public class JPAUserDetailService implements UserDetailsService, UserDetailsPasswordService {
+
+    @Autowired
+    private final UserCache userCache;
 
     @Autowired
     private final UserRepository userRepository;
@@ -25,13 +32,36 @@ public class JPAUserDetailService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = userCache.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getEmail())
                 .password(user.getPassword())
                 .disabled(false)
-                .authorities("ROLE_USER")
+                .authorities(Role.authorities(user.getRoles()))
                 .build();
     }
+
+    /**
+     * Stores a rehashed password after a successful login, called when the stored hash was produced with a lower
+     * BCrypt cost than the calibrated one. The hash is replaced with one conditional update, only if the user is
+     * still at the version whose password was checked, so a password changed in the meantime is kept.
+     *
+     * @param userDetails the authenticated user; an {@link AuthenticatedUser} carries the checked version, other
+     *                    details are checked against the current one
+     * @param newPassword the password hashed with the current cost
+     * @return the given details, unchanged
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userDetails instanceof AuthenticatedUser authenticated
+                ? authenticated.user()
+                : userRepository.findByEmail(userDetails.getUsername())
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found with email: "
+                                + userDetails.getUsername()));
+        if (userRepository.updatePasswordHash(user.getId(), user.getVersion(), newPassword) == 1) {
+            userCache.invalidate(user);
+        }
+        return userDetails;
+    }
 }
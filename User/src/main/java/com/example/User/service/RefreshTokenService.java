@@ -1,20 +1,18 @@
 package com.example.User.service;
 
 import com.example.User.customExceptions.InvalidRefreshTokenException;
-import com.example.User.entities.RefreshToken;
 import com.example.User.entities.User;
-import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.entities.models.RefreshTokenRecord;
+import com.example.User.store.RefreshTokenStore;
+import com.example.User.utility.TokenHasher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,12 +20,12 @@ import java.util.UUID;
 @Slf4j
 public class RefreshTokenService {
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
     private final long refreshTokenExpirationMs;
     
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+    public RefreshTokenService(RefreshTokenStore store,
                               @Value("${jwt.refresh-expiration-ms}") long refreshTokenExpirationMs) {
-        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenStore = store;
         this.refreshTokenExpirationMs = refreshTokenExpirationMs;
     }
 
@@ -36,30 +34,30 @@ public class RefreshTokenService {
      * If a refresh token already exists for the user, it will be revoked and a new one will be created.
      *
      * @param user the user entity
-     * @return the created RefreshToken
+     * @return the raw refresh token to hand to the client
      */
     @Transactional
     public String createRefreshToken(User user) {
+        return createRefreshToken(user.getId());
+    }
+
+    /**
+     * Creates a new refresh token for the user with the given id, without reading the user.
+     * Existing refresh tokens of the user are revoked.
+     *
+     * @param userId the id of the user
+     * @return the raw refresh token to hand to the client
+     */
+    @Transactional
+    public String createRefreshToken(UUID userId) {
+        long now = System.currentTimeMillis();
         // Revoke existing refresh tokens for this user
-        Optional<RefreshToken> existingToken = refreshTokenRepository.findByUser(user);
-        if (existingToken.isPresent()) {
-            RefreshToken token = existingToken.get();
-            token.setRevoked(true);
-            token.setRevokedAt(LocalDateTime.now());
-            refreshTokenRepository.save(token);
-        }
+        refreshTokenStore.revokeAllForUser(userId, now);
 
         // Create new refresh token
         String rawToken = UUID.randomUUID().toString();
-        String hashedToken = hashToken(rawToken);
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token(hashedToken)
-                .user(user)
-                .expiryDate(LocalDateTime.now().plus(Duration.ofMillis(refreshTokenExpirationMs)))
-                .revoked(false)
-                .build();
-
-        refreshTokenRepository.save(refreshToken);
+        byte[] hashedToken = hashToken(rawToken);
+        refreshTokenStore.save(RefreshTokenRecord.withoutUser(hashedToken, userId, now + refreshTokenExpirationMs, 0));
         return rawToken;
     }
 
@@ -67,34 +65,32 @@ public class RefreshTokenService {
      * Validates a refresh token and returns it if valid.
      *
      * @param token the refresh token string
-     * @return the RefreshToken if valid
+     * @return the stored refresh token if valid
      * @throws InvalidRefreshTokenException if the token is invalid, expired, or revoked
      */
     @Transactional
-    public RefreshToken validateRefreshToken(String token) {
-        String hashedToken = hashToken(token);
-        LocalDateTime now = LocalDateTime.now();
+    public RefreshTokenRecord validateRefreshToken(String token) {
+        byte[] hashedToken = hashToken(token);
+        long now = System.currentTimeMillis();
 
         try {
-            Optional<RefreshToken> optionalRefreshToken = refreshTokenRepository.findByToken(hashedToken);
+            Optional<RefreshTokenRecord> optionalRefreshToken = refreshTokenStore.findByTokenHash(hashedToken);
             if (optionalRefreshToken.isEmpty()) {
                 log.warn("Refresh token validation failed: token not found");
                 throw new InvalidRefreshTokenException();
             }
 
-            RefreshToken refreshToken = optionalRefreshToken.get();
+            RefreshTokenRecord refreshToken = optionalRefreshToken.get();
 
             if (refreshToken.isRevoked()) {
-                log.info("Refresh token validation failed: token revoked (tokenId={}, userId={})",
-                        refreshToken.getId(),
-                        refreshToken.getUser() != null ? refreshToken.getUser().getId() : null);
+                log.info("Refresh token validation failed: token revoked (userId={})", refreshToken.userId());
                 throw new InvalidRefreshTokenException();
             }
 
-            if (refreshToken.getExpiryDate().isBefore(now)) {
-                log.info("Refresh token validation failed: token expired (tokenId={}, expiredAt={})",
-                        refreshToken.getId(),
-                        refreshToken.getExpiryDate());
+            if (refreshToken.isExpired(now)) {
+                log.info("Refresh token validation failed: token expired (userId={}, expiredAt={})",
+                        refreshToken.userId(),
+                        Instant.ofEpochMilli(refreshToken.expiresAtMs()));
                 throw new InvalidRefreshTokenException();
             }
 
@@ -116,39 +112,31 @@ public class RefreshTokenService {
      */
     @Transactional
     public void deleteRefreshToken(String token) {
-        String hashedToken = hashToken(token);
-        refreshTokenRepository.findByToken(hashedToken).ifPresent(refreshTokenRepository::delete);
+        byte[] hashedToken = hashToken(token);
+        refreshTokenStore.delete(hashedToken);
     }
 
-
-    
-    private String hashToken(String token) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("SHA-256 algorithm not available", e);
-        }
+    /**
+     * Hashes a raw refresh token into the 32-byte SHA-256 digest the store is keyed by.
+     *
+     * @param token the raw refresh token
+     * @return the digest of the token
+     */
+    byte[] hashToken(String token) {
+        return TokenHasher.sha256(token);
     }
 
     /**
      * Cron job that deletes refresh tokens 30 days after they are revoked or expired.
-     * Runs every day at 03:00 AM server time.
+     * Runs every day at 03:00 AM server time by default. The JPA store deletes in throttled batches on a single
+     * node; the in-memory store drops expired tokens as they expire, so there this only removes tokens revoked
+     * long before their expiry. Not transactional: a purge must not run as one long transaction.
      */
-    @Transactional
-    @Scheduled(cron = "0 0 3 * * ?")
+    @Scheduled(cron = "${refresh-token.purge.cron:0 0 3 * * ?}")
     public void cleanUpOldRefreshTokens() {
-        LocalDateTime threshold = LocalDateTime.now().minusDays(30);
-        refreshTokenRepository.deleteOldTokens(threshold);
+        long threshold = System.currentTimeMillis() - Duration.ofDays(30).toMillis();
+        int purged = refreshTokenStore.purgeOlderThan(threshold);
+        log.info("Purged {} old refresh tokens", purged);
     }
 
 
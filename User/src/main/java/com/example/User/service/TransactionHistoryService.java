@@ -0,0 +1,140 @@
+package com.example.User.service;
+
+import com.example.User.customExceptions.WalletNotFoundException;
+import com.example.User.entities.Wallet;
+import com.example.User.entities.WalletTransaction;
+import com.example.User.entities.models.TransactionCursor;
+import com.example.User.entities.response.TransactionPageDTO;
+import com.example.User.entities.response.TransactionResponseDTO;
+import com.example.User.repository.WalletRepository;
+import com.example.User.utility.UuidBytes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the transaction history of a wallet newest first, one keyset page at a time.
+ *
+ * <p>A page starts after the (created_at, id) of the last entry of the previous page, carried by an opaque
+ * {@link TransactionCursor}, instead of skipping an OFFSET of rows. With the wallet and the optional filters as
+ * the leading columns of one of the indexes of {@link WalletTransaction}, the database seeks to the cursor and
+ * reads the entries of the page in index order from the index alone, so page 10,000 costs what page 1 does.
+ */
+@Service
+public class TransactionHistoryService {
+
+    /** The wallet, both filters, the cursor's three values and the limit. */
+    private static final int MAX_PAGE_ARGUMENTS = 7;
+
+    private static final RowMapper<TransactionResponseDTO> ROW_MAPPER = (rs, rowNum) -> {
+        byte[] counterparty = rs.getBytes("counterparty_wallet_id");
+        return new TransactionResponseDTO(
+                UuidBytes.fromBytes(rs.getBytes("id")),
+                WalletTransaction.Type.valueOf(rs.getString("type")),
+                WalletTransaction.Direction.valueOf(rs.getString("direction")),
+                rs.getLong("amount"),
+                counterparty == null ? null : UuidBytes.fromBytes(counterparty),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    };
+
+    private final WalletRepository walletRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public TransactionHistoryService(WalletRepository repository,
+                                     JdbcTemplate template,
+                                     @Value("${wallet.transactions.default-page-size:20}") int defaultSize,
+                                     @Value("${wallet.transactions.max-page-size:100}") int maxSize) {
+        this.walletRepository = repository;
+        this.jdbcTemplate = template;
+        this.defaultPageSize = defaultSize;
+        this.maxPageSize = maxSize;
+    }
+
+    /**
+     * Reads one page of the transaction history of the wallet of a user.
+     *
+     * @param userId    the owner of the wallet
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param direction only entries in this direction, or null for both
+     * @param type      only entries of this type, or null for all
+     * @param limit     the page size, or null for the default; capped at the maximum page size
+     * @return the page, with the cursor of the next one unless it is the last
+     * @throws WalletNotFoundException if the user has no wallet
+     */
+    public TransactionPageDTO getTransactions(UUID userId, String cursor, WalletTransaction.Direction direction,
+                                              WalletTransaction.Type type, Integer limit) {
+        Wallet wallet = walletRepository.findByUserId(userId)
+                .orElseThrow(() -> new WalletNotFoundException(userId));
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        // One row past the page tells whether there is a next page without a count
+        List<TransactionResponseDTO> rows = jdbcTemplate.query(
+                pageSql(direction != null, type != null, after != null),
+                ROW_MAPPER,
+                pageArguments(wallet.getId(), direction, type, after, pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new TransactionPageDTO(rows, null);
+        }
+        List<TransactionResponseDTO> page = new ArrayList<>(rows.subList(0, pageSize));
+        TransactionResponseDTO last = page.get(pageSize - 1);
+        return new TransactionPageDTO(page, new TransactionCursor(last.createdAt(), last.id()).encode());
+    }
+
+    /**
+     * Builds the query of a page. The keyset condition is spelled out rather than written as a row value
+     * comparison, so that both MySQL and H2 turn its first term into a range on the index. The order repeats the
+     * columns fixed by the filters: MySQL drops them, and H2 only reads an index in order, stopping at the limit,
+     * when the order is a prefix of its columns.
+     *
+     * @param byDirection whether the entries are filtered by direction
+     * @param byType      whether the entries are filtered by type
+     * @param afterCursor whether the page starts after a cursor
+     * @return the SQL of the page, taking the arguments of {@link #pageArguments}
+     */
+    static String pageSql(boolean byDirection, boolean byType, boolean afterCursor) {
+        StringBuilder sql = new StringBuilder("SELECT id, type, direction, amount, counterparty_wallet_id, created_at"
+                + " FROM wallet_transactions WHERE wallet_id = ?");
+        StringBuilder order = new StringBuilder(" ORDER BY wallet_id");
+        if (byDirection) {
+            sql.append(" AND direction = ?");
+            order.append(", direction");
+        }
+        if (byType) {
+            sql.append(" AND type = ?");
+            order.append(", type");
+        }
+        if (afterCursor) {
+            sql.append(" AND created_at <= ? AND (created_at < ? OR id < ?)");
+        }
+        return sql.append(order).append(", created_at DESC, id DESC LIMIT ?").toString();
+    }
+
+    static Object[] pageArguments(UUID walletId, WalletTransaction.Direction direction, WalletTransaction.Type type,
+                                  TransactionCursor after, int limit) {
+        List<Object> arguments = new ArrayList<>(MAX_PAGE_ARGUMENTS);
+        arguments.add(UuidBytes.toBytes(walletId));
+        if (direction != null) {
+            arguments.add(direction.name());
+        }
+        if (type != null) {
+            arguments.add(type.name());
+        }
+        if (after != null) {
+            Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+            arguments.add(createdAt);
+            arguments.add(createdAt);
+            arguments.add(UuidBytes.toBytes(after.id()));
+        }
+        arguments.add(limit);
+        return arguments.toArray();
+    }
+}
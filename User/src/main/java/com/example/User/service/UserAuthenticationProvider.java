@@ -0,0 +1,102 @@
+package com.example.User.service;
+
+import com.example.User.cache.UserCache;
+import com.example.User.entities.User;
+import com.example.User.entities.models.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates email and password logins with a single user lookup.
+ *
+ * <p>The user that was read to check the password becomes the principal, an {@link AuthenticatedUser}, so the
+ * login can issue its tokens from it without reading the user again. Stored hashes with a lower cost than the
+ * calibrated one are rehashed through the {@link UserDetailsPasswordService}, as DaoAuthenticationProvider does.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String BAD_CREDENTIALS = "Bad credentials";
+
+    private final UserCache userCache;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordEncoder passwordEncoder;
+    private volatile String userNotFoundHash;
+
+    /**
+     * Checks the password of an email and password login against the cached user.
+     *
+     * @param authentication the login request
+     * @return the authenticated token, with the user read as its principal
+     * @throws AuthenticationException if the email is unknown or the password does not match
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String email = authentication.getName();
+        String password = authentication.getCredentials() == null ? "" : authentication.getCredentials().toString();
+
+        User user = userCache.findByEmail(email).orElse(null);
+        if (user == null) {
+            // Check the password anyway, so that unknown emails take as long as wrong passwords
+            passwordEncoder.matches(password, userNotFoundHash());
+            throw new BadCredentialsException(BAD_CREDENTIALS);
+        }
+        if (!passwordEncoder.matches(password, user.getPassword())) {
+            throw new BadCredentialsException(BAD_CREDENTIALS);
+        }
+
+        AuthenticatedUser principal = new AuthenticatedUser(user);
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehash(principal, password);
+        }
+        UsernamePasswordAuthenticationToken result =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        result.setDetails(authentication.getDetails());
+        return result;
+    }
+
+    /**
+     * Tells whether the provider handles a type of authentication request.
+     *
+     * @param authentication the type of the request
+     * @return true for email and password logins
+     */
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * Stores the password hashed with the current cost. A failed rehash does not fail the login.
+     *
+     * @param principal the authenticated user
+     * @param password  the password the user logged in with
+     */
+    private void rehash(AuthenticatedUser principal, String password) {
+        try {
+            userDetailsPasswordService.updatePassword(principal, passwordEncoder.encode(password));
+        } catch (DataAccessException ex) {
+            log.warn("Could not rehash the password of user {}", principal.getId(), ex);
+        }
+    }
+
+    private String userNotFoundHash() {
+        String hash = userNotFoundHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("userNotFoundPassword");
+            userNotFoundHash = hash;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.User.service;
+
+import com.example.User.cache.EmailExistenceFilter;
+import com.example.User.entities.User;
+import com.example.User.entities.models.UserImportResult;
+import com.example.User.entities.models.WalletCreationEvent;
+import com.example.User.entities.request.UserRequestDTO;
+import com.example.User.outbox.OutboxWriter;
+import com.example.User.repository.UserRepository;
+import com.example.User.utility.OffloadingPasswordEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Creates users in bulk from NDJSON, one {@link UserRequestDTO} per line, and writes one
+ * {@link UserImportResult} per non-blank line back as NDJSON.
+ *
+ * <p>Lines are processed in chunks of {@code user.import.chunk-size}, so memory stays constant whatever the size
+ * of the upload. Each chunk is validated, checked for duplicates with the email filter and one query, hashed in
+ * parallel on a dedicated fork-join pool, and inserted with its outbox events in one transaction of JDBC batches.
+ * The pool is separate from the password hashing pool of logins and registrations, and narrower than the host,
+ * so an import cannot starve them. A chunk that hits a unique constraint, because a user registered one of its
+ * emails or phone numbers in the meantime, is retried line by line to tell which lines are duplicates.
+ */
+@Slf4j
+@Service
+public final class UserImportService implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final String DUPLICATE_EMAIL = "Email already registered";
+    private static final String DUPLICATE_IN_FILE = "Email appears earlier in the import";
+    private static final String DUPLICATE_USER = "Email or phone number already registered";
+
+    private final UserRepository userRepository;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final OutboxWriter outboxWriter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PasswordEncoder hashingEncoder;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${user.import.chunk-size:500}")
+    private int chunkSize;
+    @Value("${user.import.hashing-parallelism:"
+            + "#{T(java.lang.Math).max(1, T(java.lang.Runtime).getRuntime().availableProcessors() / 2)}}")
+    private int hashingParallelism;
+    private ForkJoinPool hashingPool;
+    @PersistenceContext
+    private EntityManager entityManager;
+    private Counter created;
+    private Counter duplicates;
+    private Counter invalid;
+
+    public UserImportService(UserRepository repository,
+                             EmailExistenceFilter existenceFilter,
+                             OutboxWriter writer,
+                             ObjectMapper mapper,
+                             Validator requestValidator,
+                             PasswordEncoder passwordEncoder,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = repository;
+        this.emailExistenceFilter = existenceFilter;
+        this.outboxWriter = writer;
+        this.objectMapper = mapper;
+        this.validator = requestValidator;
+        // Hash on the import pool directly rather than queueing a whole chunk on the login hashing pool
+        this.hashingEncoder = passwordEncoder instanceof OffloadingPasswordEncoder offloading
+                ? offloading.getDelegate()
+                : passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Starts the hashing pool once the chunk size and parallelism are injected.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        hashingPool = new ForkJoinPool(hashingParallelism);
+    }
+
+    /**
+     * Imports every line of the input and writes the result of each line to the output as its chunk completes.
+     *
+     * @param input  NDJSON of UserRequestDTOs
+     * @param output receives one NDJSON UserImportResult per non-blank input line, in input order
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void importUsers(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new ImportLine(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                write(importChunk(chunk), output);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(importChunk(chunk), output);
+        }
+    }
+
+    private List<UserImportResult> importChunk(List<ImportLine> chunk) {
+        UserImportResult[] results = new UserImportResult[chunk.size()];
+        List<Candidate> candidates = new ArrayList<>(chunk.size());
+        Set<String> emailsInChunk = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportLine line = chunk.get(i);
+            UserRequestDTO request;
+            try {
+                request = objectMapper.readValue(line.json(), UserRequestDTO.class);
+            } catch (JsonProcessingException ex) {
+                results[i] = UserImportResult.invalid(line.number(), "Malformed user record");
+                continue;
+            }
+            Set<ConstraintViolation<UserRequestDTO>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                results[i] = UserImportResult.invalid(line.number(), describe(violations));
+            } else if (!emailsInChunk.add(normalize(request.getEmail()))) {
+                results[i] = UserImportResult.duplicate(line.number(), DUPLICATE_IN_FILE);
+            } else {
+                candidates.add(new Candidate(i, line.number(), request));
+            }
+        }
+        List<Candidate> newUsers = withoutRegistered(candidates, results);
+        if (!newUsers.isEmpty()) {
+            create(newUsers, results);
+        }
+        record(results);
+        return List.of(results);
+    }
+
+    private void create(List<Candidate> candidates, UserImportResult[] results) {
+        List<String> hashes = hash(candidates);
+        try {
+            List<User> users = transactionTemplate.execute(status -> insert(candidates, hashes));
+            for (int i = 0; i < candidates.size(); i++) {
+                results[candidates.get(i).index()] =
+                        UserImportResult.created(candidates.get(i).line(), users.get(i).getId());
+            }
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Import chunk hit a unique constraint; retrying its {} users one by one", candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                List<Candidate> single = List.of(candidate);
+                List<String> hash = List.of(hashes.get(i));
+                try {
+                    User user = transactionTemplate.execute(status -> insert(single, hash)).get(0);
+                    results[candidate.index()] = UserImportResult.created(candidate.line(), user.getId());
+                } catch (DataIntegrityViolationException duplicate) {
+                    results[candidate.index()] = UserImportResult.duplicate(candidate.line(), DUPLICATE_USER);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the candidates whose email is already registered. Only emails the filter reports as possibly
+     * registered are queried, all in one query.
+     *
+     * @param candidates the valid lines of the chunk
+     * @param results    the results of the chunk, filled in for the registered emails
+     * @return the candidates whose email is not registered
+     */
+    private List<Candidate> withoutRegistered(List<Candidate> candidates, UserImportResult[] results) {
+        List<String> probable = candidates.stream()
+                .map(candidate -> candidate.request().getEmail())
+                .filter(emailExistenceFilter::mightContain)
+                .toList();
+        if (probable.isEmpty()) {
+            return candidates;
+        }
+        Set<String> registered = userRepository.findExistingEmails(probable).stream()
+                .map(UserImportService::normalize)
+                .collect(Collectors.toSet());
+        List<Candidate> remaining = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (registered.contains(normalize(candidate.request().getEmail()))) {
+                results[candidate.index()] = UserImportResult.duplicate(candidate.line(), DUPLICATE_EMAIL);
+            } else {
+                remaining.add(candidate);
+            }
+        }
+        return remaining;
+    }
+
+    private List<String> hash(List<Candidate> candidates) {
+        List<Callable<String>> tasks = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            tasks.add(() -> hashingEncoder.encode(candidate.request().getPassword()));
+        }
+        List<String> hashes = new ArrayList<>(tasks.size());
+        try {
+            for (Future<String> future : hashingPool.invokeAll(tasks)) {
+                hashes.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Hashing an imported password failed", ex.getCause());
+        }
+        return hashes;
+    }
+
+    /**
+     * Inserts the users through the entity mapping, flushed as JDBC batches of
+     * {@code hibernate.jdbc.batch_size}, and their wallet creation events as one JDBC batch.
+     * Runs in the transaction of the chunk. The request's open-in-view EntityManager outlives that transaction,
+     * so the chunk's users are cleared from it before the commit; otherwise every imported user would stay managed
+     * until the upload ends.
+     *
+     * @param candidates the users to create
+     * @param hashes     the password hashes of the users, in the same order
+     * @return the saved users
+     */
+    private List<User> insert(List<Candidate> candidates, List<String> hashes) {
+        List<User> users = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            UserRequestDTO request = candidates.get(i).request();
+            users.add(User.builder()
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .phoneNumber(request.getPhoneNumber())
+                    .password(hashes.get(i))
+                    .build());
+        }
+        users = userRepository.saveAll(users);
+        userRepository.flush();
+
+        List<WalletCreationEvent> events = new ArrayList<>(users.size());
+        for (User user : users) {
+            events.add(WalletCreationEvent.builder()
+                    .userId(user.getId())
+                    .phoneNumber(user.getPhoneNumber())
+                    .build());
+        }
+        outboxWriter.appendAll(UserService.WALLET_CREATION_TOPIC, events, event -> event.getUserId().toString());
+        for (User user : users) {
+            emailExistenceFilter.add(user.getEmail());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return users;
+    }
+
+    private void write(Collection<UserImportResult> results, OutputStream output) throws IOException {
+        for (UserImportResult result : results) {
+            output.write(objectMapper.writeValueAsBytes(result));
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private void record(UserImportResult[] results) {
+        if (created == null) {
+            return;
+        }
+        for (UserImportResult result : results) {
+            switch (result.status()) {
+                case CREATED -> created.increment();
+                case DUPLICATE -> duplicates.increment();
+                case INVALID -> invalid.increment();
+                default -> throw new IllegalStateException("Unknown import status " + result.status());
+            }
+        }
+    }
+
+    private static String describe(Set<ConstraintViolation<UserRequestDTO>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath().toString().isEmpty()
+                        ? violation.getMessage()
+                        : violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        created = Counter.builder("users.import.records")
+                .tag("outcome", "created")
+                .description("Bulk import lines by outcome")
+                .register(registry);
+        duplicates = Counter.builder("users.import.records")
+                .tag("outcome", "duplicate")
+                .description("Bulk import lines by outcome")
+                .register(registry);
+        invalid = Counter.builder("users.import.records")
+                .tag("outcome", "invalid")
+                .description("Bulk import lines by outcome")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    private record ImportLine(long number, String json) {
+    }
+
+    /**
+     * A valid line, with its position in the chunk.
+     *
+     * @param index   the position of the line in the chunk
+     * @param line    the line number in the input
+     * @param request the user of the line
+     */
+    private record Candidate(int index, long line, UserRequestDTO request) {
+    }
+}
@@ -1,53 +1,139 @@
 package com.example.User.service;
 
+import com.example.User.cache.EmailExistenceFilter;
+import com.example.User.cache.UserCache;
 import com.example.User.customExceptions.UserAlreadyExistsException;
 import com.example.User.entities.User;
 import com.example.User.entities.models.WalletCreationEvent;
 import com.example.User.entities.request.UserRequestDTO;
+import com.example.User.outbox.OutboxWriter;
 import com.example.User.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
 
 @Service
 public class UserService {
+    static final String WALLET_CREATION_TOPIC = "wallet-creation-topic";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private EmailExistenceFilter emailExistenceFilter;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-//    @Autowired
-//    private KafkaTemplate<String, WalletCreationEvent> kafkaTemplate;
+    @Autowired
+    private OutboxWriter outboxWriter;
 
     /**
-     * Registers a new user.
+     * Registers a new user. The wallet creation event is written to the outbox in the same transaction
+     * and published by the outbox relay.
+     * The password is only hashed once the email filter says the email is probably new, and a new user costs
+     * a single insert: duplicates that get past the filter are rejected by the unique constraints.
      * @param userRequestDTO the user request data transfer object containing user details.
      * @return the registered User entity.
-     * @throws UserAlreadyExistsException if a user with the same email already exists.
+     * @throws UserAlreadyExistsException if a user with the same email or phone number already exists.
      */
+    @Transactional
     public User register(UserRequestDTO userRequestDTO) {
+        String email = userRequestDTO.getEmail();
+        if (emailExistenceFilter.mightContain(email)) {
+            if (userRepository.existsByEmail(email)) {
+                throw new UserAlreadyExistsException(userRequestDTO.getName(), email);
+            }
+            emailExistenceFilter.recordFalsePositive();
+        }
+
         User user = User.builder()
                 .name(userRequestDTO.getName())
-                .email(userRequestDTO.getEmail())
+                .email(email)
                 .phoneNumber(userRequestDTO.getPhoneNumber())
                 .password(passwordEncoder.encode(userRequestDTO.getPassword()))
                 .build();
-
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
+        try {
+            // Flush so that a constraint violation surfaces here rather than at commit
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
             throw new UserAlreadyExistsException(user.getName(), user.getEmail());
         }
-        user = userRepository.save(user);
+        emailExistenceFilter.add(email);
+
         WalletCreationEvent walletCreationEvent = WalletCreationEvent.builder()
                                                                 .userId(user.getId())
                                                                 .phoneNumber(user.getPhoneNumber())
                                                                 .build();
-        //kafkaTemplate.send("wallet-creation-topic", walletCreationEvent);
+        outboxWriter.append(WALLET_CREATION_TOPIC, user.getId().toString(), walletCreationEvent);
         return user;
     }
 
+    /**
+     * Replaces the roles of a user. The change raises the version of the user, and the invalidation records the
+     * new version on every node, so access tokens issued for the old roles are checked against the database
+     * again instead of being trusted for their claims.
+     * @param userId the id of the user.
+     * @param roles the bitmask of the new {@link com.example.User.entities.Role}s.
+     * @return the updated user, or null if there is no user with this id.
+     */
+    public User changeRoles(UUID userId, int roles) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        user.setRoles(roles);
+        return saveAndInvalidate(user);
+    }
+
+    /**
+     * Replaces the password of a user once the current one is confirmed. Like {@link #changeRoles(UUID, int)}, it
+     * raises the version of the user, so access tokens issued before the change are checked against the database
+     * again.
+     * @param email the email of the user.
+     * @param currentPassword the raw password the user holds now.
+     * @param newPassword the new raw password.
+     * @return the updated user, or null if there is no user with this email.
+     * @throws BadCredentialsException if the current password does not match.
+     */
+    public User changePassword(String email, String currentPassword, String newPassword) {
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+            throw new BadCredentialsException("Current password does not match");
+        }
+        user.setPassword(passwordEncoder.encode(newPassword));
+        return saveAndInvalidate(user);
+    }
+
+    private User saveAndInvalidate(User user) {
+        // save commits in its own transaction, so other nodes only learn the new version once it can be read
+        User saved = userRepository.save(user);
+        userCache.invalidate(saved);
+        return saved;
+    }
+
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElse(null);
+        return userCache.findByEmail(email).orElse(null);
+    }
+
+    /**
+     * Reads a user through the near-cache, as the refresh of a token held only the user id.
+     *
+     * @param id the id of the user
+     * @return the user, or null if no user has the id
+     */
+    public User getUserById(UUID id) {
+        return userCache.findById(id).orElse(null);
     }
 }
@@ -0,0 +1,85 @@
+package com.example.User.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latest version of the users this node has recently checked or seen change.
+ * Access tokens carry the user version they were issued for, so a token is stale when the user has a newer
+ * version. Versions come from invalidations and from database reads, and are only trusted for
+ * {@code jwt.version-check-ms}: a node that restarted, or missed an invalidation, reads the version from the
+ * database again once the entry expires, instead of trusting old claims for the whole access token lifetime.
+ */
+@Component
+public class UserVersionTracker {
+
+    private static final long PRUNE_INTERVAL_MS = 60_000;
+
+    private final ConcurrentHashMap<String, VersionEntry> latestVersions = new ConcurrentHashMap<>();
+    private final long versionTtlMs;
+
+    public UserVersionTracker(@Value("${jwt.version-check-ms:60000}") long versionCheckMs) {
+        this.versionTtlMs = versionCheckMs;
+    }
+
+    /**
+     * Records that the user identified by the given email is now at the given version.
+     *
+     * @param email   the email of the user
+     * @param version the version of the user, after a change or as read from the database
+     */
+    public void recordVersion(String email, long version) {
+        long now = System.currentTimeMillis();
+        latestVersions.merge(email, new VersionEntry(version, now),
+                (current, update) -> current.version() > update.version() && !current.isExpired(now, versionTtlMs)
+                        ? current
+                        : update);
+    }
+
+    /**
+     * Returns the latest version recorded for the user, if it was recorded recently enough to be trusted.
+     *
+     * @param email the email of the user
+     * @return the version, or empty if it has to be read from the database
+     */
+    public OptionalLong latestVersion(String email) {
+        VersionEntry entry = latestVersions.get(email);
+        if (entry == null || entry.isExpired(System.currentTimeMillis(), versionTtlMs)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(entry.version());
+    }
+
+    /**
+     * Checks whether a newer version of the user has been recorded recently, without reading the database.
+     *
+     * @param email   the email of the user
+     * @param version the user version to check
+     * @return true if a newer version of the user has been recorded, false otherwise
+     */
+    public boolean isStale(String email, long version) {
+        OptionalLong latest = latestVersion(email);
+        return latest.isPresent() && version < latest.getAsLong();
+    }
+
+    /**
+     * Removes the entries that are no longer trusted.
+     * Runs every minute.
+     */
+    @Scheduled(fixedDelay = PRUNE_INTERVAL_MS)
+    public void pruneExpiredEntries() {
+        long now = System.currentTimeMillis();
+        latestVersions.values().removeIf(entry -> entry.isExpired(now, versionTtlMs));
+    }
+
+    private record VersionEntry(long version, long recordedAtMs) {
+
+        boolean isExpired(long now, long ttlMs) {
+            return recordedAtMs < now - ttlMs;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.User.service.runner;
 
+import com.example.User.entities.Role;
 import com.example.User.entities.User;
 import com.example.User.repository.UserRepository;
 
@@ -9,8 +10,6 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-
 @Component
 @RequiredArgsConstructor
 public class SeedRunner implements CommandLineRunner {
@@ -34,7 +33,7 @@ public class SeedRunner implements CommandLineRunner {
                         .name("admin")
                         .email("admin@example.com")
                         .password(encoder.encode("admin123"))
-                        .roles(Set.of("ROLE_ADMIN"))
+                        .roles(Role.ADMIN.mask())
                         .build()));
     }
 }
@@ -0,0 +1,103 @@
+package com.example.User.store;
+
+import com.example.User.entities.models.RefreshTokenRecord;
+import com.example.User.store.memory.RefreshTokenEngine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh token store kept in memory by a {@link RefreshTokenEngine}, with a local journal and snapshots
+ * for restart recovery. Tokens are not shared between nodes, so this backend suits a single instance or
+ * deployments with sticky sessions for /refresh.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "refresh-token.store", havingValue = "in-memory")
+public final class InMemoryRefreshTokenStore implements RefreshTokenStore, MeterBinder, DisposableBean {
+
+    private final RefreshTokenEngine engine;
+
+    public InMemoryRefreshTokenStore(@Value("${refresh-token.in-memory.data-dir:data/refresh-tokens}") String dataDir,
+                                     @Value("${refresh-token.in-memory.tick-ms:1000}") long tickMs,
+                                     @Value("${refresh-token.in-memory.initial-capacity:65536}") int initialCapacity,
+                                     @Value("${refresh-token.in-memory.fsync:false}") boolean fsync)
+            throws IOException {
+        this.engine = new RefreshTokenEngine(Path.of(dataDir), tickMs, initialCapacity, fsync,
+                System::currentTimeMillis);
+        log.info("Recovered {} refresh tokens from {}", engine.size(), dataDir);
+    }
+
+    @Override
+    public void save(RefreshTokenRecord record) {
+        engine.put(record);
+    }
+
+    @Override
+    public Optional<RefreshTokenRecord> findByTokenHash(byte[] tokenHash) {
+        return Optional.ofNullable(engine.get(tokenHash));
+    }
+
+    @Override
+    public int revokeAllForUser(UUID userId, long revokedAtMs) {
+        return engine.revokeAllForUser(userId, revokedAtMs);
+    }
+
+    @Override
+    public void delete(byte[] tokenHash) {
+        engine.delete(tokenHash);
+    }
+
+    @Override
+    public int purgeOlderThan(long thresholdMs) {
+        return engine.purgeOlderThan(thresholdMs);
+    }
+
+    /**
+     * Drops the tokens whose expiry has passed.
+     */
+    @Scheduled(fixedDelayString = "${refresh-token.in-memory.tick-ms:1000}")
+    public void expireTokens() {
+        engine.tick();
+    }
+
+    /**
+     * Compacts the journal into a snapshot.
+     */
+    @Scheduled(fixedDelayString = "${refresh-token.in-memory.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        try {
+            engine.snapshot();
+        } catch (IOException ex) {
+            log.error("Failed to write the refresh token snapshot; the journal keeps growing until it succeeds", ex);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        engine.snapshot();
+        engine.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("refresh-tokens.in-memory.size", engine, RefreshTokenEngine::size)
+                .description("Refresh tokens held by the in-memory store")
+                .register(registry);
+        FunctionCounter.builder("refresh-tokens.in-memory.expired", engine, RefreshTokenEngine::expiredCount)
+                .description("Refresh tokens dropped by the timing wheel when they expired")
+                .register(registry);
+    }
+}
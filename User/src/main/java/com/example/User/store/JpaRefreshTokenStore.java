@@ -0,0 +1,127 @@
+package com.example.User.store;
+
+import com.example.User.entities.RefreshToken;
+import com.example.User.entities.User;
+import com.example.User.entities.models.RefreshTokenRecord;
+import com.example.User.maintenance.RefreshTokenRetention;
+import com.example.User.repository.RefreshTokenRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh token store backed by the refresh_tokens table.
+ *
+ * <p>Lookups fetch the user along with the token, and rotation is a bulk revoke plus one insert, so a refresh
+ * costs a single read and two writes whatever the number of tokens the user holds.
+ */
+@Component
+@ConditionalOnProperty(name = "refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenRetention refreshTokenRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Inserts the token with a reference to its user; the user row is not read.
+     *
+     * @param record the token to store
+     */
+    @Override
+    @Transactional
+    public void save(RefreshTokenRecord record) {
+        RefreshToken refreshToken = RefreshToken.builder()
+                .tokenHash(record.tokenHash())
+                .user(entityManager.getReference(User.class, record.userId()))
+                .expiryDate(toLocalDateTime(record.expiresAtMs()))
+                .revoked(record.isRevoked())
+                .revokedAt(record.isRevoked() ? toLocalDateTime(record.revokedAtMs()) : null)
+                .build();
+        entityManager.persist(refreshToken);
+    }
+
+    /**
+     * Finds a token and its user in one query.
+     *
+     * @param tokenHash the 32-byte digest of the raw token
+     * @return the token, carrying its user, or empty if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<RefreshTokenRecord> findByTokenHash(byte[] tokenHash) {
+        return refreshTokenRepository.findWithUserByTokenHash(tokenHash, LocalDateTime.now())
+                .map(JpaRefreshTokenStore::toRecord);
+    }
+
+    /**
+     * Revokes the tokens of the user in one bulk update.
+     *
+     * @param userId      the id of the user
+     * @param revokedAtMs the revocation time in epoch milliseconds
+     * @return the number of tokens revoked
+     */
+    @Override
+    @Transactional
+    public int revokeAllForUser(UUID userId, long revokedAtMs) {
+        return refreshTokenRepository.revokeAllForUser(userId, toLocalDateTime(revokedAtMs));
+    }
+
+    /**
+     * Deletes a token by its digest, within the partitions it can be in.
+     *
+     * @param tokenHash the 32-byte digest of the raw token
+     */
+    @Override
+    @Transactional
+    public void delete(byte[] tokenHash) {
+        refreshTokenRepository.deleteByTokenHash(tokenHash, LocalDateTime.now());
+    }
+
+    /**
+     * Applies the configured retention; not transactional, since retention commits in steps of its own.
+     *
+     * @param thresholdMs the threshold in epoch milliseconds
+     * @return the number of tokens deleted
+     */
+    @Override
+    public int purgeOlderThan(long thresholdMs) {
+        return refreshTokenRetention.purgeOlderThan(toLocalDateTime(thresholdMs));
+    }
+
+    private static RefreshTokenRecord toRecord(RefreshToken refreshToken) {
+        return new RefreshTokenRecord(refreshToken.getTokenHash(),
+                refreshToken.getUser().getId(),
+                toEpochMs(refreshToken.getExpiryDate()),
+                revokedAtMs(refreshToken),
+                refreshToken.getUser());
+    }
+
+    private static long revokedAtMs(RefreshToken refreshToken) {
+        if (!refreshToken.isRevoked()) {
+            return 0;
+        }
+        // Rows revoked before revokedAt was recorded still have to read as revoked
+        return refreshToken.getRevokedAt() != null ? toEpochMs(refreshToken.getRevokedAt()) : 1;
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
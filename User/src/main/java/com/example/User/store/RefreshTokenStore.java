@@ -0,0 +1,52 @@
+package com.example.User.store;
+
+import com.example.User.entities.models.RefreshTokenRecord;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage of refresh tokens, keyed by the SHA-256 digest of the raw token.
+ * The backend is selected with the {@code refresh-token.store} property.
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Stores a new refresh token.
+     *
+     * @param record the token to store
+     */
+    void save(RefreshTokenRecord record);
+
+    /**
+     * Finds a refresh token by its digest.
+     *
+     * @param tokenHash the 32-byte digest of the raw token
+     * @return an Optional containing the token if found, or empty if not found
+     */
+    Optional<RefreshTokenRecord> findByTokenHash(byte[] tokenHash);
+
+    /**
+     * Revokes every refresh token of the user that is not revoked yet.
+     *
+     * @param userId      the id of the user
+     * @param revokedAtMs the revocation time in epoch milliseconds
+     * @return the number of tokens revoked
+     */
+    int revokeAllForUser(UUID userId, long revokedAtMs);
+
+    /**
+     * Deletes a refresh token.
+     *
+     * @param tokenHash the 32-byte digest of the raw token
+     */
+    void delete(byte[] tokenHash);
+
+    /**
+     * Deletes tokens that expired, or were revoked, before the threshold.
+     *
+     * @param thresholdMs the threshold in epoch milliseconds
+     * @return the number of tokens deleted
+     */
+    int purgeOlderThan(long thresholdMs);
+}
@@ -0,0 +1,369 @@
+package com.example.User.store.memory;
+
+import java.util.Arrays;
+
+/**
+ * Refresh token records packed into primitive arrays.
+ *
+ * <p>Each record occupies {@link #STRIDE} longs of a single slab: the four words of the SHA-256 digest,
+ * the user id and the expiry and revocation times. Record indexes are stable for the lifetime of a record,
+ * so the timing wheel can refer to them; a generation counter per index tells a reused index apart from the
+ * record that was scheduled. Two open-addressing tables with linear probing index the slab, one by digest
+ * and one by user id; records of the same user are linked in a doubly linked chain.
+ *
+ * <p>Not thread safe; {@link RefreshTokenEngine} guards every access.
+ */
+final class RecordTable {
+
+    static final int STRIDE = 8;
+    static final int DIGEST_WORDS = 4;
+
+    static final int DIGEST_0 = 0;
+    static final int DIGEST_1 = 1;
+    static final int DIGEST_2 = 2;
+    static final int DIGEST_3 = 3;
+    static final int USER_MSB = 4;
+    static final int USER_LSB = 5;
+    static final int EXPIRES_AT = 6;
+    static final int REVOKED_AT = 7;
+
+    private static final int NONE = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long[] records;
+    private int[] generations;
+    private boolean[] live;
+    private int[] nextByUser;
+    private int[] prevByUser;
+    private int highWater;
+    private int freeHead = NONE;
+    private int size;
+
+    /** Record index + 1 per slot, 0 when the slot is empty. */
+    private int[] digestIndex;
+
+    /** User id (two longs) and chain head + 1 per slot, 0 when the slot is empty. */
+    private long[] userKeys;
+    private int[] userHeads;
+    private int userCount;
+
+    RecordTable(int initialCapacity) {
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1);
+        records = new long[capacity * STRIDE];
+        generations = new int[capacity];
+        live = new boolean[capacity];
+        nextByUser = new int[capacity];
+        prevByUser = new int[capacity];
+        digestIndex = new int[capacity * 2];
+        userHeads = new int[capacity * 2];
+        userKeys = new long[userHeads.length * 2];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int highWater() {
+        return highWater;
+    }
+
+    boolean isLive(int record) {
+        return live[record];
+    }
+
+    int generation(int record) {
+        return generations[record];
+    }
+
+    long digestWord(int record, int word) {
+        return records[record * STRIDE + word];
+    }
+
+    long userMsb(int record) {
+        return records[record * STRIDE + USER_MSB];
+    }
+
+    long userLsb(int record) {
+        return records[record * STRIDE + USER_LSB];
+    }
+
+    long expiresAt(int record) {
+        return records[record * STRIDE + EXPIRES_AT];
+    }
+
+    long revokedAt(int record) {
+        return records[record * STRIDE + REVOKED_AT];
+    }
+
+    /**
+     * Finds the record with the given digest.
+     *
+     * @param d0 the first word of the digest
+     * @param d1 the second word of the digest
+     * @param d2 the third word of the digest
+     * @param d3 the fourth word of the digest
+     * @return the record index, or -1 if there is none
+     */
+    int find(long d0, long d1, long d2, long d3) {
+        int mask = digestIndex.length - 1;
+        for (int slot = digestHome(d0, mask); ; slot = (slot + 1) & mask) {
+            int entry = digestIndex[slot];
+            if (entry == 0) {
+                return NONE;
+            }
+            int base = (entry - 1) * STRIDE;
+            if (records[base + DIGEST_0] == d0 && records[base + DIGEST_1] == d1
+                    && records[base + DIGEST_2] == d2 && records[base + DIGEST_3] == d3) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Inserts a record, or overwrites the record with the same digest.
+     *
+     * @param words  the record, {@link #STRIDE} longs laid out as in the slab
+     * @param offset the index of the first word of the record in {@code words}
+     * @return the record index
+     */
+    int put(long[] words, int offset) {
+        int record = find(words[offset + DIGEST_0], words[offset + DIGEST_1], words[offset + DIGEST_2],
+                words[offset + DIGEST_3]);
+        if (record != NONE) {
+            unlinkUser(record);
+        } else {
+            record = allocate();
+            System.arraycopy(words, offset, records, record * STRIDE, DIGEST_WORDS);
+            if (size * LOAD_DENOMINATOR > digestIndex.length * LOAD_NUMERATOR) {
+                rehashDigests(digestIndex.length * 2);
+            } else {
+                insertDigest(record);
+            }
+        }
+        System.arraycopy(words, offset + DIGEST_WORDS, records, record * STRIDE + DIGEST_WORDS,
+                STRIDE - DIGEST_WORDS);
+        linkUser(record);
+        return record;
+    }
+
+    /**
+     * Removes a live record and bumps the generation of its index.
+     *
+     * @param record the record index
+     */
+    void remove(int record) {
+        removeDigest(record);
+        unlinkUser(record);
+        live[record] = false;
+        generations[record]++;
+        nextByUser[record] = freeHead;
+        freeHead = record;
+        size--;
+    }
+
+    /**
+     * Marks every record of the user that is not revoked yet as revoked.
+     *
+     * @param userMsb     the most significant bits of the user id
+     * @param userLsb     the least significant bits of the user id
+     * @param revokedAtMs the revocation time in epoch milliseconds
+     * @return the number of records revoked
+     */
+    int revokeAllForUser(long userMsb, long userLsb, long revokedAtMs) {
+        int slot = findUser(userMsb, userLsb);
+        if (slot == NONE) {
+            return 0;
+        }
+        int revoked = 0;
+        for (int record = userHeads[slot] - 1; record != NONE; record = nextByUser[record]) {
+            int at = record * STRIDE + REVOKED_AT;
+            if (records[at] == 0) {
+                records[at] = revokedAtMs;
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * Copies the live records into a packed array of {@link #STRIDE} longs per record.
+     *
+     * @return the live records
+     */
+    long[] copyLive() {
+        long[] copy = new long[size * STRIDE];
+        int out = 0;
+        for (int record = 0; record < highWater; record++) {
+            if (live[record]) {
+                System.arraycopy(records, record * STRIDE, copy, out, STRIDE);
+                out += STRIDE;
+            }
+        }
+        return copy;
+    }
+
+    private int allocate() {
+        int record;
+        if (freeHead != NONE) {
+            record = freeHead;
+            freeHead = nextByUser[record];
+        } else {
+            if (highWater == generations.length) {
+                grow();
+            }
+            record = highWater++;
+        }
+        live[record] = true;
+        size++;
+        return record;
+    }
+
+    private void grow() {
+        int capacity = generations.length * 2;
+        records = Arrays.copyOf(records, capacity * STRIDE);
+        generations = Arrays.copyOf(generations, capacity);
+        live = Arrays.copyOf(live, capacity);
+        nextByUser = Arrays.copyOf(nextByUser, capacity);
+        prevByUser = Arrays.copyOf(prevByUser, capacity);
+    }
+
+    // ---- digest index ----
+
+    private static int digestHome(long d0, int mask) {
+        // The digest is SHA-256 output, so its first word is already uniformly distributed
+        return (int) (d0 ^ (d0 >>> Integer.SIZE)) & mask;
+    }
+
+    private void insertDigest(int record) {
+        int mask = digestIndex.length - 1;
+        int slot = digestHome(records[record * STRIDE], mask);
+        while (digestIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        digestIndex[slot] = record + 1;
+    }
+
+    private void removeDigest(int record) {
+        int mask = digestIndex.length - 1;
+        int slot = digestHome(records[record * STRIDE], mask);
+        while (digestIndex[slot] != record + 1) {
+            slot = (slot + 1) & mask;
+        }
+        // Backward-shift deletion keeps probe sequences intact without tombstones
+        for (int next = (slot + 1) & mask; digestIndex[next] != 0; next = (next + 1) & mask) {
+            int home = digestHome(records[(digestIndex[next] - 1) * STRIDE], mask);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                digestIndex[slot] = digestIndex[next];
+                slot = next;
+            }
+        }
+        digestIndex[slot] = 0;
+    }
+
+    private void rehashDigests(int capacity) {
+        digestIndex = new int[capacity];
+        for (int record = 0; record < highWater; record++) {
+            if (live[record]) {
+                insertDigest(record);
+            }
+        }
+    }
+
+    // ---- user index ----
+
+    private static int userHome(long msb, long lsb, int mask) {
+        long h = (msb ^ lsb) * GOLDEN_GAMMA;
+        return (int) (h >>> Integer.SIZE) & mask;
+    }
+
+    private int findUser(long msb, long lsb) {
+        int mask = userHeads.length - 1;
+        for (int slot = userHome(msb, lsb, mask); ; slot = (slot + 1) & mask) {
+            if (userHeads[slot] == 0) {
+                return NONE;
+            }
+            if (userKeys[slot * 2] == msb && userKeys[slot * 2 + 1] == lsb) {
+                return slot;
+            }
+        }
+    }
+
+    private void linkUser(int record) {
+        long msb = userMsb(record);
+        long lsb = userLsb(record);
+        int slot = findUser(msb, lsb);
+        prevByUser[record] = NONE;
+        if (slot != NONE) {
+            int head = userHeads[slot] - 1;
+            nextByUser[record] = head;
+            prevByUser[head] = record;
+            userHeads[slot] = record + 1;
+            return;
+        }
+        nextByUser[record] = NONE;
+        if ((userCount + 1) * LOAD_DENOMINATOR > userHeads.length * LOAD_NUMERATOR) {
+            rehashUsers(userHeads.length * 2);
+        }
+        insertUser(msb, lsb, record + 1);
+        userCount++;
+    }
+
+    private void unlinkUser(int record) {
+        int prev = prevByUser[record];
+        int next = nextByUser[record];
+        if (next != NONE) {
+            prevByUser[next] = prev;
+        }
+        if (prev != NONE) {
+            nextByUser[prev] = next;
+            return;
+        }
+        int slot = findUser(userMsb(record), userLsb(record));
+        if (next != NONE) {
+            userHeads[slot] = next + 1;
+        } else {
+            removeUserSlot(slot);
+            userCount--;
+        }
+    }
+
+    private void insertUser(long msb, long lsb, int head) {
+        int mask = userHeads.length - 1;
+        int slot = userHome(msb, lsb, mask);
+        while (userHeads[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        userKeys[slot * 2] = msb;
+        userKeys[slot * 2 + 1] = lsb;
+        userHeads[slot] = head;
+    }
+
+    private void removeUserSlot(int slot) {
+        int mask = userHeads.length - 1;
+        for (int next = (slot + 1) & mask; userHeads[next] != 0; next = (next + 1) & mask) {
+            int home = userHome(userKeys[next * 2], userKeys[next * 2 + 1], mask);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                userKeys[slot * 2] = userKeys[next * 2];
+                userKeys[slot * 2 + 1] = userKeys[next * 2 + 1];
+                userHeads[slot] = userHeads[next];
+                slot = next;
+            }
+        }
+        userHeads[slot] = 0;
+    }
+
+    private void rehashUsers(int capacity) {
+        long[] oldKeys = userKeys;
+        int[] oldHeads = userHeads;
+        userKeys = new long[capacity * 2];
+        userHeads = new int[capacity];
+        for (int slot = 0; slot < oldHeads.length; slot++) {
+            if (oldHeads[slot] != 0) {
+                insertUser(oldKeys[slot * 2], oldKeys[slot * 2 + 1], oldHeads[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.User.store.memory;
+
+import com.example.User.entities.models.RefreshTokenRecord;
+import com.example.User.utility.TokenHasher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+import static com.example.User.store.memory.RecordTable.DIGEST_0;
+import static com.example.User.store.memory.RecordTable.DIGEST_1;
+import static com.example.User.store.memory.RecordTable.DIGEST_2;
+import static com.example.User.store.memory.RecordTable.DIGEST_3;
+
+/**
+ * In-memory refresh token engine.
+ *
+ * <p>Records live in a {@link RecordTable} keyed by the token digest and expire through a {@link TimingWheel},
+ * so expired tokens are dropped as they expire instead of by a periodic sweep. Every mutation is appended to a
+ * {@link RefreshTokenJournal} before it becomes visible; {@link #snapshot()} compacts the journal.
+ * Expirations are not journaled: records that are already expired are dropped again when the state is recovered.
+ *
+ * <p>Thread safe. Lookups share a read lock; mutations and ticks take the write lock.
+ */
+public final class RefreshTokenEngine implements Closeable {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+    private final RecordTable table;
+    private final TimingWheel wheel;
+    private final RefreshTokenJournal journal;
+    private final LongSupplier timeSource;
+    private final long msPerTick;
+    private final long[] scratch = new long[RecordTable.STRIDE];
+    private final TimingWheel.ExpiryHandler expiryHandler = this::expire;
+    private long expiredCount;
+
+    /**
+     * Recovers the engine from the snapshot and journal in {@code dataDirectory}.
+     *
+     * @param dataDirectory   the directory holding the snapshot and journal, created if missing
+     * @param tickMs          the resolution of expiry, in milliseconds
+     * @param initialCapacity the number of records to size the table for
+     * @param fsync           whether every journal record is forced to disk before the mutation returns
+     * @param clock           the current time in epoch milliseconds
+     * @throws IOException if the data directory cannot be read or written
+     */
+    public RefreshTokenEngine(Path dataDirectory, long tickMs, int initialCapacity, boolean fsync, LongSupplier clock)
+            throws IOException {
+        this.msPerTick = tickMs;
+        this.timeSource = clock;
+        this.table = new RecordTable(initialCapacity);
+        this.journal = RefreshTokenJournal.recover(dataDirectory, fsync, new TableReplay(table));
+        this.wheel = new TimingWheel(clock.getAsLong() / tickMs);
+        long now = clock.getAsLong();
+        for (int record = 0; record < table.highWater(); record++) {
+            if (!table.isLive(record)) {
+                continue;
+            }
+            if (table.expiresAt(record) <= now) {
+                table.remove(record);
+            } else {
+                wheel.schedule(reference(record), deadlineTick(table.expiresAt(record)));
+            }
+        }
+    }
+
+    /**
+     * Stores a token, replacing the token with the same digest.
+     *
+     * @param record the token
+     */
+    public void put(RefreshTokenRecord record) {
+        LongBuffer digest = digest(record.tokenHash());
+        lock.writeLock().lock();
+        try {
+            digest.get(0, scratch, 0, RecordTable.DIGEST_WORDS);
+            scratch[RecordTable.USER_MSB] = record.userId().getMostSignificantBits();
+            scratch[RecordTable.USER_LSB] = record.userId().getLeastSignificantBits();
+            scratch[RecordTable.EXPIRES_AT] = record.expiresAtMs();
+            scratch[RecordTable.REVOKED_AT] = record.revokedAtMs();
+            journal.appendPut(scratch, 0);
+            int index = table.put(scratch, 0);
+            wheel.schedule(reference(index), deadlineTick(record.expiresAtMs()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a token by digest.
+     *
+     * @param tokenHash the digest of the token
+     * @return the token, or {@code null} if there is none
+     */
+    public RefreshTokenRecord get(byte[] tokenHash) {
+        LongBuffer digest = digest(tokenHash);
+        lock.readLock().lock();
+        try {
+            int record = table.find(digest.get(DIGEST_0), digest.get(DIGEST_1), digest.get(DIGEST_2),
+                    digest.get(DIGEST_3));
+            if (record < 0) {
+                return null;
+            }
+            return RefreshTokenRecord.withoutUser(tokenHash.clone(),
+                    new UUID(table.userMsb(record), table.userLsb(record)),
+                    table.expiresAt(record),
+                    table.revokedAt(record));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Revokes every token of the user that is not revoked yet.
+     *
+     * @param userId      the id of the user
+     * @param revokedAtMs the revocation time in epoch milliseconds
+     * @return the number of tokens revoked
+     */
+    public int revokeAllForUser(UUID userId, long revokedAtMs) {
+        lock.writeLock().lock();
+        try {
+            journal.appendRevokeUser(userId.getMostSignificantBits(), userId.getLeastSignificantBits(), revokedAtMs);
+            return table.revokeAllForUser(userId.getMostSignificantBits(), userId.getLeastSignificantBits(),
+                    revokedAtMs);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a token.
+     *
+     * @param tokenHash the digest of the token
+     * @return whether the token existed
+     */
+    public boolean delete(byte[] tokenHash) {
+        LongBuffer digest = digest(tokenHash);
+        long d0 = digest.get(DIGEST_0);
+        long d1 = digest.get(DIGEST_1);
+        long d2 = digest.get(DIGEST_2);
+        long d3 = digest.get(DIGEST_3);
+        lock.writeLock().lock();
+        try {
+            int record = table.find(d0, d1, d2, d3);
+            if (record < 0) {
+                return false;
+            }
+            journal.appendDelete(d0, d1, d2, d3);
+            table.remove(record);
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the tokens that expired, or were revoked, before the threshold. The timing wheel already drops
+     * expired tokens, so this only finds tokens revoked long before they expire.
+     *
+     * @param thresholdMs the threshold in epoch milliseconds
+     * @return the number of tokens deleted
+     */
+    public int purgeOlderThan(long thresholdMs) {
+        lock.writeLock().lock();
+        try {
+            journal.appendPurge(thresholdMs);
+            return purge(table, thresholdMs);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Advances the timing wheel to the current time and drops the tokens that expired.
+     *
+     * @return the number of tokens that expired
+     */
+    public int tick() {
+        long now = timeSource.getAsLong() / msPerTick;
+        lock.writeLock().lock();
+        try {
+            long before = expiredCount;
+            wheel.advanceTo(now, expiryHandler);
+            return (int) (expiredCount - before);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the journal it replaces. Only the copy of the table
+     * is taken under the lock; the snapshot is written while the engine keeps serving.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long[] words;
+            long fromGeneration;
+            lock.writeLock().lock();
+            try {
+                fromGeneration = journal.rotate();
+                words = table.copyLive();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            journal.writeSnapshot(fromGeneration, words);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long expiredCount() {
+        lock.readLock().lock();
+        try {
+            return expiredCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void expire(long reference) {
+        int record = (int) (reference >>> Integer.SIZE);
+        // A removed record bumps its generation, so a stale wheel entry no longer matches; a token stored again
+        // under the same digest keeps its index but has its own, later deadline
+        if (table.isLive(record) && table.generation(record) == (int) reference
+                && deadlineTick(table.expiresAt(record)) <= wheel.currentTick()) {
+            table.remove(record);
+            expiredCount++;
+        }
+    }
+
+    private long reference(int record) {
+        return ((long) record << Integer.SIZE) | Integer.toUnsignedLong(table.generation(record));
+    }
+
+    private long deadlineTick(long expiresAtMs) {
+        return Math.floorDiv(expiresAtMs + msPerTick - 1, msPerTick);
+    }
+
+    private static int purge(RecordTable table, long thresholdMs) {
+        int purged = 0;
+        for (int record = 0; record < table.highWater(); record++) {
+            if (!table.isLive(record)) {
+                continue;
+            }
+            long revokedAt = table.revokedAt(record);
+            if (table.expiresAt(record) < thresholdMs || (revokedAt != 0 && revokedAt < thresholdMs)) {
+                table.remove(record);
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    private static LongBuffer digest(byte[] tokenHash) {
+        if (tokenHash == null || tokenHash.length != TokenHasher.DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Token hash must be a " + TokenHasher.DIGEST_LENGTH + "-byte digest");
+        }
+        return ByteBuffer.wrap(tokenHash).asLongBuffer();
+    }
+
+    /**
+     * Applies recovered operations to the table.
+     *
+     * @param table the table being recovered
+     */
+    private record TableReplay(RecordTable table) implements RefreshTokenJournal.Replay {
+
+        @Override
+        public void put(long[] words, int offset) {
+            table.put(words, offset);
+        }
+
+        @Override
+        public void revokeUser(long userMsb, long userLsb, long revokedAtMs) {
+            table.revokeAllForUser(userMsb, userLsb, revokedAtMs);
+        }
+
+        @Override
+        public void delete(long d0, long d1, long d2, long d3) {
+            int record = table.find(d0, d1, d2, d3);
+            if (record >= 0) {
+                table.remove(record);
+            }
+        }
+
+        @Override
+        public void purge(long thresholdMs) {
+            RefreshTokenEngine.purge(table, thresholdMs);
+        }
+    }
+}
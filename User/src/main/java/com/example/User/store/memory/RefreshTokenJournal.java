@@ -0,0 +1,327 @@
+package com.example.User.store.memory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log and snapshots of the in-memory refresh token engine.
+ *
+ * <p>The log is split into generations, {@code journal-<generation>.log}. Every record is an operation code,
+ * a fixed-size payload and a CRC32 of both. Taking a snapshot rotates the log to a new generation first;
+ * the snapshot then holds the state as of that rotation and names the generation from which the log has to be
+ * replayed, so older generations can be deleted once it is written. A record that was only partially written
+ * when the process died fails its CRC and is truncated on recovery, together with anything after it.
+ */
+@Slf4j
+final class RefreshTokenJournal implements Closeable {
+
+    static final byte OP_PUT = 1;
+    static final byte OP_REVOKE_USER = 2;
+    static final byte OP_DELETE = 3;
+    static final byte OP_PURGE = 4;
+
+    private static final int SNAPSHOT_MAGIC = 0x52545331;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SNAPSHOT_TMP_FILE = "snapshot.tmp";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int MAX_RECORD_SIZE = 1 + RecordTable.STRIDE * Long.BYTES + Integer.BYTES;
+    private static final int PUT_PAYLOAD = RecordTable.STRIDE * Long.BYTES;
+    private static final int REVOKE_USER_PAYLOAD = 3 * Long.BYTES;
+    private static final int DELETE_PAYLOAD = RecordTable.DIGEST_WORDS * Long.BYTES;
+    private static final int PURGE_PAYLOAD = Long.BYTES;
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Receives the operations read back from the snapshot and the log.
+     */
+    interface Replay {
+        void put(long[] words, int offset);
+
+        void revokeUser(long userMsb, long userLsb, long revokedAtMs);
+
+        void delete(long d0, long d1, long d2, long d3);
+
+        void purge(long thresholdMs);
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long generation;
+
+    private RefreshTokenJournal(Path dataDirectory, boolean forceWrites, long firstGeneration) throws IOException {
+        this.directory = dataDirectory;
+        this.fsync = forceWrites;
+        this.generation = firstGeneration;
+        this.channel = openGeneration(firstGeneration);
+    }
+
+    /**
+     * Restores the state from the snapshot and the log, then opens a new log generation for writing.
+     *
+     * @param directory the data directory, created if missing
+     * @param fsync     whether every record is forced to disk before the write returns
+     * @param replay    receives the recovered operations
+     * @return the journal, positioned for appending
+     * @throws IOException if the directory cannot be read or written
+     */
+    static RefreshTokenJournal recover(Path directory, boolean fsync, Replay replay) throws IOException {
+        Files.createDirectories(directory);
+        long firstGeneration = readSnapshot(directory.resolve(SNAPSHOT_FILE), replay);
+        long lastGeneration = firstGeneration - 1;
+        for (long journalGeneration : listGenerations(directory)) {
+            Path file = journalFile(directory, journalGeneration);
+            if (journalGeneration < firstGeneration) {
+                Files.deleteIfExists(file);
+            } else {
+                replayJournal(file, replay);
+                lastGeneration = Math.max(lastGeneration, journalGeneration);
+            }
+        }
+        return new RefreshTokenJournal(directory, fsync, Math.max(firstGeneration, lastGeneration + 1));
+    }
+
+    void appendPut(long[] words, int offset) throws IOException {
+        buffer.clear();
+        buffer.put(OP_PUT);
+        for (int i = 0; i < RecordTable.STRIDE; i++) {
+            buffer.putLong(words[offset + i]);
+        }
+        write();
+    }
+
+    void appendRevokeUser(long userMsb, long userLsb, long revokedAtMs) throws IOException {
+        buffer.clear();
+        buffer.put(OP_REVOKE_USER).putLong(userMsb).putLong(userLsb).putLong(revokedAtMs);
+        write();
+    }
+
+    void appendDelete(long d0, long d1, long d2, long d3) throws IOException {
+        buffer.clear();
+        buffer.put(OP_DELETE).putLong(d0).putLong(d1).putLong(d2).putLong(d3);
+        write();
+    }
+
+    void appendPurge(long thresholdMs) throws IOException {
+        buffer.clear();
+        buffer.put(OP_PURGE).putLong(thresholdMs);
+        write();
+    }
+
+    /**
+     * Closes the current generation and starts the next one.
+     *
+     * @return the new generation, from which the log has to be replayed on top of a snapshot taken now
+     */
+    long rotate() throws IOException {
+        channel.force(true);
+        channel.close();
+        generation++;
+        channel = openGeneration(generation);
+        return generation;
+    }
+
+    /**
+     * Writes a snapshot of packed records and deletes the log generations it covers.
+     *
+     * @param fromGeneration the generation returned by the {@link #rotate()} that preceded the copy
+     * @param words          the records, {@link RecordTable#STRIDE} longs each
+     */
+    void writeSnapshot(long fromGeneration, long[] words) throws IOException {
+        Path tmp = directory.resolve(SNAPSHOT_TMP_FILE);
+        CRC32 checksum = new CRC32();
+        try (OutputStream file = Files.newOutputStream(tmp);
+             CheckedOutputStream checked = new CheckedOutputStream(
+                     new BufferedOutputStream(file, STREAM_BUFFER_BYTES), checksum);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(fromGeneration);
+            out.writeInt(words.length / RecordTable.STRIDE);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            out.flush();
+            // The trailer is written past the checked stream so it does not cover itself
+            new DataOutputStream(file).writeLong(checksum.getValue());
+        }
+        try (FileChannel written = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long journalGeneration : listGenerations(directory)) {
+            if (journalGeneration < fromGeneration) {
+                Files.deleteIfExists(journalFile(directory, journalGeneration));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private void write() throws IOException {
+        crc.reset();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private FileChannel openGeneration(long journalGeneration) throws IOException {
+        return FileChannel.open(journalFile(directory, journalGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static Path journalFile(Path directory, long journalGeneration) {
+        return directory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+
+    private static List<Long> listGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(
+                            name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    log.warn("Ignoring unexpected file {} in the refresh token journal directory", name);
+                }
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    /**
+     * Loads the snapshot, if there is a valid one.
+     *
+     * @param file   the snapshot file
+     * @param replay receives the records of the snapshot
+     * @return the first log generation to replay on top of it
+     */
+    private static long readSnapshot(Path file, Replay replay) throws IOException {
+        long[] words;
+        long fromGeneration;
+        CRC32 checksum = new CRC32();
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(
+                     new CheckedInputStream(new BufferedInputStream(in, STREAM_BUFFER_BYTES), checksum))) {
+            if (data.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring refresh token snapshot {}: bad header", file);
+                return 0;
+            }
+            fromGeneration = data.readLong();
+            int count = data.readInt();
+            words = new long[Math.multiplyExact(count, RecordTable.STRIDE)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = data.readLong();
+            }
+            long expected = checksum.getValue();
+            if (data.readLong() != expected) {
+                log.warn("Ignoring refresh token snapshot {}: checksum mismatch", file);
+                return 0;
+            }
+        } catch (NoSuchFileException ex) {
+            return 0;
+        } catch (EOFException ex) {
+            log.warn("Ignoring refresh token snapshot {}: truncated", file);
+            return 0;
+        }
+        for (int offset = 0; offset < words.length; offset += RecordTable.STRIDE) {
+            replay.put(words, offset);
+        }
+        return fromGeneration;
+    }
+
+    private static void replayJournal(Path file, Replay replay) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate((int) in.size());
+            // Read the whole generation; each one only holds the operations between two snapshots
+            while (data.hasRemaining()) {
+                if (in.read(data) < 0) {
+                    break;
+                }
+            }
+            data.flip();
+            long[] words = new long[RecordTable.STRIDE];
+            CRC32 checksum = new CRC32();
+            while (data.hasRemaining()) {
+                int start = data.position();
+                int payload = payloadSize(data.get(start));
+                if (payload < 0 || data.remaining() < 1 + payload + Integer.BYTES) {
+                    truncate(in, file, start);
+                    return;
+                }
+                checksum.reset();
+                checksum.update(data.array(), start, 1 + payload);
+                if (data.getInt(start + 1 + payload) != (int) checksum.getValue()) {
+                    truncate(in, file, start);
+                    return;
+                }
+                byte op = data.get();
+                switch (op) {
+                    case OP_PUT -> {
+                        for (int i = 0; i < RecordTable.STRIDE; i++) {
+                            words[i] = data.getLong();
+                        }
+                        replay.put(words, 0);
+                    }
+                    case OP_REVOKE_USER -> replay.revokeUser(data.getLong(), data.getLong(), data.getLong());
+                    case OP_DELETE -> replay.delete(data.getLong(), data.getLong(), data.getLong(), data.getLong());
+                    default -> replay.purge(data.getLong());
+                }
+                data.getInt();
+            }
+        }
+    }
+
+    private static int payloadSize(byte op) {
+        return switch (op) {
+            case OP_PUT -> PUT_PAYLOAD;
+            case OP_REVOKE_USER -> REVOKE_USER_PAYLOAD;
+            case OP_DELETE -> DELETE_PAYLOAD;
+            case OP_PURGE -> PURGE_PAYLOAD;
+            default -> -1;
+        };
+    }
+
+    private static void truncate(FileChannel channel, Path file, long position) throws IOException {
+        log.warn("Truncating torn tail of refresh token journal {} at byte {} of {}", file, position, channel.size());
+        channel.truncate(position);
+        channel.force(true);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.User.store.memory;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel with {@value #LEVELS} levels of {@value #SLOTS} slots.
+ *
+ * <p>Level {@code L} slots span {@code 64^L} ticks, so the wheel covers {@code 64^4} ticks (about 194 days at
+ * one second per tick) with constant-time scheduling. Entries of a higher level cascade to lower levels when the
+ * lower levels wrap around. Deadlines beyond the horizon are parked in the top level and rescheduled when they
+ * cascade. Each entry is an opaque {@code long} reference together with its deadline tick; entries are never
+ * cancelled, the {@link ExpiryHandler} drops the ones that became stale.
+ *
+ * <p>Not thread safe; {@link RefreshTokenEngine} guards every access.
+ */
+final class TimingWheel {
+
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long HORIZON = 1L << (SLOT_BITS * LEVELS);
+    private static final int INITIAL_SLOT_LONGS = 8;
+
+    /**
+     * Receives the references whose deadline has been reached.
+     */
+    interface ExpiryHandler {
+        void expire(long reference);
+    }
+
+    /** Interleaved (reference, deadline tick) pairs per slot. */
+    private final long[][] slots = new long[LEVELS * SLOTS][];
+    private final int[] sizes = new int[LEVELS * SLOTS];
+    private long[] scratch = new long[INITIAL_SLOT_LONGS];
+    private long currentTick;
+    private int scheduled;
+
+    TimingWheel(long startTick) {
+        this.currentTick = startTick;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int scheduled() {
+        return scheduled;
+    }
+
+    /**
+     * Schedules a reference; a deadline that already passed fires on the next tick.
+     *
+     * @param reference    the reference handed to the handler once the deadline is reached
+     * @param deadlineTick the tick of the deadline
+     */
+    void schedule(long reference, long deadlineTick) {
+        place(reference, Math.max(deadlineTick, currentTick + 1));
+        scheduled++;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to and including {@code tick}.
+     *
+     * @param tick    the tick to advance to
+     * @param handler receives the references whose deadline is reached
+     * @return the number of references handed to the handler
+     */
+    int advanceTo(long tick, ExpiryHandler handler) {
+        int fired = 0;
+        while (currentTick < tick) {
+            currentTick++;
+            int level = 0;
+            while (level + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            for (; level > 0; level--) {
+                cascade(level);
+            }
+            fired += fire(handler);
+        }
+        return fired;
+    }
+
+    private void cascade(int level) {
+        int index = level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        int count = detach(index);
+        long[] entries = scratch;
+        for (int i = 0; i < count; i += 2) {
+            place(entries[i], entries[i + 1]);
+        }
+    }
+
+    private int fire(ExpiryHandler handler) {
+        int index = (int) (currentTick & SLOT_MASK);
+        int count = detach(index);
+        long[] entries = scratch;
+        int fired = 0;
+        for (int i = 0; i < count; i += 2) {
+            if (entries[i + 1] <= currentTick) {
+                scheduled--;
+                fired++;
+                handler.expire(entries[i]);
+            } else {
+                // Parked beyond the horizon; goes back to a higher level
+                place(entries[i], entries[i + 1]);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Swaps the slot's entries into {@link #scratch} and empties the slot.
+     *
+     * @param index the slot
+     * @return the number of longs moved
+     */
+    private int detach(int index) {
+        int count = sizes[index];
+        if (count == 0) {
+            return 0;
+        }
+        long[] entries = slots[index];
+        slots[index] = scratch;
+        scratch = entries;
+        sizes[index] = 0;
+        return count;
+    }
+
+    private void place(long reference, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        long slotTick = delta < HORIZON ? deadlineTick : currentTick + HORIZON - 1;
+        delta = slotTick - currentTick;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = level * SLOTS + (int) ((slotTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        long[] entries = slots[index];
+        int size = sizes[index];
+        if (entries == null) {
+            entries = new long[INITIAL_SLOT_LONGS];
+            slots[index] = entries;
+        } else if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+            slots[index] = entries;
+        }
+        entries[size] = reference;
+        entries[size + 1] = deadlineTick;
+        sizes[index] = size + 2;
+    }
+}
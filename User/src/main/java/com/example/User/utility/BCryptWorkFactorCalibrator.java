@@ -0,0 +1,74 @@
+package com.example.User.utility;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the BCrypt cost for the host at startup.
+ * The hash time is measured for increasing costs and the highest cost whose hash fits the
+ * latency budget is chosen, never going below the minimum required by SECURITY.md.
+ */
+@Slf4j
+@Component
+public final class BCryptWorkFactorCalibrator {
+
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private final long targetLatencyMs;
+    private final int minStrength;
+    private final int maxStrength;
+    private final int pinnedStrength;
+
+    public BCryptWorkFactorCalibrator(@Value("${security.password-hashing.target-latency-ms:250}") long latencyBudgetMs,
+                                      @Value("${security.password-hashing.min-strength:10}") int minimumStrength,
+                                      @Value("${security.password-hashing.max-strength:14}") int maximumStrength,
+                                      @Value("${security.password-hashing.strength:0}") int strength) {
+        this.targetLatencyMs = latencyBudgetMs;
+        this.minStrength = minimumStrength;
+        this.maxStrength = Math.max(minimumStrength, maximumStrength);
+        this.pinnedStrength = strength;
+    }
+
+    /**
+     * Returns the configured strength if one is pinned, otherwise measures the host and picks one.
+     *
+     * @return the BCrypt cost to use
+     */
+    public int calibrate() {
+        if (pinnedStrength > 0) {
+            if (pinnedStrength < minStrength) {
+                throw new IllegalStateException("security.password-hashing.strength must be at least " + minStrength);
+            }
+            return pinnedStrength;
+        }
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long millis = measure(strength);
+            log.info("BCrypt calibration: cost {} takes {} ms", strength, millis);
+            if (millis > targetLatencyMs) {
+                break;
+            }
+            chosen = strength;
+        }
+        log.info("BCrypt calibration: using cost {} for a {} ms budget", chosen, targetLatencyMs);
+        return chosen;
+    }
+
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
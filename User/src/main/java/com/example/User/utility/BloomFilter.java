@@ -0,0 +1,115 @@
+package com.example.User.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings: {@link #mightContain(String)} never misses a string that was added, and
+ * reports a string that was not added with roughly the false positive probability the filter was sized for.
+ *
+ * <p>The k bit positions come from one 64-bit hash by double hashing (Kirsch and Mitzenmacher), and bits are set
+ * with a CAS per word, so concurrent adds are never lost.
+ */
+public final class BloomFilter {
+
+    /** log2 of the bits in a word. */
+    private static final int WORD_SHIFT = 6;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray(Math.toIntExact((bits + Long.SIZE - 1) >>> WORD_SHIFT));
+        this.bitCount = (long) words.length() << WORD_SHIFT;
+        this.hashCount = hashes;
+    }
+
+    /**
+     * Creates a filter sized for the given number of strings and false positive probability.
+     *
+     * @param expectedInsertions the number of strings the filter is expected to hold
+     * @param fpp                the false positive probability at that number, between 0 and 1 exclusive
+     * @return an empty filter
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1: " + fpp);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = Math.max(Long.SIZE, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        // Bit positions are derived from ints
+        bits = Math.min(bits, Integer.MAX_VALUE);
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> Integer.SIZE);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> WORD_SHIFT);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    break;
+                }
+                current = witness;
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> Integer.SIZE);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> WORD_SHIFT)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the filter in bits
+     */
+    public long bitSize() {
+        return bitCount;
+    }
+
+    private long index(int combined) {
+        // Flip negative values instead of taking the absolute value, which is negative for MIN_VALUE
+        return (combined < 0 ? ~combined : combined) % bitCount;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that both halves are well distributed.
+     *
+     * @param value the string to hash
+     * @return the 64-bit hash
+     */
+    private static long hash(String value) {
+        long h = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= Byte.toUnsignedInt(b);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_2;
+        h ^= h >>> MIX_SHIFT;
+        return h;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.User.utility;
+
+import lombok.Getter;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a rehash when a stored hash was produced with a lower cost, so stored hashes follow
+ * the calibrated work factor up. Nodes may calibrate to different costs, so hashes are never moved down: a node
+ * with a lower cost would otherwise undo the rehash of a node with a higher one on every login.
+ */
+@Getter
+public final class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    // A hash reads $2a$10$...: the version between the first two '$', then the two-digit cost
+    private static final int VERSION_END = 3;
+    private static final int COST_TENS = 4;
+    private static final int COST_UNITS = 5;
+    private static final int COST_END = 6;
+    private static final int RADIX = 10;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int cost) {
+        super(cost);
+        this.strength = cost;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost < strength;
+    }
+
+    /**
+     * Reads the cost from a hash of the form {@code $2a$10$...}.
+     *
+     * @param encodedPassword the stored hash
+     * @return the cost, or -1 if the hash is not a BCrypt hash
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() <= COST_END
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(VERSION_END) != '$'
+                || encodedPassword.charAt(COST_END) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(COST_TENS);
+        char units = encodedPassword.charAt(COST_UNITS);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * RADIX + (units - '0');
+    }
+}
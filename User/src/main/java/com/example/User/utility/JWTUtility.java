@@ -1,30 +1,59 @@
 package com.example.User.utility;
 
 import com.example.User.customExceptions.InvalidJwtException;
+import com.example.User.entities.models.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 
 @Component
-public class JWTUtility {
+public class JWTUtility implements MeterBinder {
+
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERSION_CLAIM = "ver";
 
     private final Key key;
+    private final JwtParser parser;
+    private final Cache<TokenDigest, VerifiedToken> verifiedTokens;
     @Getter
     private final long jwtExpirationInMs;
 
-    public JWTUtility( @Value("${jwt.secret}") String secret, @Value("${jwt.expiration-ms}") long jwtExpirationInMs){
+    public JWTUtility(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.expiration-ms}") long jwtExpirationInMs,
+                      @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+                      @Value("${jwt.verified-cache.ttl-ms:60000}") long verifiedCacheTtlMs) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
         this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(verifiedCacheTtlMs)))
+                .recordStats()
+                .build();
     }
 
     public String generateToken(String username, Map<String, Object> extraClaims) {
@@ -40,38 +69,139 @@ public class JWTUtility {
                 .compact();
     }
 
+    /**
+     * Generates an access token carrying the roles and version of the user,
+     * so the token can be authenticated without loading the user.
+     *
+     * @param username the subject of the token
+     * @param roles    the role names granted to the user
+     * @param version  the current version of the user
+     * @return the signed token
+     */
+    public String generateToken(String username, Collection<String> roles, long version) {
+        return generateToken(username, Map.of(ROLES_CLAIM, List.copyOf(roles), VERSION_CLAIM, version));
+    }
+
     public boolean isTokenValid(String token, String username) {
 
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            final String sub = claims.getSubject();
-            return (sub.equals(username)) && !isTokenExpired(token);
+            return verify(token).subject().equals(username);
         } catch ( JwtException e) {
             throw new InvalidJwtException("Invalid JWT token", e);
         }
 
     }
 
-    private boolean isTokenExpired(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        Date exp = claims.getExpiration();
-        return exp.before(new Date());
+    public String extractUsername(String token) {
+        return verify(token).subject();
     }
 
-    public String extractUsername(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+    /**
+     * Verifies the token signature and expiry once and returns its claims.
+     * Recently verified tokens are served from a bounded cache keyed by the token digest,
+     * so repeated bearer tokens skip signature verification and claim parsing.
+     *
+     * @param token the JWT token
+     * @return the verified claims
+     * @throws JwtException if the token is invalid or expired
+     */
+    public VerifiedToken verify(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verified = toVerifiedToken(parser.parseClaimsJws(token).getBody());
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+
+    /**
+     * Returns the number of verifications served from the verified-token cache.
+     *
+     * @return the hit count
+     */
+    public long getVerifiedTokenCacheHits() {
+        return verifiedTokens.stats().hitCount();
+    }
+
+    /**
+     * Returns the number of verifications that had to check the token signature.
+     *
+     * @return the miss count
+     */
+    public long getVerifiedTokenCacheMisses() {
+        return verifiedTokens.stats().missCount();
+    }
+
+    /**
+     * Publishes the size, hit and miss counts of the verified-token cache.
+     *
+     * @param registry the registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt.verified-tokens");
+    }
+
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(claims.getSubject(),
+                roleNames(claims.get(ROLES_CLAIM)),
+                claims.get(VERSION_CLAIM, Long.class),
+                claims.getExpiration().getTime());
+    }
+
+    private static List<String> roleNames(Object roles) {
+        if (!(roles instanceof List<?> roleList)) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(roleList.size());
+        for (Object role : roleList) {
+            if (!(role instanceof String roleName)) {
+                return null;
+            }
+            names.add(roleName);
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * SHA-256 digest of a token, used as the cache key so raw tokens are not retained.
+     *
+     * @param w0 the first word of the digest
+     * @param w1 the second word of the digest
+     * @param w2 the third word of the digest
+     * @param w3 the fourth word of the digest
+     */
+    private record TokenDigest(long w0, long w1, long w2, long w3) {
+        static TokenDigest of(String token) {
+            ByteBuffer hash = ByteBuffer.wrap(TokenHasher.sha256(token));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    /**
+     * Expires cached tokens after the configured TTL, but never later than the token's own expiry.
+     *
+     * @param ttlNanos the configured TTL in nanoseconds
+     */
+    private record TokenExpiry(long ttlNanos) implements Expiry<TokenDigest, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(TokenDigest digest, VerifiedToken value, long currentTime) {
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(value.expiresAtMs() - System.currentTimeMillis());
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest digest, VerifiedToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(digest, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest digest, VerifiedToken value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.example.User.utility;
+
+import com.example.User.customExceptions.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded worker pool for password hashing and verification.
+ * Keeping BCrypt off the request threads and rejecting work once the queue is full stops a
+ * login burst from starving the cheap endpoints.
+ */
+@Component
+public final class PasswordHashingExecutor implements MeterBinder, DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejections;
+
+    public PasswordHashingExecutor(
+            @Value("${security.password-hashing.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+            int poolSize,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-hashing.retry-after-seconds:1}") long retryAfter) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfter;
+    }
+
+    /**
+     * Runs a password encoding on the hashing pool and waits for its result.
+     *
+     * @param task the encoding to run
+     * @return the encoded password
+     * @throws PasswordHashingOverloadedException if the queue is full
+     */
+    public String encode(Supplier<String> task) {
+        return run(task, encodeTimer);
+    }
+
+    /**
+     * Runs a password verification on the hashing pool and waits for its result.
+     *
+     * @param task the verification to run
+     * @return true if the password matches, false otherwise
+     * @throws PasswordHashingOverloadedException if the queue is full
+     */
+    public boolean matches(Supplier<Boolean> task) {
+        return run(task, matchesTimer);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encodeTimer = Timer.builder("password.hashing.latency")
+                .tag("operation", "encode")
+                .description("Time spent hashing passwords")
+                .register(registry);
+        matchesTimer = Timer.builder("password.hashing.latency")
+                .tag("operation", "matches")
+                .description("Time spent verifying passwords")
+                .register(registry);
+        rejections = Counter.builder("password.hashing.rejected")
+                .description("Hashing requests rejected because the queue was full")
+                .register(registry);
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashing requests waiting for a worker")
+                .register(registry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Workers currently hashing")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Supplier<T> task, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer == null ? task.get() : timer.record(task));
+        } catch (RejectedExecutionException ex) {
+            if (rejections != null) {
+                rejections.increment();
+            }
+            throw new PasswordHashingOverloadedException(retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+}
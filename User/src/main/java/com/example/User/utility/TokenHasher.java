@@ -0,0 +1,56 @@
+package com.example.User.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hashing of tokens with a per-thread digest and encoding buffer.
+ * ASCII tokens (UUIDs, JWTs) are fed to the digest without building intermediate strings or byte arrays.
+ */
+public final class TokenHasher {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private static final int INITIAL_BUFFER_BYTES = 128;
+    private static final char MAX_ASCII = 0x7F;
+
+    private static final ThreadLocal<TokenHasher> HASHERS = ThreadLocal.withInitial(TokenHasher::new);
+
+    private final MessageDigest digest;
+    private byte[] buffer = new byte[INITIAL_BUFFER_BYTES];
+
+    private TokenHasher() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Hashes a token with SHA-256.
+     *
+     * @param token the token to hash
+     * @return the 32-byte digest of the UTF-8 encoded token
+     */
+    public static byte[] sha256(CharSequence token) {
+        return HASHERS.get().hash(token);
+    }
+
+    private byte[] hash(CharSequence token) {
+        int length = token.length();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > MAX_ASCII) {
+                return digest.digest(token.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            buffer[i] = (byte) c;
+        }
+        digest.update(buffer, 0, length);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.User.wallet;
+
+import com.example.User.entities.WalletTransaction;
+import com.example.User.utility.UuidBytes;
+import com.example.User.utility.UuidV7;
+import com.example.User.wallet.journal.LedgerRecord;
+import com.example.User.wallet.journal.TransferLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the transaction history of the wallets, the wallet_transactions rows read by
+ * {@link com.example.User.service.TransactionHistoryService}, for every operation of the transfer engine that
+ * moves money: a deposit is one CREDIT entry, a transfer one DEBIT entry in the source wallet and one CREDIT entry
+ * in the destination wallet. Opening a wallet moves no money and writes nothing.
+ *
+ * <p>An operation is written once the log it wraps made it durable, so the history never shows an operation the
+ * journal lost, and it is acknowledged once its entries are committed too. Entries are queued and written by one
+ * writer thread, which inserts whatever is queued, up to {@code maxBatch} operations, in one JDBC batch and one
+ * transaction, so concurrent transfers share round trips. The engine keys wallets by user id; the entries are
+ * keyed by the id of the user's row in wallets, which the insert looks up.
+ *
+ * <p>A batch that cannot be written fails its operations, and the engine fails stop, as for the journal. The
+ * journal has the operations of that batch, but the history does not get them back after the restart.
+ */
+@Slf4j
+public final class TransactionHistoryLog implements TransferLog, AutoCloseable {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private static final String INSERT_ENTRY = "INSERT INTO wallet_transactions "
+            + "(id, wallet_id, type, direction, amount, counterparty_wallet_id, created_at) "
+            + "SELECT ?, w.id, ?, ?, ?, (SELECT c.id FROM wallets c WHERE c.user_id = ?), ? "
+            + "FROM wallets w WHERE w.user_id = ?";
+
+    private final TransferLog delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param durableLog    the log that makes operations durable first, such as the journal
+     * @param template      writes the entries
+     * @param batchTemplate the transaction of a batch
+     * @param batchLimit    the maximum number of operations per batch
+     */
+    public TransactionHistoryLog(TransferLog durableLog, JdbcTemplate template,
+                                 TransactionTemplate batchTemplate, int batchLimit) {
+        this.delegate = durableLog;
+        this.jdbcTemplate = template;
+        this.transactionTemplate = batchTemplate;
+        this.maxBatch = batchLimit;
+        this.writer = new Thread(this::writeLoop, "wallet-history-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> append(LedgerRecord record) {
+        CompletableFuture<Void> durable = delegate.append(record);
+        if (record.type() == LedgerRecord.Type.OPEN) {
+            return durable;
+        }
+        return durable.thenCompose(ignored -> {
+            PendingRecord pending = new PendingRecord(record, new CompletableFuture<>());
+            if (!running) {
+                pending.written().completeExceptionally(
+                        new RejectedExecutionException("The transaction history log is closed"));
+            } else {
+                queue.add(pending);
+            }
+            return pending.written();
+        });
+    }
+
+    /**
+     * Writes the entries still queued and stops the writer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException ex) {
+                // Interrupted by close: write the entries still queued
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingRecord> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size() * 2);
+        for (PendingRecord pending : batch) {
+            LedgerRecord record = pending.record();
+            Timestamp createdAt = new Timestamp(record.timestampMs());
+            if (record.type() == LedgerRecord.Type.DEPOSIT) {
+                rows.add(entry(record.to(), null, WalletTransaction.Type.DEPOSIT, WalletTransaction.Direction.CREDIT,
+                        record.amount(), createdAt));
+            } else {
+                rows.add(entry(record.from(), record.to(), WalletTransaction.Type.TRANSFER,
+                        WalletTransaction.Direction.DEBIT, record.amount(), createdAt));
+                rows.add(entry(record.to(), record.from(), WalletTransaction.Type.TRANSFER,
+                        WalletTransaction.Direction.CREDIT, record.amount(), createdAt));
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_ENTRY, rows));
+        } catch (RuntimeException ex) {
+            log.error("Could not write the transaction history of {} wallet operations", batch.size(), ex);
+            for (PendingRecord pending : batch) {
+                pending.written().completeExceptionally(ex);
+            }
+            return;
+        }
+        for (PendingRecord pending : batch) {
+            pending.written().complete(null);
+        }
+    }
+
+    private static Object[] entry(UUID walletUserId, UUID counterpartyUserId, WalletTransaction.Type type,
+                                  WalletTransaction.Direction direction, long amount, Timestamp createdAt) {
+        return new Object[] {
+                UuidBytes.toBytes(UuidV7.next()),
+                type.name(),
+                direction.name(),
+                amount,
+                counterpartyUserId == null ? null : UuidBytes.toBytes(counterpartyUserId),
+                createdAt,
+                UuidBytes.toBytes(walletUserId)};
+    }
+
+    private record PendingRecord(LedgerRecord record, CompletableFuture<Void> written) {
+    }
+}
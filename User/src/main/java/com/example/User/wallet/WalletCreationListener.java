@@ -0,0 +1,89 @@
+package com.example.User.wallet;
+
+import com.example.User.entities.models.WalletCreationEvent;
+import com.example.User.wallet.engine.TransferEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Consumes wallet creation events in batches and hands each batch to the {@link WalletProvisioner}.
+ * Offsets of a batch are committed only after the listener returns, that is after its wallets were committed.
+ * When the transfer engine is enabled, the committed wallets are opened in it as well.
+ * A batch that cannot be written is written again event by event, so that the error handler learns which event
+ * fails: the events before it are committed, and only that one is retried and eventually dead-lettered.
+ * An event that could not be deserialized fails the batch at its index the same way, once the events before it
+ * are written, carrying the DeserializationException so that it is dead-lettered without retries.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.provisioning.enabled", havingValue = "true", matchIfMissing = true)
+public final class WalletCreationListener {
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(WalletCreationListener.class);
+
+    private final WalletProvisioner walletProvisioner;
+    private final ObjectProvider<TransferEngine> transferEngine;
+
+    public WalletCreationListener(WalletProvisioner provisioner,
+                                  ObjectProvider<TransferEngine> engine) {
+        this.walletProvisioner = provisioner;
+        this.transferEngine = engine;
+    }
+
+    @KafkaListener(topics = "${wallet.provisioning.topic:wallet-creation-topic}",
+            groupId = "${wallet.provisioning.group-id:wallet-provisioning}",
+            containerFactory = "walletCreationListenerContainerFactory")
+    public void onWalletCreationEvents(List<ConsumerRecord<String, WalletCreationEvent>> records) {
+        int unreadable = 0;
+        while (unreadable < records.size() && records.get(unreadable).value() != null) {
+            unreadable++;
+        }
+        List<ConsumerRecord<String, WalletCreationEvent>> readable = records.subList(0, unreadable);
+        List<WalletCreationEvent> events = readable.stream().map(ConsumerRecord::value).toList();
+        try {
+            walletProvisioner.provision(events);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to provision a batch of {} wallets; provisioning them one by one", events.size(), ex);
+            provisionOneByOne(readable);
+        }
+        open(events);
+        if (unreadable < records.size()) {
+            ConsumerRecord<String, WalletCreationEvent> record = records.get(unreadable);
+            log.error("Unreadable wallet creation event at {}-{}@{}", record.topic(), record.partition(),
+                    record.offset());
+            throw new BatchListenerFailedException("Unreadable wallet creation event",
+                    SerializationUtils.getExceptionFromHeader(record,
+                            SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR), unreadable);
+        }
+    }
+
+    private void provisionOneByOne(List<ConsumerRecord<String, WalletCreationEvent>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            WalletCreationEvent event = records.get(i).value();
+            try {
+                walletProvisioner.provision(List.of(event));
+            } catch (DataAccessException ex) {
+                open(records.subList(0, i).stream().map(ConsumerRecord::value).toList());
+                throw new BatchListenerFailedException("Failed to provision the wallet of user " + event.getUserId(),
+                        ex, i);
+            }
+        }
+    }
+
+    private void open(List<WalletCreationEvent> events) {
+        // Opening is idempotent, so redelivered events are harmless here too
+        transferEngine.ifAvailable(engine -> events.stream()
+                .filter(event -> event.getUserId() != null)
+                .forEach(event -> engine.openWallet(event.getUserId())));
+    }
+}
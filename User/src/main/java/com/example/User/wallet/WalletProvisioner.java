@@ -0,0 +1,118 @@
+package com.example.User.wallet;
+
+import com.example.User.entities.models.WalletCreationEvent;
+import com.example.User.repository.WalletRepository;
+import com.example.User.utility.UuidBytes;
+import com.example.User.utility.UuidV7;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates wallets for a batch of WalletCreationEvents with one lookup and one JDBC batch insert.
+ *
+ * <p>Events are delivered at least once, so creation is idempotent on the user id: duplicates within the batch
+ * are collapsed and users that already have a wallet are skipped. The lookup cannot race with another insert
+ * for the same user, because events are keyed by user id and every partition has a single consumer.
+ */
+@Slf4j
+@Component
+public class WalletProvisioner implements MeterBinder {
+
+    private static final String INSERT_WALLET = "INSERT INTO wallets "
+            + "(id, user_id, phone_number, balance, created_at, version) VALUES (?, ?, ?, 0, ?, 0)";
+
+    private final WalletRepository walletRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private Counter created;
+    private Counter duplicates;
+    private DistributionSummary batchSizes;
+    private Timer batchLatency;
+
+    public WalletProvisioner(WalletRepository repository, JdbcTemplate template) {
+        this.walletRepository = repository;
+        this.jdbcTemplate = template;
+    }
+
+    /**
+     * Creates the wallets of a batch in one transaction.
+     *
+     * @param events the events, possibly with duplicates
+     * @return the number of wallets created
+     */
+    @Transactional
+    public int provision(List<WalletCreationEvent> events) {
+        long started = System.nanoTime();
+        Map<UUID, WalletCreationEvent> byUser = new LinkedHashMap<>();
+        for (WalletCreationEvent event : events) {
+            if (event.getUserId() == null) {
+                log.warn("Skipping wallet creation event without a user id");
+                continue;
+            }
+            byUser.putIfAbsent(event.getUserId(), event);
+        }
+        if (!byUser.isEmpty()) {
+            Set<UUID> existing = new HashSet<>(walletRepository.findExistingUserIds(byUser.keySet()));
+            byUser.keySet().removeAll(existing);
+        }
+
+        List<Object[]> rows = new ArrayList<>(byUser.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (WalletCreationEvent event : byUser.values()) {
+            rows.add(new Object[] {
+                    UuidBytes.toBytes(UuidV7.next()),
+                    UuidBytes.toBytes(event.getUserId()),
+                    event.getPhoneNumber(),
+                    now});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_WALLET, rows);
+        }
+
+        if (batchSizes != null) {
+            batchSizes.record(events.size());
+            created.increment(rows.size());
+            duplicates.increment(events.size() - rows.size());
+            batchLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Registers the provisioning counters and the batch size and latency distributions.
+     *
+     * @param registry the registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        created = Counter.builder("wallets.provisioning.created")
+                .description("Wallets created from wallet creation events")
+                .register(registry);
+        duplicates = Counter.builder("wallets.provisioning.duplicates")
+                .description("Wallet creation events skipped because the user already has a wallet")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("wallets.provisioning.batch.size")
+                .description("Wallet creation events per consumed batch")
+                .register(registry);
+        batchLatency = Timer.builder("wallets.provisioning.batch.latency")
+                .description("Time to look up and insert the wallets of one batch")
+                .register(registry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.User.wallet.engine;
+
+import com.example.User.wallet.journal.LedgerRecord;
+import com.example.User.wallet.journal.TransferLog;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two-phase transfer between wallets of different shards.
+ *
+ * <p>Phase one runs on both shards at once: the source holds the amount if it is available, and the destination
+ * checks that the wallet exists. The shard that votes last decides: on two yes votes the source turns its hold
+ * into a debit and the destination credits the amount, otherwise a granted hold is released. Held funds cannot be
+ * spent by other transfers, so the source balance never goes negative whatever the interleaving. The transfer
+ * completes once both sides applied it and the transfer log made it durable. The sides apply it without waiting for
+ * the log; if the append fails, the engine fails stop, so the applied sides are never read.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+final class CrossShardTransfer {
+
+    private final UUID from;
+    private final UUID to;
+    private final long amount;
+    private final WalletShard source;
+    private final WalletShard destination;
+    private final TransferLog transferLog;
+    private final CompletableFuture<TransferResult> result;
+    private final AtomicInteger pendingVotes = new AtomicInteger(2);
+    /** The debit, the credit, and the journal append. */
+    private final AtomicInteger pendingCommits = new AtomicInteger(3);
+    private volatile TransferResult sourceVote;
+    private volatile TransferResult destinationVote;
+
+    void start() {
+        source.submit(this::prepareDebit);
+        destination.submit(this::prepareCredit);
+    }
+
+    private void prepareDebit() {
+        sourceVote = source.reserve(from, amount);
+        vote();
+    }
+
+    private void prepareCredit() {
+        destinationVote = destination.exists(to) ? TransferResult.COMPLETED : TransferResult.UNKNOWN_WALLET;
+        vote();
+    }
+
+    private void vote() {
+        if (pendingVotes.decrementAndGet() > 0) {
+            return;
+        }
+        if (sourceVote == TransferResult.COMPLETED && destinationVote == TransferResult.COMPLETED) {
+            // Appended before either side applies it, so it precedes every operation that depends on it
+            transferLog.append(LedgerRecord.transfer(from, to, amount)).whenComplete((ignored, error) -> {
+                if (error == null) {
+                    committed();
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            source.decide(this::commitDebit);
+            destination.decide(this::commitCredit);
+        } else if (sourceVote == TransferResult.COMPLETED) {
+            source.decide(this::releaseDebit);
+        } else {
+            result.complete(sourceVote);
+        }
+    }
+
+    private void commitDebit() {
+        source.commitReserved(from, amount);
+        committed();
+    }
+
+    private void commitCredit() {
+        destination.credit(to, amount);
+        committed();
+    }
+
+    private void committed() {
+        if (pendingCommits.decrementAndGet() == 0) {
+            result.complete(TransferResult.COMPLETED);
+        }
+    }
+
+    private void releaseDebit() {
+        source.release(from, amount);
+        result.complete(destinationVote);
+    }
+}
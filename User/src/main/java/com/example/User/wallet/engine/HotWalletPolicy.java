@@ -0,0 +1,35 @@
+package com.example.User.wallet.engine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the {@link TransferEngine} splits a hot wallet into sub-balances on several shards.
+ *
+ * <p>A wallet is hot when it was touched by at least {@code touchesPerWindow} operations within one window of
+ * {@code windowMillis} while its shard had at least {@code minQueueDepth} commands waiting: it then takes a
+ * large share of a shard that is falling behind, and every operation on it waits behind the others.
+ *
+ * @param parts            the number of sub-balances of a split wallet, at most the number of shards; 1 disables
+ *                         splitting
+ * @param windowMillis     the length of a measurement window
+ * @param touchesPerWindow the operations on one wallet within a window that make it a candidate
+ * @param minQueueDepth    the backlog of its shard from which a candidate is split
+ */
+public record HotWalletPolicy(int parts, long windowMillis, int touchesPerWindow, int minQueueDepth) {
+
+    public static final HotWalletPolicy DISABLED = new HotWalletPolicy(1, 100, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    public HotWalletPolicy {
+        if (parts < 1 || windowMillis < 1 || touchesPerWindow < 1 || minQueueDepth < 0) {
+            throw new IllegalArgumentException("Invalid hot wallet policy");
+        }
+    }
+
+    public boolean enabled() {
+        return parts > 1;
+    }
+
+    long windowNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.User.wallet.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, after Dmitry Vyukov's bounded queue.
+ *
+ * <p>Each slot carries a sequence number telling whose turn it is: producers claim a position with one CAS on
+ * the tail and publish the element by advancing the slot's sequence, and the consumer frees the slot by moving its
+ * sequence one lap ahead. Producers never wait on each other beyond the CAS, and the consumer needs no CAS at all.
+ *
+ * @param <E> the element type
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Written by the consumer only; volatile so that {@link #size()} can be read from other threads. */
+    private volatile long head;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element if there is room. Safe to call from any thread.
+     *
+     * @param element the element to add
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code limit} elements in order. Must only be called by the consumer thread.
+     *
+     * @param consumer receives the elements
+     * @param limit    the maximum number of elements to remove
+     * @return the number of elements removed
+     */
+    int drain(Consumer<? super E> consumer, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            E element = elements.get(index);
+            elements.lazySet(index, null);
+            sequences.set(index, position + mask + 1);
+            head = ++position;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    /**
+     * @return the number of queued elements, approximate while producers or the consumer are active
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
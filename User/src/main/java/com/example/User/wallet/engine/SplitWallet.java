@@ -0,0 +1,51 @@
+package com.example.User.wallet.engine;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A hot wallet whose balance is spread over sub-balances on consecutive shards, starting with its own. Every
+ * sub-balance is an ordinary account under the wallet id on its shard, so single-shard and two-phase transfers
+ * work on it unchanged; the wallet balance is their sum.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+final class SplitWallet {
+
+    private final UUID walletId;
+    private final WalletShard[] parts;
+
+    UUID walletId() {
+        return walletId;
+    }
+
+    WalletShard[] parts() {
+        return parts;
+    }
+
+    /**
+     * Picks the sub-balance for a transfer with another wallet: the one on the shard of the other side if there
+     * is one, which makes the transfer a single-shard command, otherwise one chosen by the other wallet's hash.
+     *
+     * @param counterpartShard the shard of the other side of the transfer
+     * @param counterpart      the other wallet
+     * @return the shard of the sub-balance to use
+     */
+    WalletShard partFor(int counterpartShard, UUID counterpart) {
+        for (WalletShard part : parts) {
+            if (part.index() == counterpartShard) {
+                return part;
+            }
+        }
+        return parts[Math.floorMod(counterpart.hashCode(), parts.length)];
+    }
+
+    /**
+     * @return a random sub-balance, for deposits, which have no other side
+     */
+    WalletShard anyPart() {
+        return parts[ThreadLocalRandom.current().nextInt(parts.length)];
+    }
+}
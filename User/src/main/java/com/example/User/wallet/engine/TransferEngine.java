@@ -0,0 +1,530 @@
+package com.example.User.wallet.engine;
+
+import com.example.User.wallet.journal.LedgerRecord;
+import com.example.User.wallet.journal.TransferLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * In-memory wallet balances and transfers, partitioned by wallet id across single-writer {@link WalletShard}s.
+ *
+ * <p>Wallets are keyed by the user id of their WalletCreationEvent and balances are in minor units. A transfer
+ * between two wallets of one shard is a single command on that shard; a transfer across shards runs as a
+ * {@link CrossShardTransfer}. All operations are asynchronous and complete on a shard thread, so callers must not
+ * block inside the callbacks they attach.
+ *
+ * <p>Every committed operation is appended to a {@link TransferLog} at the point it is decided, on the shard
+ * thread, and acknowledged once the log made it durable. Balances are updated in memory before the record is
+ * durable, so once an append fails memory is ahead of the log: the engine then fails stop and rejects every
+ * later operation, reads included, until a restart rebuilds the balances from the log.
+ *
+ * <p>A hot wallet, such as a merchant's during a flash sale, would serialize every payment on its shard. Shards
+ * report wallets the {@link HotWalletPolicy} finds hot, and the engine splits them into a {@link SplitWallet}:
+ * credits go to the sub-balance on the payer's shard, so payments from every shard proceed in parallel, and the
+ * balance is the sum of the sub-balances. A debit that finds its sub-balance short sweeps the others into it and
+ * tries once more. The sweeps and the splits run on a coordinator thread, which may wait on shards, as shard
+ * threads must not. The split only lives in memory: the journal records the wallet, not its sub-balances, so a
+ * restart restores a split wallet whole, with its balance, and unsplit until it turns hot again.
+ */
+@Slf4j
+public final class TransferEngine implements MeterBinder, AutoCloseable {
+
+    /** 2^32 divided by the golden ratio, which spreads consecutive hashes evenly over the shards. */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private static final long CLOSE_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final WalletShard[] shards;
+    private final TransferLog transferLog;
+    private final HotWalletPolicy hotWalletPolicy;
+    private final Map<UUID, SplitWallet> splitWallets = new ConcurrentHashMap<>();
+    private final ExecutorService coordinator;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private Map<TransferResult, Counter> transfers;
+    private Counter crossShardTransfers;
+    private Counter rebalances;
+
+    /**
+     * Starts one thread per shard, with balances kept in memory only.
+     *
+     * @param shardCount   the number of shards, typically at most the number of cores
+     * @param ringCapacity the number of queued commands per shard before callers are held back
+     */
+    public TransferEngine(int shardCount, int ringCapacity) {
+        this(shardCount, ringCapacity, TransferLog.NONE);
+    }
+
+    /**
+     * Starts one thread per shard. Operations that change balances complete only once the log made them durable.
+     *
+     * @param shardCount   the number of shards, typically at most the number of cores
+     * @param ringCapacity the number of queued commands per shard before callers are held back
+     * @param operationLog records every committed operation
+     */
+    public TransferEngine(int shardCount, int ringCapacity, TransferLog operationLog) {
+        this(shardCount, ringCapacity, operationLog, HotWalletPolicy.DISABLED);
+    }
+
+    /**
+     * Starts one thread per shard, splitting the wallets that the policy finds hot.
+     *
+     * @param shardCount      the number of shards, typically at most the number of cores
+     * @param ringCapacity    the number of queued commands per shard before callers are held back
+     * @param operationLog records every committed operation
+     * @param policy       when to split a wallet
+     */
+    public TransferEngine(int shardCount, int ringCapacity, TransferLog operationLog, HotWalletPolicy policy) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required: " + shardCount);
+        }
+        // The returned future completes after fail(), so no operation acknowledged as failed can be followed by one
+        // the engine accepts
+        this.transferLog = record -> operationLog.append(record).whenComplete((ignored, error) -> {
+            if (error != null) {
+                fail(error);
+            }
+        });
+        this.hotWalletPolicy = policy;
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-engine-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shards = new WalletShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new WalletShard(i, ringCapacity, policy, this::onHotWallet);
+            shards[i].start();
+        }
+        log.info("Started the transfer engine with {} shards", shardCount);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param walletId the wallet id
+     * @return the index of the shard that owns the wallet
+     */
+    public int shardOf(UUID walletId) {
+        long bits = walletId.getMostSignificantBits() ^ walletId.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> Integer.SIZE));
+        hash ^= hash >>> (Integer.SIZE / 2);
+        return Math.floorMod(hash * GOLDEN_RATIO, shards.length);
+    }
+
+    /**
+     * Opens a wallet with a zero balance. Opening an existing wallet changes nothing.
+     *
+     * @param walletId the wallet id
+     * @return true if the wallet was opened, false if it already existed
+     */
+    public CompletableFuture<Boolean> openWallet(UUID walletId) {
+        WalletShard shard = shards[shardOf(walletId)];
+        CompletableFuture<Boolean> result = track(new CompletableFuture<>());
+        submit(shard, () -> {
+            if (shard.open(walletId)) {
+                completeWhenDurable(transferLog.append(LedgerRecord.open(walletId)), result, true);
+            } else {
+                result.complete(false);
+            }
+        }, result);
+        return result;
+    }
+
+    /**
+     * Puts back a wallet rebuilt from the journal, without journaling it again. Only for startup, before any
+     * other operation on the wallet.
+     *
+     * @param walletId the wallet id
+     * @param balance  the balance in minor units
+     * @return completes once the wallet is in place
+     */
+    public CompletableFuture<Void> restore(UUID walletId, long balance) {
+        WalletShard shard = shards[shardOf(walletId)];
+        CompletableFuture<Void> result = track(new CompletableFuture<>());
+        submit(shard, () -> {
+            shard.restore(walletId, balance);
+            result.complete(null);
+        }, result);
+        return result;
+    }
+
+    /**
+     * Adds money from outside the engine, such as a top-up, to a wallet.
+     *
+     * @param walletId the wallet id
+     * @param amount   the amount in minor units, positive
+     * @return COMPLETED, or why the deposit was refused
+     */
+    public CompletableFuture<TransferResult> deposit(UUID walletId, long amount) {
+        if (amount <= 0) {
+            return CompletableFuture.completedFuture(TransferResult.INVALID);
+        }
+        SplitWallet split = splitWallets.get(walletId);
+        WalletShard shard = split == null ? shards[shardOf(walletId)] : split.anyPart();
+        CompletableFuture<TransferResult> result = track(new CompletableFuture<>());
+        submit(shard, () -> {
+            TransferResult deposited = shard.deposit(walletId, amount);
+            if (deposited == TransferResult.COMPLETED) {
+                completeWhenDurable(transferLog.append(LedgerRecord.deposit(walletId, amount)), result, deposited);
+            } else {
+                result.complete(deposited);
+            }
+        }, result);
+        return result;
+    }
+
+    /**
+     * Moves money between two wallets, all or nothing.
+     *
+     * @param from   the wallet to debit
+     * @param to     the wallet to credit
+     * @param amount the amount in minor units, positive
+     * @return COMPLETED, or why the transfer was refused
+     */
+    public CompletableFuture<TransferResult> transfer(UUID from, UUID to, long amount) {
+        if (amount <= 0 || from.equals(to)) {
+            return CompletableFuture.completedFuture(TransferResult.INVALID);
+        }
+        SplitWallet splitSource = splitWallets.get(from);
+        SplitWallet splitDestination = splitWallets.get(to);
+        WalletShard source = splitSource == null ? shards[shardOf(from)]
+                : splitSource.partFor(shardOf(to), to);
+        WalletShard destination = splitDestination == null ? shards[shardOf(to)]
+                : splitDestination.partFor(source.index(), from);
+        CompletableFuture<TransferResult> result = track(new CompletableFuture<>());
+        result.thenAccept(this::record);
+        if (splitSource == null) {
+            transfer(from, source, to, destination, amount, result);
+            return result;
+        }
+        CompletableFuture<TransferResult> attempt = new CompletableFuture<>();
+        transfer(from, source, to, destination, amount, attempt);
+        attempt.whenComplete((transferred, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (transferred == TransferResult.INSUFFICIENT_FUNDS) {
+                coordinate(result, () -> {
+                    rebalance(splitSource, source);
+                    transfer(from, source, to, destination, amount, result);
+                });
+            } else {
+                result.complete(transferred);
+            }
+        });
+        return result;
+    }
+
+    private void transfer(UUID from, WalletShard source, UUID to, WalletShard destination, long amount,
+                          CompletableFuture<TransferResult> result) {
+        if (source == destination) {
+            submit(source, () -> {
+                TransferResult transferred = source.transfer(from, to, amount);
+                if (transferred == TransferResult.COMPLETED) {
+                    completeWhenDurable(transferLog.append(LedgerRecord.transfer(from, to, amount)), result,
+                            transferred);
+                } else {
+                    result.complete(transferred);
+                }
+            }, result);
+        } else {
+            if (crossShardTransfers != null) {
+                crossShardTransfers.increment();
+            }
+            CrossShardTransfer transfer = new CrossShardTransfer(from, to, amount, source, destination,
+                    transferLog, result);
+            if (checkOpen(result)) {
+                transfer.start();
+            }
+        }
+    }
+
+    /**
+     * Splits a wallet into sub-balances on {@link HotWalletPolicy#parts()} shards. Hot wallets are split without
+     * this call; it is for wallets known to become hot, like a merchant's before a sale.
+     *
+     * @param walletId the wallet id
+     * @return true if the wallet was split, false if it does not exist, is split already, or splitting is disabled
+     */
+    public CompletableFuture<Boolean> split(UUID walletId) {
+        CompletableFuture<Boolean> result = track(new CompletableFuture<>());
+        coordinate(result, () -> result.complete(promote(walletId)));
+        return result;
+    }
+
+    /**
+     * @param walletId the wallet id
+     * @return whether the wallet is split into sub-balances
+     */
+    public boolean isSplit(UUID walletId) {
+        return splitWallets.containsKey(walletId);
+    }
+
+    /**
+     * Reads a balance on the owning shard, so it reflects every operation queued on that shard before it. The
+     * balance of a split wallet is the sum of its sub-balances, read one shard at a time, so it may miss an amount
+     * being swept between them.
+     *
+     * @param walletId the wallet id
+     * @return the balance in minor units, or empty if the wallet does not exist
+     */
+    public CompletableFuture<OptionalLong> balance(UUID walletId) {
+        SplitWallet split = splitWallets.get(walletId);
+        if (split == null) {
+            return balance(shards[shardOf(walletId)], walletId);
+        }
+        List<CompletableFuture<OptionalLong>> parts = new ArrayList<>();
+        for (WalletShard part : split.parts()) {
+            parts.add(balance(part, walletId));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            long total = 0;
+            for (CompletableFuture<OptionalLong> part : parts) {
+                total += part.join().orElse(0);
+            }
+            return OptionalLong.of(total);
+        });
+    }
+
+    private CompletableFuture<OptionalLong> balance(WalletShard shard, UUID walletId) {
+        CompletableFuture<OptionalLong> result = track(new CompletableFuture<>());
+        submit(shard, () -> result.complete(shard.balance(walletId)), result);
+        return result;
+    }
+
+    /**
+     * @return whether the transfer log failed, after which the engine rejects every operation
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Stops accepting operations, waits for the ones in flight, including second phases, and stops the shards.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        while (inFlight.get() > 0) {
+            LockSupport.parkNanos(CLOSE_POLL_NANOS);
+        }
+        coordinator.shutdown();
+        for (WalletShard shard : shards) {
+            shard.stop();
+        }
+        log.info("Stopped the transfer engine");
+    }
+
+    /**
+     * Registers the transfer and rebalance counters, the number of split wallets and the queue depth of each shard.
+     *
+     * @param registry the registry to bind to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<TransferResult, Counter> counters = new EnumMap<>(TransferResult.class);
+        for (TransferResult result : TransferResult.values()) {
+            counters.put(result, Counter.builder("wallet.transfers")
+                    .tag("result", result.name().toLowerCase())
+                    .description("Transfers by result")
+                    .register(registry));
+        }
+        transfers = counters;
+        crossShardTransfers = Counter.builder("wallet.transfers.cross-shard")
+                .description("Transfers between wallets of different shards, run in two phases")
+                .register(registry);
+        rebalances = Counter.builder("wallet.engine.rebalances")
+                .description("Sweeps of the sub-balances of a split wallet into one that was short for a debit")
+                .register(registry);
+        Gauge.builder("wallet.engine.split-wallets", splitWallets, Map::size)
+                .description("Hot wallets split into sub-balances across shards")
+                .register(registry);
+        for (WalletShard shard : shards) {
+            Gauge.builder("wallet.engine.queue.depth", shard, WalletShard::queueDepth)
+                    .tag("shard", Integer.toString(shard.index()))
+                    .description("Commands waiting for the shard thread")
+                    .register(registry);
+        }
+    }
+
+    private void onHotWallet(UUID walletId) {
+        if (splitWallets.containsKey(walletId) || closed) {
+            return;
+        }
+        split(walletId).whenComplete((split, error) -> {
+            if (error != null) {
+                log.warn("Could not split hot wallet {}", walletId, error);
+            } else if (split) {
+                log.info("Split hot wallet {} into {} sub-balances", walletId,
+                        splitWallets.get(walletId).parts().length);
+            }
+        });
+    }
+
+    /**
+     * Opens the sub-balances of a wallet on the shards after its own and publishes the split once they exist.
+     * Runs on the coordinator thread, which may wait on shards.
+     *
+     * @param walletId the hot wallet
+     * @return true if the wallet was split by this call
+     */
+    private boolean promote(UUID walletId) {
+        int partCount = Math.min(hotWalletPolicy.parts(), shards.length);
+        if (partCount < 2 || splitWallets.containsKey(walletId)) {
+            return false;
+        }
+        int home = shardOf(walletId);
+        WalletShard[] parts = new WalletShard[partCount];
+        for (int i = 0; i < partCount; i++) {
+            parts[i] = shards[(home + i) % shards.length];
+        }
+        if (!call(parts[0], () -> parts[0].exists(walletId))) {
+            return false;
+        }
+        for (int i = 1; i < partCount; i++) {
+            WalletShard part = parts[i];
+            call(part, () -> part.open(walletId));
+        }
+        splitWallets.put(walletId, new SplitWallet(walletId, parts));
+        return true;
+    }
+
+    /**
+     * Moves the available funds of the other sub-balances of a split wallet into one sub-balance, and waits for
+     * the moves. They do not change the wallet balance, so they are not journaled. Runs on the coordinator thread.
+     *
+     * @param split  the split wallet
+     * @param target the shard of the sub-balance to fill
+     */
+    private void rebalance(SplitWallet split, WalletShard target) {
+        UUID walletId = split.walletId();
+        List<CompletableFuture<TransferResult>> moves = new ArrayList<>();
+        for (WalletShard part : split.parts()) {
+            if (part == target) {
+                continue;
+            }
+            long available = call(part, () -> part.available(walletId));
+            if (available > 0) {
+                CompletableFuture<TransferResult> move = new CompletableFuture<>();
+                new CrossShardTransfer(walletId, walletId, available, part, target, TransferLog.NONE, move).start();
+                moves.add(move);
+            }
+        }
+        CompletableFuture.allOf(moves.toArray(CompletableFuture[]::new)).join();
+        if (rebalances != null) {
+            rebalances.increment();
+        }
+    }
+
+    /**
+     * Runs a command on a shard and waits for its value; only for the coordinator thread.
+     *
+     * @param <T>     the type of the value
+     * @param shard   the shard to run the command on
+     * @param command the command
+     * @return the value of the command
+     */
+    private <T> T call(WalletShard shard, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(shard, () -> result.complete(command.get()), result);
+        return result.join();
+    }
+
+    /**
+     * Runs a task on the coordinator thread, failing the result if the task or the coordinator fails.
+     *
+     * @param result the result of the operation the task belongs to
+     * @param task   the task
+     */
+    private void coordinate(CompletableFuture<?> result, Runnable task) {
+        if (!checkOpen(result)) {
+            return;
+        }
+        try {
+            coordinator.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> result) {
+        inFlight.incrementAndGet();
+        result.whenComplete((value, error) -> inFlight.decrementAndGet());
+        return result;
+    }
+
+    private static <T> void completeWhenDurable(CompletableFuture<Void> durable, CompletableFuture<T> result,
+                                                T value) {
+        durable.whenComplete((ignored, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void fail(Throwable error) {
+        if (failure == null) {
+            failure = error;
+            log.error("The transfer log failed; the transfer engine rejects every operation until restarted", error);
+        }
+    }
+
+    private boolean checkOpen(CompletableFuture<?> result) {
+        if (failure != null) {
+            result.completeExceptionally(new IllegalStateException(
+                    "The transfer engine stopped after its transfer log failed", failure));
+            return false;
+        }
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("The transfer engine is closed"));
+            return false;
+        }
+        return true;
+    }
+
+    private void submit(WalletShard shard, Runnable command, CompletableFuture<?> result) {
+        if (!checkOpen(result)) {
+            return;
+        }
+        try {
+            shard.submit(command);
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private void record(TransferResult result) {
+        if (transfers != null) {
+            transfers.get(result).increment();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.User.wallet.engine;
+
+/**
+ * Outcome of a transfer or deposit in the {@link TransferEngine}.
+ */
+public enum TransferResult {
+    COMPLETED,
+    INSUFFICIENT_FUNDS,
+    UNKNOWN_WALLET,
+    /** The amount is not positive, or the source and destination are the same wallet. */
+    INVALID
+}
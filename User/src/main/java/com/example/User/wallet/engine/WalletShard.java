@@ -0,0 +1,301 @@
+package com.example.User.wallet.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * One partition of the wallets, owned by a single thread. Every read and write of its wallets runs as a command
+ * on that thread, so balance checks and debits need no locks.
+ *
+ * <p>New work arrives through a bounded ring buffer, which pushes back on callers when the shard falls behind.
+ * Second-phase decisions of cross-shard transfers arrive from other shard threads through an unbounded queue that
+ * is drained first: a shard thread must never block on another shard's full ring, or two shards sending to each
+ * other could deadlock. Their number is bounded by the transfers in flight.
+ *
+ * <p>The shard counts the operations on each wallet per window of the {@link HotWalletPolicy}, and reports a
+ * wallet that takes a large share of a backed-up shard as hot, once.
+ *
+ * <p>The methods that touch wallets must only be called from commands running on the shard thread.
+ */
+@Slf4j
+final class WalletShard implements Runnable {
+
+    private static final int DRAIN_LIMIT = 256;
+    private static final int IDLE_SPINS = 200;
+    private static final int IDLE_YIELDS = 50;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BACK_OFF_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final int index;
+    private final MpscRingBuffer<Runnable> commands;
+    private final Queue<Runnable> decisions = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, Account> accounts = new HashMap<>();
+    private final Thread thread;
+    private final HotWalletPolicy hotWalletPolicy;
+    private final Consumer<UUID> hotWalletListener;
+    private long window;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    /**
+     * @param shardIndex   the index of the shard, which names its thread
+     * @param ringCapacity the capacity of the command ring
+     * @param policy       when a wallet counts as hot
+     * @param listener     called on the shard thread with a wallet found hot; must not block
+     */
+    WalletShard(int shardIndex, int ringCapacity, HotWalletPolicy policy, Consumer<UUID> listener) {
+        this.index = shardIndex;
+        this.commands = new MpscRingBuffer<>(ringCapacity);
+        this.hotWalletPolicy = policy;
+        this.hotWalletListener = listener;
+        this.thread = new Thread(this, "wallet-shard-" + shardIndex);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a command, waiting while the ring is full. Called by client threads, never by shard threads.
+     *
+     * @param command the command to run on the shard thread
+     * @throws RejectedExecutionException if the shard is stopping
+     */
+    void submit(Runnable command) {
+        int attempts = 0;
+        while (!commands.offer(command)) {
+            if (!running) {
+                throw new RejectedExecutionException("Wallet shard " + index + " is stopped");
+            }
+            backOff(++attempts);
+        }
+        wake();
+    }
+
+    /**
+     * Queues a second-phase decision. Never blocks, so shard threads can call it.
+     *
+     * @param decision the decision to run on the shard thread
+     */
+    void decide(Runnable decision) {
+        decisions.add(decision);
+        wake();
+    }
+
+    /**
+     * Stops the thread once both queues are drained and waits for it.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    int index() {
+        return index;
+    }
+
+    int queueDepth() {
+        return commands.size() + decisions.size();
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        long windowNanos = hotWalletPolicy.windowNanos();
+        while (running || !commands.isEmpty() || !decisions.isEmpty()) {
+            window = System.nanoTime() / windowNanos;
+            int work = 0;
+            Runnable decision;
+            while ((decision = decisions.poll()) != null) {
+                execute(decision);
+                work++;
+            }
+            work += commands.drain(this::execute, DRAIN_LIMIT);
+            if (work > 0) {
+                idle = 0;
+            } else {
+                idle(++idle);
+            }
+        }
+    }
+
+    private void execute(Runnable command) {
+        try {
+            command.run();
+        } catch (RuntimeException ex) {
+            log.error("Wallet shard {} command failed", index, ex);
+        }
+    }
+
+    private void idle(int idleRounds) {
+        if (idleRounds < IDLE_SPINS) {
+            Thread.onSpinWait();
+        } else if (idleRounds < IDLE_SPINS + IDLE_YIELDS) {
+            Thread.yield();
+        } else {
+            parked = true;
+            // Producers check the flag after publishing, so an element published before this check is seen here
+            if (running && commands.isEmpty() && decisions.isEmpty()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            parked = false;
+        }
+    }
+
+    private void wake() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void touch(UUID walletId, Account account) {
+        if (!hotWalletPolicy.enabled()) {
+            return;
+        }
+        if (account.window != window) {
+            account.window = window;
+            account.touches = 0;
+        }
+        if (++account.touches >= hotWalletPolicy.touchesPerWindow() && !account.hot
+                && queueDepth() >= hotWalletPolicy.minQueueDepth()) {
+            account.hot = true;
+            hotWalletListener.accept(walletId);
+        }
+    }
+
+    private static void backOff(int attempts) {
+        if (attempts < IDLE_SPINS) {
+            Thread.onSpinWait();
+        } else if (attempts < IDLE_SPINS + IDLE_YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(BACK_OFF_PARK_NANOS);
+        }
+    }
+
+    // Wallet operations, on the shard thread only
+
+    boolean open(UUID walletId) {
+        return accounts.putIfAbsent(walletId, new Account()) == null;
+    }
+
+    void restore(UUID walletId, long balance) {
+        Account account = new Account();
+        account.balance = balance;
+        accounts.put(walletId, account);
+    }
+
+    boolean exists(UUID walletId) {
+        return accounts.containsKey(walletId);
+    }
+
+    TransferResult deposit(UUID walletId, long amount) {
+        Account account = accounts.get(walletId);
+        if (account == null) {
+            return TransferResult.UNKNOWN_WALLET;
+        }
+        account.balance += amount;
+        account.version++;
+        touch(walletId, account);
+        return TransferResult.COMPLETED;
+    }
+
+    TransferResult transfer(UUID from, UUID to, long amount) {
+        Account source = accounts.get(from);
+        Account destination = accounts.get(to);
+        if (source == null || destination == null) {
+            return TransferResult.UNKNOWN_WALLET;
+        }
+        if (source.available() < amount) {
+            return TransferResult.INSUFFICIENT_FUNDS;
+        }
+        source.balance -= amount;
+        source.version++;
+        destination.balance += amount;
+        destination.version++;
+        touch(from, source);
+        touch(to, destination);
+        return TransferResult.COMPLETED;
+    }
+
+    /**
+     * Holds funds for the first phase of a cross-shard transfer; held funds cannot be spent by other transfers.
+     *
+     * @param walletId the source wallet
+     * @param amount   the amount to hold, in minor units
+     * @return COMPLETED if the funds are held, otherwise why they are not
+     */
+    TransferResult reserve(UUID walletId, long amount) {
+        Account account = accounts.get(walletId);
+        if (account == null) {
+            return TransferResult.UNKNOWN_WALLET;
+        }
+        if (account.available() < amount) {
+            return TransferResult.INSUFFICIENT_FUNDS;
+        }
+        account.held += amount;
+        touch(walletId, account);
+        return TransferResult.COMPLETED;
+    }
+
+    void commitReserved(UUID walletId, long amount) {
+        Account account = accounts.get(walletId);
+        account.held -= amount;
+        account.balance -= amount;
+        account.version++;
+    }
+
+    void release(UUID walletId, long amount) {
+        accounts.get(walletId).held -= amount;
+    }
+
+    void credit(UUID walletId, long amount) {
+        Account account = accounts.get(walletId);
+        account.balance += amount;
+        account.version++;
+        touch(walletId, account);
+    }
+
+    /**
+     * @param walletId the wallet
+     * @return the balance not held by transfers in their first phase, 0 if the wallet does not exist
+     */
+    long available(UUID walletId) {
+        Account account = accounts.get(walletId);
+        return account == null ? 0 : account.available();
+    }
+
+    OptionalLong balance(UUID walletId) {
+        Account account = accounts.get(walletId);
+        return account == null ? OptionalLong.empty() : OptionalLong.of(account.balance);
+    }
+
+    /**
+     * Balance of a wallet in minor units, the part of it held by cross-shard transfers in their first phase,
+     * and the number of changes applied to it, with the operations on it in the current window.
+     */
+    private static final class Account {
+        private long balance;
+        private long held;
+        private long version;
+        private long window;
+        private int touches;
+        private boolean hot;
+
+        long available() {
+            return balance - held;
+        }
+    }
+}
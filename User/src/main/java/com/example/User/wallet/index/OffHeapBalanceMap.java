@@ -0,0 +1,546 @@
+package com.example.User.wallet.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wallet balances in minor units with a version, keyed by the 128-bit wallet id, in an open-addressing table
+ * outside the Java heap. An entry takes 32 bytes of direct memory and no objects, where a
+ * {@code HashMap<UUID, BigDecimal>} entry takes over 100 bytes in three objects and a table slot, all of which
+ * the collector has to trace.
+ *
+ * <p>Each slot holds the two halves of the id, a stamp and the balance. The stamp is twice the version plus two,
+ * 0 for an empty slot, and odd while a writer holds the slot:
+ * <ul>
+ *   <li>Reads take no lock. They read the stamp, the balance and the stamp again, and retry if it changed.</li>
+ *   <li>Balance updates claim the slot by a compare-and-set of the stamp, write the balance and publish the next
+ *       version.</li>
+ *   <li>New entries are rare next to balance updates, so insertions take one lock. Past a load of 3/4 an
+ *       insertion allocates a table twice the size, and every insertion then moves the next
+ *       {@value #MIGRATION_STEP} slots into it, so no single call pays for the whole resize. A moved slot is
+ *       stamped {@code MOVED}: readers and writers that reach it, or reach the end of the probe sequence of a
+ *       table that is being resized, continue in the next table.</li>
+ * </ul>
+ * Entries cannot be removed, as wallets are never deleted.
+ */
+public final class OffHeapBalanceMap {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final int SLOT_BYTES = 32;
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int STAMP = 16;
+    private static final int BALANCE = 24;
+    private static final long EMPTY = 0;
+    private static final long MOVED = Long.MIN_VALUE;
+    private static final int MAX_CHUNK_SLOTS = 1024 * 1024;
+    private static final int MIN_SLOTS = 16;
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    private static final int MIGRATION_STEP = 1024;
+    private static final int SNAPSHOT_MAGIC = 0x42414c31;
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    private final ReentrantLock insertLock = new ReentrantLock();
+    private final AtomicLong size = new AtomicLong();
+    private volatile Table table;
+    private long migrated;
+
+    private OffHeapBalanceMap(long slots) {
+        this.table = new Table(slots);
+    }
+
+    /**
+     * @param expectedEntries the number of entries the map should hold without resizing
+     * @return an empty map
+     */
+    public static OffHeapBalanceMap withCapacity(long expectedEntries) {
+        long slots = Long.highestOneBit(Math.max(MIN_SLOTS,
+                expectedEntries * LOAD_DENOMINATOR / LOAD_NUMERATOR + 1) - 1) << 1;
+        return new OffHeapBalanceMap(slots);
+    }
+
+    /**
+     * A consistent balance and version of one entry.
+     *
+     * @param balance the balance in minor units
+     * @param version the number of updates of the balance since the entry was added
+     */
+    public record Balance(long balance, long version) {
+    }
+
+    /**
+     * Receives the entries of {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param idMsb   the most significant bits of the wallet id
+         * @param idLsb   the least significant bits of the wallet id
+         * @param balance the balance in minor units
+         * @param version the version of the balance
+         */
+        void visit(long idMsb, long idLsb, long balance, long version);
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * @return the direct memory held by the tables, including the one being migrated to
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Table current = table; current != null; current = current.next) {
+            bytes += current.slots * SLOT_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * @param walletId the wallet id
+     * @return the balance and version, or null if there is no entry
+     */
+    public Balance get(UUID walletId) {
+        long msb = walletId.getMostSignificantBits();
+        long lsb = walletId.getLeastSignificantBits();
+        Table current = table;
+        while (current != null) {
+            long slot = current.find(msb, lsb);
+            if (slot < 0) {
+                current = current.next;
+                continue;
+            }
+            while (true) {
+                long stamp = current.stampAcquire(slot);
+                if (stamp == MOVED) {
+                    break;
+                }
+                if ((stamp & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long balance = current.balance(slot);
+                VarHandle.acquireFence();
+                if (current.stampOpaque(slot) == stamp) {
+                    return new Balance(balance, versionOf(stamp));
+                }
+            }
+            current = current.next;
+        }
+        return null;
+    }
+
+    /**
+     * Adds an entry with version 0 if the wallet has none.
+     *
+     * @param walletId the wallet id
+     * @param balance  the balance in minor units
+     * @return true if the entry was added
+     */
+    public boolean putIfAbsent(UUID walletId, long balance) {
+        return insert(walletId.getMostSignificantBits(), walletId.getLeastSignificantBits(), balance, 0, false);
+    }
+
+    /**
+     * Sets an entry whatever it held, for loading balances from elsewhere.
+     *
+     * @param walletId the wallet id
+     * @param balance  the balance in minor units
+     * @param version  the version of the balance
+     */
+    public void put(UUID walletId, long balance, long version) {
+        insert(walletId.getMostSignificantBits(), walletId.getLeastSignificantBits(), balance, version, true);
+    }
+
+    /**
+     * Sets the balance and bumps the version if the entry is still at the expected version.
+     *
+     * @param walletId        the wallet id
+     * @param expectedVersion the version the new balance was computed from
+     * @param newBalance      the balance in minor units
+     * @return true if the balance was set, false if the version moved on or there is no entry
+     */
+    public boolean compareAndSet(UUID walletId, long expectedVersion, long newBalance) {
+        long msb = walletId.getMostSignificantBits();
+        long lsb = walletId.getLeastSignificantBits();
+        long expectedStamp = stampOf(expectedVersion);
+        Table current = table;
+        while (current != null) {
+            long slot = current.find(msb, lsb);
+            if (slot < 0) {
+                current = current.next;
+                continue;
+            }
+            while (true) {
+                long stamp = current.stampAcquire(slot);
+                if (stamp == MOVED) {
+                    break;
+                }
+                if ((stamp & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (stamp != expectedStamp) {
+                    return false;
+                }
+                if (current.casStamp(slot, stamp, stamp | 1)) {
+                    current.setBalance(slot, newBalance);
+                    current.releaseStamp(slot, stamp + 2);
+                    return true;
+                }
+            }
+            current = current.next;
+        }
+        return false;
+    }
+
+    /**
+     * Adds to a balance and bumps the version.
+     *
+     * @param walletId the wallet id
+     * @param delta    the amount to add, negative for a debit
+     * @return the new balance
+     * @throws NoSuchElementException if there is no entry for the wallet
+     */
+    public long addAndGet(UUID walletId, long delta) {
+        while (true) {
+            Balance current = get(walletId);
+            if (current == null) {
+                throw new NoSuchElementException("No balance for wallet " + walletId);
+            }
+            long updated = current.balance() + delta;
+            if (compareAndSet(walletId, current.version(), updated)) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Visits every entry. Each entry is read consistently, but entries updated during the walk may be seen
+     * before or after the update; entries added during the walk may be missed.
+     *
+     * @param visitor receives each entry
+     */
+    public void forEach(Visitor visitor) {
+        insertLock.lock();
+        try {
+            for (Table current = table; current != null; current = current.next) {
+                for (long slot = 0; slot < current.slots; slot++) {
+                    visitSlot(current, slot, visitor);
+                }
+            }
+        } finally {
+            insertLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every entry to a file: a header of a magic number and the entry count, then 32 bytes per entry.
+     * The file is written next to the target and moved over it, so a crash leaves the previous snapshot.
+     * Balances updated during the dump are captured before or after the update, as with {@link #forEach}.
+     *
+     * @param file the snapshot file
+     * @return the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public long snapshot(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] written = new long[1];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary), STREAM_BUFFER_BYTES))) {
+            insertLock.lock();
+            try {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(size.get());
+                IOException[] failure = new IOException[1];
+                forEach((msb, lsb, balance, version) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        out.writeLong(msb);
+                        out.writeLong(lsb);
+                        out.writeLong(balance);
+                        out.writeLong(version);
+                        written[0]++;
+                    } catch (IOException ex) {
+                        failure[0] = ex;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            } finally {
+                insertLock.unlock();
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written[0];
+    }
+
+    /**
+     * Reads a file written by {@link #snapshot} into a new map sized for its entries.
+     *
+     * @param file the snapshot file
+     * @return the map holding the entries of the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static OffHeapBalanceMap load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                STREAM_BUFFER_BYTES))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(file + " is not a balance snapshot");
+            }
+            long count = in.readLong();
+            OffHeapBalanceMap map = withCapacity(count);
+            for (long i = 0; i < count; i++) {
+                map.insert(in.readLong(), in.readLong(), in.readLong(), in.readLong(), true);
+            }
+            return map;
+        }
+    }
+
+    private boolean insert(long msb, long lsb, long balance, long version, boolean replace) {
+        insertLock.lock();
+        try {
+            migrate();
+            Table current = table;
+            while (true) {
+                long slot = current.find(msb, lsb);
+                if (slot >= 0 && current.stampAcquire(slot) != MOVED) {
+                    if (replace) {
+                        overwrite(current, slot, balance, version);
+                    }
+                    return false;
+                }
+                if (slot < 0 && current.next == null) {
+                    break;
+                }
+                current = current.next;
+            }
+            if (current.next == null && size.get() + 1 > current.slots * LOAD_NUMERATOR / LOAD_DENOMINATOR) {
+                current.next = new Table(current.slots << 1);
+                migrated = 0;
+                migrate();
+                current = current.next;
+            }
+            current.insertNew(msb, lsb, balance, stampOf(version));
+            size.incrementAndGet();
+            return true;
+        } finally {
+            insertLock.unlock();
+        }
+    }
+
+    private static void overwrite(Table current, long slot, long balance, long version) {
+        while (true) {
+            long stamp = current.stampAcquire(slot);
+            if ((stamp & 1) == 0 && current.casStamp(slot, stamp, stamp | 1)) {
+                current.setBalance(slot, balance);
+                current.releaseStamp(slot, stampOf(version));
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Moves the next slots of a table being resized into its successor, and retires it once all are moved. Only
+     * called with the insert lock held.
+     */
+    private void migrate() {
+        Table old = table;
+        Table next = old.next;
+        if (next == null) {
+            return;
+        }
+        long end = Math.min(old.slots, migrated + MIGRATION_STEP);
+        for (; migrated < end; migrated++) {
+            long slot = migrated;
+            while (true) {
+                long stamp = old.stampAcquire(slot);
+                if (stamp == EMPTY) {
+                    break;
+                }
+                if ((stamp & 1) == 0 && old.casStamp(slot, stamp, stamp | 1)) {
+                    next.insertNew(old.msb(slot), old.lsb(slot), old.balance(slot), stamp);
+                    old.releaseStamp(slot, MOVED);
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+        }
+        if (migrated == old.slots) {
+            table = next;
+        }
+    }
+
+    private static void visitSlot(Table current, long slot, Visitor visitor) {
+        while (true) {
+            long stamp = current.stampAcquire(slot);
+            if (stamp == EMPTY || stamp == MOVED) {
+                return;
+            }
+            if ((stamp & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long msb = current.msb(slot);
+            long lsb = current.lsb(slot);
+            long balance = current.balance(slot);
+            VarHandle.acquireFence();
+            if (current.stampOpaque(slot) == stamp) {
+                visitor.visit(msb, lsb, balance, versionOf(stamp));
+                return;
+            }
+        }
+    }
+
+    private static long stampOf(long version) {
+        return (version + 1) << 1;
+    }
+
+    private static long versionOf(long stamp) {
+        return (stamp >>> 1) - 1;
+    }
+
+    private static long hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, Integer.SIZE);
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_2;
+        return h ^ (h >>> MIX_SHIFT);
+    }
+
+    /**
+     * One generation of the table: a power-of-two number of slots in direct buffers of up to
+     * {@value #MAX_CHUNK_SLOTS} slots each. Replaced tables stay reachable from the threads still reading them,
+     * and their memory is freed with the buffers once no thread does.
+     */
+    private static final class Table {
+
+        private final long slots;
+        private final long mask;
+        private final int chunkShift;
+        private final int chunkMask;
+        private final ByteBuffer[] chunks;
+        private volatile Table next;
+
+        Table(long capacity) {
+            this.slots = capacity;
+            this.mask = capacity - 1;
+            int chunkSlots = (int) Math.min(capacity, MAX_CHUNK_SLOTS);
+            this.chunkShift = Integer.numberOfTrailingZeros(chunkSlots);
+            this.chunkMask = chunkSlots - 1;
+            this.chunks = new ByteBuffer[(int) (capacity / chunkSlots)];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = ByteBuffer.allocateDirect(chunkSlots * SLOT_BYTES + Long.BYTES - 1)
+                        .alignedSlice(Long.BYTES)
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+
+        /**
+         * Probes for a key. Stops at a slot holding the key, moved or not, or at the first empty slot.
+         *
+         * @param msb the most significant bits of the key
+         * @param lsb the least significant bits of the key
+         * @return the slot holding the key, or -1 if it is not in this table
+         */
+        long find(long msb, long lsb) {
+            long slot = hash(msb, lsb) & mask;
+            for (long probes = 0; probes < slots; probes++, slot = (slot + 1) & mask) {
+                if (stampAcquire(slot) == EMPTY) {
+                    return -1;
+                }
+                if (msb(slot) == msb && lsb(slot) == lsb) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Writes a key that is in no table into the first empty slot of its probe sequence. Only called with the
+         * insert lock held, and below a load of 1.
+         *
+         * @param msb     the most significant bits of the key
+         * @param lsb     the least significant bits of the key
+         * @param balance the balance in minor units
+         * @param stamp   the stamp of the entry
+         */
+        void insertNew(long msb, long lsb, long balance, long stamp) {
+            long slot = hash(msb, lsb) & mask;
+            while (stampAcquire(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            LONGS.setOpaque(chunk, offset + MSB, msb);
+            LONGS.setOpaque(chunk, offset + LSB, lsb);
+            LONGS.setOpaque(chunk, offset + BALANCE, balance);
+            LONGS.setRelease(chunk, offset + STAMP, stamp);
+        }
+
+        long msb(long slot) {
+            return (long) LONGS.getOpaque(chunk(slot), offset(slot) + MSB);
+        }
+
+        long lsb(long slot) {
+            return (long) LONGS.getOpaque(chunk(slot), offset(slot) + LSB);
+        }
+
+        long balance(long slot) {
+            return (long) LONGS.getOpaque(chunk(slot), offset(slot) + BALANCE);
+        }
+
+        void setBalance(long slot, long balance) {
+            LONGS.setOpaque(chunk(slot), offset(slot) + BALANCE, balance);
+        }
+
+        long stampAcquire(long slot) {
+            return (long) LONGS.getAcquire(chunk(slot), offset(slot) + STAMP);
+        }
+
+        long stampOpaque(long slot) {
+            return (long) LONGS.getOpaque(chunk(slot), offset(slot) + STAMP);
+        }
+
+        boolean casStamp(long slot, long expected, long stamp) {
+            return LONGS.compareAndSet(chunk(slot), offset(slot) + STAMP, expected, stamp);
+        }
+
+        void releaseStamp(long slot, long stamp) {
+            LONGS.setRelease(chunk(slot), offset(slot) + STAMP, stamp);
+        }
+
+        private ByteBuffer chunk(long slot) {
+            return chunks[(int) (slot >>> chunkShift)];
+        }
+
+        private int offset(long slot) {
+            return ((int) slot & chunkMask) * SLOT_BYTES;
+        }
+    }
+}
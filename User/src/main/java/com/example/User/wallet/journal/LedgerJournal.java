@@ -0,0 +1,268 @@
+package com.example.User.wallet.journal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of committed wallet operations in memory-mapped segment files, with group commit.
+ *
+ * <p>Appends are queued and written by one writer thread, which takes up to {@code maxBatch} records, waiting at
+ * most {@code maxDelay} after the first one for more to arrive, writes them into the mapping and forces them to
+ * disk with a single fsync before completing their futures. Concurrent transfers thereby share fsyncs, and
+ * the latency added to a transfer is bounded by the delay plus one fsync. A full segment is forced and a new one
+ * started.
+ *
+ * <p>On open the segments are read back: the last segment ends at its first torn or unwritten record, whose
+ * batch was never acknowledged, and any torn record in an earlier segment is reported as corruption.
+ *
+ * <p>The journal fails stop: the first write or fsync that fails drops the records of its batch that were not
+ * forced, zeroing them in the mapping so that they cannot reach the disk later, fails their appends and every
+ * append after them. Appending after the hole would acknowledge records that depend on the lost ones.
+ */
+@Slf4j
+public final class LedgerJournal implements TransferLog, MeterBinder, AutoCloseable {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final long recoveredRecords;
+    private LedgerSegment segment;
+    private volatile boolean running = true;
+    private volatile Exception failure;
+    private DistributionSummary batchSizes;
+    private Timer fsyncLatency;
+
+    private LedgerJournal(Path journalDirectory, int recordsPerSegment, int batchLimit, long delayNanos)
+            throws IOException {
+        this.directory = journalDirectory;
+        this.segmentRecords = recordsPerSegment;
+        this.maxBatch = batchLimit;
+        this.maxDelayNanos = delayNanos;
+        Files.createDirectories(journalDirectory);
+        this.recoveredRecords = recover();
+        this.writer = new Thread(this::writeLoop, "ledger-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the journal in a directory, recovering its segments, and starts the writer thread.
+     *
+     * @param directory      the directory of the segment files, created if missing
+     * @param segmentRecords the number of records of a new segment
+     * @param maxBatch       the maximum number of records per fsync
+     * @param maxDelayMicros how long the writer waits for more records after the first of a batch; 0 writes
+     *                       whatever is queued at once
+     * @return the journal, ready for appends
+     * @throws IOException if the segments cannot be read or an earlier segment is corrupt
+     */
+    public static LedgerJournal open(Path directory, int segmentRecords, int maxBatch, long maxDelayMicros)
+            throws IOException {
+        return new LedgerJournal(directory, segmentRecords, maxBatch, TimeUnit.MICROSECONDS.toNanos(maxDelayMicros));
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of valid records found when the journal was opened
+     */
+    public long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    @Override
+    public CompletableFuture<Void> append(LedgerRecord record) {
+        PendingRecord pending = new PendingRecord(record, new CompletableFuture<>());
+        if (failure != null) {
+            pending.durable().completeExceptionally(failed());
+            return pending.durable();
+        }
+        if (!running) {
+            pending.durable().completeExceptionally(new RejectedExecutionException("The ledger journal is closed"));
+            return pending.durable();
+        }
+        queue.add(pending);
+        return pending.durable();
+    }
+
+    /**
+     * @return whether a write or fsync failed, after which the journal accepts no more records
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Writes the records still queued, forces them, and closes the segment.
+     */
+    @Override
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+        segment.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("wallet.journal.batch.size")
+                .description("Records made durable by one fsync")
+                .register(registry);
+        fsyncLatency = Timer.builder("wallet.journal.fsync.latency")
+                .description("Time to force a batch of records to disk")
+                .register(registry);
+    }
+
+    private long recover() throws IOException {
+        List<Path> paths = LedgerSegment.list(directory);
+        long records = 0;
+        long expectedSequence = 1;
+        for (int i = 0; i < paths.size(); i++) {
+            boolean last = i == paths.size() - 1;
+            LedgerSegment candidate = LedgerSegment.openForAppend(directory,
+                    LedgerSegment.firstSequenceOf(paths.get(i)), segmentRecords);
+            if (candidate.firstSequence() != expectedSequence) {
+                candidate.close();
+                throw new IOException("Ledger segment " + paths.get(i) + " starts at " + candidate.firstSequence()
+                        + ", expected " + expectedSequence);
+            }
+            records += candidate.recover(record -> { });
+            expectedSequence = candidate.nextSequence();
+            if (last) {
+                if (candidate.clearTail()) {
+                    log.warn("Discarded the unacknowledged records after sequence {} in {}",
+                            candidate.nextSequence() - 1, candidate.path());
+                }
+                segment = candidate;
+            } else {
+                boolean full = candidate.isFull();
+                candidate.close();
+                if (!full) {
+                    throw new IOException("Ledger segment " + paths.get(i) + " is corrupt after sequence "
+                            + (expectedSequence - 1));
+                }
+            }
+        }
+        if (segment == null) {
+            segment = LedgerSegment.openForAppend(directory, 1, segmentRecords);
+        }
+        log.info("Opened the ledger journal in {} with {} records", directory, records);
+        return records;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException ex) {
+                // Interrupted by close: write what was collected and drain the queue
+                queue.drainTo(batch, maxBatch - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingRecord> batch) throws InterruptedException {
+        PendingRecord first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+            PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingRecord> batch) {
+        if (failure != null) {
+            // Appended before the failure became visible to append()
+            for (PendingRecord pending : batch) {
+                pending.durable().completeExceptionally(failed());
+            }
+            return;
+        }
+        long started = System.nanoTime();
+        int durable = 0;
+        int from = segment.count();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (segment.isFull()) {
+                    segment.force(from, segment.count());
+                    durable = i;
+                    from = segment.count();
+                    roll();
+                    from = 0;
+                }
+                segment.append(batch.get(i).record());
+            }
+            segment.force(from, segment.count());
+            durable = batch.size();
+        } catch (IOException | UncheckedIOException ex) {
+            failure = ex;
+            segment.truncate(from);
+            log.error("Could not make {} ledger records durable; the journal accepts no more records",
+                    batch.size() - durable, ex);
+        }
+        if (durable == batch.size() && batchSizes != null) {
+            batchSizes.record(batch.size());
+            fsyncLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < durable) {
+                batch.get(i).durable().complete(null);
+            } else {
+                batch.get(i).durable().completeExceptionally(failed());
+            }
+        }
+    }
+
+    private IOException failed() {
+        return new IOException("The ledger journal failed and accepts no more records", failure);
+    }
+
+    private void roll() throws IOException {
+        long nextSequence = segment.nextSequence();
+        segment.close();
+        segment = LedgerSegment.openForAppend(directory, nextSequence, segmentRecords);
+        log.info("Started ledger segment {}", segment.path());
+    }
+
+    private record PendingRecord(LedgerRecord record, CompletableFuture<Void> durable) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.User.wallet.journal;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * One committed wallet operation, stored as a fixed-size {@value #SIZE}-byte record. The layout:
+ *
+ * <pre>
+ *  0  sequence      long
+ *  8  timestamp ms  long
+ * 16  from wallet   2 longs, zero for OPEN and DEPOSIT
+ * 32  to wallet     2 longs
+ * 48  amount        long, minor units
+ * 56  type          short
+ * 58  reserved      short
+ * 60  CRC32C        int, of bytes 0 to 59
+ * </pre>
+ *
+ * @param sequence    the position of the record in the journal, from 1 without gaps
+ * @param timestampMs when the operation was committed
+ * @param type        the operation
+ * @param from        the debited wallet of a transfer, null otherwise
+ * @param to          the opened, credited or receiving wallet
+ * @param amount      the amount in minor units, 0 for OPEN
+ */
+public record LedgerRecord(long sequence, long timestampMs, Type type, UUID from, UUID to, long amount) {
+
+    public static final int SIZE = 64;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int FROM_OFFSET = 16;
+    private static final int TO_OFFSET = 32;
+    private static final int AMOUNT_OFFSET = 48;
+    private static final int TYPE_OFFSET = 56;
+    private static final int RESERVED_OFFSET = 58;
+    private static final int CRC_OFFSET = 60;
+
+    public enum Type {
+        OPEN,
+        DEPOSIT,
+        TRANSFER;
+
+        private static final Type[] VALUES = values();
+
+        static Type of(int code) {
+            return code >= 1 && code <= VALUES.length ? VALUES[code - 1] : null;
+        }
+
+        int code() {
+            return ordinal() + 1;
+        }
+    }
+
+    public static LedgerRecord open(UUID walletId) {
+        return new LedgerRecord(0, System.currentTimeMillis(), Type.OPEN, null, walletId, 0);
+    }
+
+    public static LedgerRecord deposit(UUID walletId, long amount) {
+        return new LedgerRecord(0, System.currentTimeMillis(), Type.DEPOSIT, null, walletId, amount);
+    }
+
+    public static LedgerRecord transfer(UUID from, UUID to, long amount) {
+        return new LedgerRecord(0, System.currentTimeMillis(), Type.TRANSFER, from, to, amount);
+    }
+
+    /**
+     * Writes the record with the given sequence at an absolute offset, leaving the buffer's position alone.
+     *
+     * @param buffer           the segment buffer
+     * @param offset           the offset of the record in the buffer
+     * @param assignedSequence the sequence the journal assigned to the record
+     */
+    void writeTo(ByteBuffer buffer, int offset, long assignedSequence) {
+        buffer.putLong(offset, assignedSequence);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestampMs);
+        buffer.putLong(offset + FROM_OFFSET, from == null ? 0 : from.getMostSignificantBits());
+        buffer.putLong(offset + FROM_OFFSET + Long.BYTES, from == null ? 0 : from.getLeastSignificantBits());
+        buffer.putLong(offset + TO_OFFSET, to.getMostSignificantBits());
+        buffer.putLong(offset + TO_OFFSET + Long.BYTES, to.getLeastSignificantBits());
+        buffer.putLong(offset + AMOUNT_OFFSET, amount);
+        buffer.putShort(offset + TYPE_OFFSET, (short) type.code());
+        buffer.putShort(offset + RESERVED_OFFSET, (short) 0);
+        buffer.putInt(offset + CRC_OFFSET, crc(buffer, offset));
+    }
+
+    /**
+     * Reads the record at an absolute offset.
+     *
+     * @param buffer the segment buffer
+     * @param offset the offset of the record in the buffer
+     * @return the record, or null if its checksum or type is invalid, as in unwritten or torn records
+     */
+    static LedgerRecord readFrom(ByteBuffer buffer, int offset) {
+        if (buffer.getInt(offset + CRC_OFFSET) != crc(buffer, offset)) {
+            return null;
+        }
+        Type type = Type.of(buffer.getShort(offset + TYPE_OFFSET));
+        if (type == null) {
+            return null;
+        }
+        long fromMsb = buffer.getLong(offset + FROM_OFFSET);
+        long fromLsb = buffer.getLong(offset + FROM_OFFSET + Long.BYTES);
+        return new LedgerRecord(
+                buffer.getLong(offset),
+                buffer.getLong(offset + TIMESTAMP_OFFSET),
+                type,
+                type == Type.TRANSFER ? new UUID(fromMsb, fromLsb) : null,
+                new UUID(buffer.getLong(offset + TO_OFFSET), buffer.getLong(offset + TO_OFFSET + Long.BYTES)),
+                buffer.getLong(offset + AMOUNT_OFFSET));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.User.wallet.journal;
+
+import com.example.User.wallet.index.OffHeapBalanceMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads a ledger journal back, to rebuild wallet balances after a restart.
+ *
+ * <p>Records are applied without balance checks: the journal holds operations that were already committed, and
+ * across shards its order is causal but not the order in which the shards applied them, so a wallet may dip below
+ * zero midway through a replay. The balances after the last record are the committed ones.
+ *
+ * <p>A wallet the engine split into sub-balances is rebuilt whole. The journal records the operations of the
+ * wallet, not which sub-balance they hit, and the sweeps between sub-balances are not journaled, as they do not
+ * change the wallet's balance. The balance is therefore the committed one, but the split is not restored: the wallet
+ * is split again once it turns hot.
+ */
+public final class LedgerReplayer {
+
+    private static final long INITIAL_WALLETS = 65_536;
+
+    private LedgerReplayer() {
+    }
+
+    /**
+     * Passes every valid record of the journal to the consumer, in sequence order. Reading stops at the first
+     * torn or unwritten record, as recovery does; the files are not modified.
+     *
+     * @param directory the journal directory
+     * @param consumer  receives the records
+     * @return the number of records read
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replay(Path directory, Consumer<LedgerRecord> consumer) throws IOException {
+        long records = 0;
+        long expectedSequence = 1;
+        for (Path path : LedgerSegment.list(directory)) {
+            try (LedgerSegment segment = LedgerSegment.openForRead(path)) {
+                if (segment.firstSequence() != expectedSequence) {
+                    break;
+                }
+                records += segment.recover(consumer);
+                expectedSequence = segment.nextSequence();
+                if (!segment.isFull()) {
+                    break;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Rebuilds the balance of every wallet in the journal, off the heap, so that tens of millions of wallets do
+     * not turn into as many boxed map entries at startup.
+     *
+     * @param directory the journal directory
+     * @return the balance in minor units by wallet id, including wallets that were opened and never funded, with
+     *         the number of changes to it as its version
+     * @throws IOException if a segment cannot be read
+     */
+    public static OffHeapBalanceMap rebuildBalances(Path directory) throws IOException {
+        OffHeapBalanceMap balances = OffHeapBalanceMap.withCapacity(INITIAL_WALLETS);
+        replay(directory, record -> apply(balances, record));
+        return balances;
+    }
+
+    private static void apply(OffHeapBalanceMap balances, LedgerRecord record) {
+        switch (record.type()) {
+            case OPEN -> balances.putIfAbsent(record.to(), 0);
+            case DEPOSIT -> add(balances, record.to(), record.amount());
+            case TRANSFER -> {
+                add(balances, record.from(), -record.amount());
+                add(balances, record.to(), record.amount());
+            }
+            default -> throw new IllegalStateException("Unknown record type " + record.type());
+        }
+    }
+
+    private static void add(OffHeapBalanceMap balances, UUID walletId, long amount) {
+        if (!balances.putIfAbsent(walletId, amount)) {
+            balances.addAndGet(walletId, amount);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.User.wallet.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * One memory-mapped, preallocated file of the journal, holding a fixed number of {@link LedgerRecord}s. The file
+ * is named after the sequence of its first record, so segments sort by name.
+ *
+ * <p>Not thread-safe: the journal's writer thread owns the segment it appends to.
+ */
+final class LedgerSegment implements AutoCloseable {
+
+    static final String SUFFIX = ".ledger";
+
+    private final Path path;
+    private final long firstSequence;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int count;
+
+    private LedgerSegment(Path file, long first, FileChannel fileChannel, MappedByteBuffer mapping) {
+        this.path = file;
+        this.firstSequence = first;
+        this.channel = fileChannel;
+        this.buffer = mapping;
+        this.capacity = mapping.capacity() / LedgerRecord.SIZE;
+    }
+
+    /**
+     * Maps a segment for appending, creating and preallocating the file if it does not exist.
+     *
+     * @param directory     the journal directory
+     * @param firstSequence the sequence of the first record of the segment
+     * @param capacity      the number of records of a new segment; existing segments keep their size
+     * @return the mapped segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static LedgerSegment openForAppend(Path directory, long firstSequence, int capacity) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size() > 0 ? channel.size() : (long) capacity * LedgerRecord.SIZE;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new LedgerSegment(path, firstSequence, channel, buffer);
+    }
+
+    static LedgerSegment openForRead(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return new LedgerSegment(path, firstSequenceOf(path), channel, buffer);
+    }
+
+    /**
+     * @param directory the journal directory
+     * @return the segment files of the directory, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            segments.sort(Comparator.comparingLong(LedgerSegment::firstSequenceOf));
+            return segments;
+        }
+    }
+
+    static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Reads the records from the start of the segment up to the first one that is unwritten, torn, or out of
+     * sequence, and positions the segment for appending after the last valid one.
+     *
+     * @param consumer receives the valid records in order
+     * @return the number of valid records
+     */
+    int recover(Consumer<LedgerRecord> consumer) {
+        count = 0;
+        while (count < capacity) {
+            LedgerRecord record = LedgerRecord.readFrom(buffer, count * LedgerRecord.SIZE);
+            if (record == null || record.sequence() != firstSequence + count) {
+                break;
+            }
+            consumer.accept(record);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Zeroes the records after the last valid one up to the first never-written record, and forces them. Without
+     * this, records of a batch that was torn by a crash could be read back as valid after later appends, as they
+     * carry the sequences the new records take.
+     *
+     * @return whether anything was zeroed
+     */
+    boolean clearTail() {
+        int end = count;
+        while (end < capacity && !isZero(end)) {
+            for (int offset = end * LedgerRecord.SIZE; offset < (end + 1) * LedgerRecord.SIZE; offset += Long.BYTES) {
+                buffer.putLong(offset, 0);
+            }
+            end++;
+        }
+        if (end > count) {
+            force(count, end);
+            return true;
+        }
+        return false;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long nextSequence() {
+        return firstSequence + count;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Writes a record into the mapping; it is durable once {@link #force(int, int)} covered it.
+     *
+     * @param record the record to write
+     * @return the sequence given to the record
+     */
+    long append(LedgerRecord record) {
+        long sequence = nextSequence();
+        record.writeTo(buffer, count * LedgerRecord.SIZE, sequence);
+        count++;
+        return sequence;
+    }
+
+    /**
+     * Drops the records from the given index on: zeroes them in the mapping, so that the page cache cannot write
+     * them back later, and positions the segment for appending there. The zeroes are forced on a best-effort
+     * basis, as this runs after the device failed a force.
+     *
+     * @param from the index of the first record to drop
+     */
+    void truncate(int from) {
+        if (from >= count) {
+            return;
+        }
+        for (int offset = from * LedgerRecord.SIZE; offset < count * LedgerRecord.SIZE; offset += Long.BYTES) {
+            buffer.putLong(offset, 0);
+        }
+        int end = count;
+        count = from;
+        try {
+            force(from, end);
+        } catch (UncheckedIOException ignored) {
+            // The device is failing; what matters is that the mapping no longer holds the records
+        }
+    }
+
+    /**
+     * Flushes the records in [from, to) to the storage device.
+     *
+     * @param from the index of the first record to flush
+     * @param to   the index after the last record to flush
+     */
+    void force(int from, int to) {
+        if (to > from) {
+            buffer.force(from * LedgerRecord.SIZE, (to - from) * LedgerRecord.SIZE);
+        }
+    }
+
+    private boolean isZero(int index) {
+        int start = index * LedgerRecord.SIZE;
+        for (int offset = start; offset < start + LedgerRecord.SIZE; offset += Long.BYTES) {
+            if (buffer.getLong(offset) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
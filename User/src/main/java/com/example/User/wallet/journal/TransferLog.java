@@ -0,0 +1,23 @@
+package com.example.User.wallet.journal;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the transfer engine records committed operations before acknowledging them.
+ */
+public interface TransferLog {
+
+    /**
+     * Keeps nothing; operations are acknowledged as soon as they are applied in memory.
+     */
+    TransferLog NONE = record -> CompletableFuture.completedFuture(null);
+
+    /**
+     * Records an operation. Called by the engine at the point the operation is decided, before any operation that
+     * depends on its effect, so the order of appends respects causality.
+     *
+     * @param record the operation; its sequence is assigned by the log
+     * @return completes once the record is durable
+     */
+    CompletableFuture<Void> append(LedgerRecord record);
+}
@@ -0,0 +1,41 @@
+-- Converts refresh_tokens.token (hex SHA-256 digest in a VARCHAR(500)) into token_hash BINARY(32).
+-- Run before starting the version that maps RefreshToken.tokenHash: ddl-auto=update cannot convert the column.
+-- This script is the first of two steps and runs while the previous version is still serving: it adds the column
+-- and converts the existing rows. The previous version keeps writing token, so token stays until
+-- 001b-refresh-tokens-binary-digest-finish.sql, which runs once no node of the previous version writes anymore,
+-- right before starting the new one.
+-- The conversion walks the primary key in ranges of 50,000 rows, so every chunk is one index range scan and no
+-- chunk holds long locks. Rows whose token is not a 64-character hex digest never matched a presented token,
+-- since the previous version stored nothing else; they are deleted, as they cannot get a token_hash.
+
+ALTER TABLE refresh_tokens ADD COLUMN token_hash BINARY(32) NULL, ALGORITHM=INPLACE, LOCK=NONE;
+
+DELIMITER //
+CREATE PROCEDURE convert_refresh_token_digests()
+BEGIN
+    -- Random UUIDs, so no row has the all-zero id and every id sorts at or below the all-ones one
+    DECLARE lower_id BINARY(16) DEFAULT UNHEX(REPEAT('00', 16));
+    DECLARE upper_id BINARY(16);
+    DECLARE last_chunk BOOLEAN DEFAULT FALSE;
+
+    WHILE NOT last_chunk DO
+        SET upper_id = NULL;
+        SELECT id INTO upper_id FROM refresh_tokens WHERE id > lower_id ORDER BY id LIMIT 1 OFFSET 49999;
+        IF upper_id IS NULL THEN
+            SET upper_id = UNHEX(REPEAT('FF', 16));
+            SET last_chunk = TRUE;
+        END IF;
+
+        UPDATE refresh_tokens SET token_hash = UNHEX(token)
+        WHERE id > lower_id AND id <= upper_id
+          AND token_hash IS NULL AND token REGEXP '^[0-9a-fA-F]{64}$';
+        DELETE FROM refresh_tokens
+        WHERE id > lower_id AND id <= upper_id AND token_hash IS NULL;
+
+        SET lower_id = upper_id;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL convert_refresh_token_digests();
+
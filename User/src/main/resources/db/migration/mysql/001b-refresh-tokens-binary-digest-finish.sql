@@ -0,0 +1,17 @@
+-- Second step of 001-refresh-tokens-binary-digest.sql: finishes the conversion of refresh_tokens.token into
+-- token_hash BINARY(32).
+-- Run only once no node of the previous version writes anymore, right before starting the version that maps
+-- RefreshToken.tokenHash, never together with 001: nodes of the previous version still insert rows with token
+-- only, and those inserts fail once token is dropped.
+-- The procedure created by 001 converts the rows written since then, then the column becomes NOT NULL and token
+-- is dropped.
+
+CALL convert_refresh_token_digests();
+
+-- Dropping token also drops its VARCHAR(500) unique index
+ALTER TABLE refresh_tokens
+    MODIFY token_hash BINARY(32) NOT NULL,
+    ADD CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash),
+    DROP COLUMN token;
+
+DROP PROCEDURE convert_refresh_token_digests;
@@ -0,0 +1,19 @@
+-- Indexes walked by the refresh token purge job, and the table holding its lease and progress.
+-- ddl-auto=update creates both on an empty schema; on an existing table build the indexes online first.
+
+ALTER TABLE refresh_tokens
+    ADD INDEX idx_refresh_tokens_expiry_date (expiry_date, id),
+    ADD INDEX idx_refresh_tokens_revoked_at (revoked_at, id),
+    ALGORITHM=INPLACE, LOCK=NONE;
+
+CREATE TABLE IF NOT EXISTS maintenance_job_state (
+    job_name          VARCHAR(64)  NOT NULL PRIMARY KEY,
+    lease_owner       VARCHAR(100) NULL,
+    lease_expires_at  DATETIME(6)  NULL,
+    run_threshold     DATETIME(6)  NULL,
+    phase             VARCHAR(32)  NULL,
+    cursor_time       DATETIME(6)  NULL,
+    cursor_id         BINARY(16)   NULL,
+    rows_processed    BIGINT       NOT NULL,
+    last_completed_at DATETIME(6)  NULL
+) ENGINE=InnoDB;
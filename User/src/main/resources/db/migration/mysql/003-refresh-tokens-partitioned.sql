@@ -0,0 +1,60 @@
+-- Rebuilds refresh_tokens as a table RANGE-partitioned by month of expiry_date, for
+-- refresh-token.partitioning.enabled=true. MySQL requires every unique key, including the primary key, to contain
+-- the partitioning column, so the token_hash key becomes uk_refresh_tokens_token_hash_expiry (token_hash,
+-- expiry_date); digests are unique on their own, being SHA-256 of random tokens. MySQL also does not allow foreign
+-- keys on partitioned tables, so user_id loses the foreign key to user_entity. The service never deletes users; a
+-- job that does must delete their refresh tokens in the same transaction. Tokens left without their user are never
+-- accepted, since a token is only read joined with its user, and retention removes them.
+-- Retention then drops whole partitions (RefreshTokenPartitionManager), which also splits future months out of
+-- pmax every night. The first boundary is the first day of the month the script runs in, taken from CURDATE();
+-- the manager creates the following months on startup. Refresh tokens live for two weeks, so the copy is small
+-- once the batched purge has run.
+-- The bulk copy runs while the service keeps writing. The catch-up and the swap then run under LOCK TABLES, which
+-- blocks logins, refreshes and the purge job for one pass over the small table: rows inserted since the copy are
+-- added, revocations made since the copy (revoked, revoked_at, the only columns the service updates) are applied
+-- and rows purged since the copy are deleted, so no revoked token becomes valid again and no purged one comes
+-- back. Renaming locked tables needs MySQL 8.0.13 or later; on older servers stop the service for the whole
+-- script instead.
+
+CREATE TABLE refresh_tokens_partitioned (
+    id          BINARY(16)  NOT NULL,
+    token_hash  BINARY(32)  NOT NULL,
+    user_id     BINARY(16)  NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    created_at  DATETIME(6) NULL,
+    revoked_at  DATETIME(6) NULL,
+    revoked     BIT(1)      NOT NULL,
+    PRIMARY KEY (id, expiry_date),
+    UNIQUE KEY uk_refresh_tokens_token_hash_expiry (token_hash, expiry_date),
+    KEY idx_refresh_tokens_expiry_date (expiry_date, id),
+    KEY idx_refresh_tokens_revoked_at (revoked_at, id),
+    KEY idx_refresh_tokens_user_id (user_id, expiry_date)
+) ENGINE=InnoDB;
+
+-- Partitioning clauses only take literals, so the boundary is put into the statement. The table is empty, so this
+-- only rewrites its definition.
+SET @partition_refresh_tokens = CONCAT(
+    'ALTER TABLE refresh_tokens_partitioned PARTITION BY RANGE COLUMNS (expiry_date) (',
+    'PARTITION p_history VALUES LESS THAN (''', DATE_FORMAT(CURDATE(), '%Y-%m-01'), '''), ',
+    'PARTITION pmax VALUES LESS THAN (MAXVALUE))');
+PREPARE partition_refresh_tokens FROM @partition_refresh_tokens;
+EXECUTE partition_refresh_tokens;
+DEALLOCATE PREPARE partition_refresh_tokens;
+
+INSERT INTO refresh_tokens_partitioned (id, token_hash, user_id, expiry_date, created_at, revoked_at, revoked)
+SELECT id, token_hash, user_id, expiry_date, created_at, revoked_at, revoked FROM refresh_tokens;
+
+LOCK TABLES refresh_tokens WRITE, refresh_tokens_partitioned WRITE;
+
+INSERT INTO refresh_tokens_partitioned (id, token_hash, user_id, expiry_date, created_at, revoked_at, revoked)
+SELECT id, token_hash, user_id, expiry_date, created_at, revoked_at, revoked FROM refresh_tokens
+ON DUPLICATE KEY UPDATE revoked = VALUES(revoked), revoked_at = VALUES(revoked_at);
+
+DELETE FROM refresh_tokens_partitioned
+WHERE NOT EXISTS (SELECT 1 FROM refresh_tokens WHERE refresh_tokens.id = refresh_tokens_partitioned.id);
+
+RENAME TABLE refresh_tokens TO refresh_tokens_unpartitioned, refresh_tokens_partitioned TO refresh_tokens;
+
+UNLOCK TABLES;
+
+DROP TABLE refresh_tokens_unpartitioned;
@@ -0,0 +1,14 @@
+-- Transactional outbox: events are inserted with the change they describe and relayed to Kafka in id order.
+-- ddl-auto=update creates the table on an empty schema.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id           BIGINT         NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    topic        VARCHAR(128)   NOT NULL,
+    message_key  VARCHAR(64)    NULL,
+    event_type   VARCHAR(64)    NOT NULL,
+    content_type VARCHAR(64)    NOT NULL,
+    payload      VARBINARY(4096) NOT NULL,
+    created_at   DATETIME(6)    NULL,
+    sent_at      DATETIME(6)    NULL,
+    INDEX idx_outbox_events_sent_at (sent_at, id)
+) ENGINE=InnoDB;
@@ -0,0 +1,12 @@
+-- Wallets created by the wallet provisioning consumer; user_id is unique so that redelivered events are no-ops.
+-- ddl-auto=update creates the table on an empty schema.
+
+CREATE TABLE IF NOT EXISTS wallets (
+    id           BINARY(16)   NOT NULL PRIMARY KEY,
+    user_id      BINARY(16)   NOT NULL,
+    phone_number VARCHAR(255) NOT NULL,
+    balance      BIGINT       NOT NULL,
+    created_at   DATETIME(6)  NULL,
+    version      BIGINT       NOT NULL,
+    CONSTRAINT uk_wallets_user_id UNIQUE (user_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,43 @@
+-- Re-keys existing users and refresh tokens with time-ordered UUIDv7 ids, so that the rows written before the
+-- switch to UuidV7Id sit in creation order in the clustered index like the new ones. The id columns already are
+-- BINARY(16), the layout Hibernate writes with @JdbcTypeCode(SqlTypes.BINARY); only their values change.
+-- The timestamp of each new id is the row's created_at; the 74 remaining bits are random.
+-- Run in a maintenance window with the service stopped, after the outbox is drained
+-- (SELECT COUNT(*) FROM outbox_events WHERE sent_at IS NULL returns 0): events already published carry the old
+-- user ids, and wallets.user_id is re-keyed here as well.
+
+CREATE TABLE user_id_v7 (
+    old_id BINARY(16) NOT NULL PRIMARY KEY,
+    new_id BINARY(16) NOT NULL,
+    UNIQUE KEY uk_user_id_v7_new_id (new_id)
+) ENGINE=InnoDB
+SELECT id AS old_id,
+       UNHEX(CONCAT(
+               LPAD(HEX(FLOOR(UNIX_TIMESTAMP(COALESCE(created_at, NOW(6))) * 1000)), 12, '0'),
+               '7', SUBSTRING(HEX(RANDOM_BYTES(2)), 2, 3),
+               HEX((ASCII(RANDOM_BYTES(1)) & 0x3F) | 0x80),
+               HEX(RANDOM_BYTES(7)))) AS new_id
+FROM user_entity;
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+UPDATE user_roles r JOIN user_id_v7 m ON r.user_id = m.old_id SET r.user_id = m.new_id;
+UPDATE refresh_tokens t JOIN user_id_v7 m ON t.user_id = m.old_id SET t.user_id = m.new_id;
+UPDATE wallets w JOIN user_id_v7 m ON w.user_id = m.old_id SET w.user_id = m.new_id;
+UPDATE user_entity u JOIN user_id_v7 m ON u.id = m.old_id SET u.id = m.new_id;
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Nothing references refresh token ids
+UPDATE refresh_tokens
+SET id = UNHEX(CONCAT(
+        LPAD(HEX(FLOOR(UNIX_TIMESTAMP(COALESCE(created_at, NOW(6))) * 1000)), 12, '0'),
+        '7', SUBSTRING(HEX(RANDOM_BYTES(2)), 2, 3),
+        HEX((ASCII(RANDOM_BYTES(1)) & 0x3F) | 0x80),
+        HEX(RANDOM_BYTES(7))));
+
+-- Rebuild both tables so their pages are filled in the new key order
+ALTER TABLE user_entity FORCE;
+ALTER TABLE refresh_tokens FORCE;
+
+DROP TABLE user_id_v7;
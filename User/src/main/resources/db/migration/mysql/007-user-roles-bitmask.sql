@@ -0,0 +1,14 @@
+-- Folds the user_roles collection table into a roles bitmask on user_entity (see com.example.User.entities.Role:
+-- bit 0 ROLE_USER, bit 1 ROLE_ADMIN). Users without any row in user_roles keep ROLE_USER.
+-- Run before starting the version that maps User.roles as an int: ddl-auto=update cannot fill the column.
+
+ALTER TABLE user_entity ADD COLUMN roles INT NOT NULL DEFAULT 1, ALGORITHM=INSTANT;
+
+UPDATE user_entity u
+JOIN (SELECT user_id,
+             BIT_OR(CASE roles WHEN 'ROLE_USER' THEN 1 WHEN 'ROLE_ADMIN' THEN 2 ELSE 0 END) AS mask
+      FROM user_roles
+      GROUP BY user_id) r ON r.user_id = u.id
+SET u.roles = r.mask;
+
+DROP TABLE user_roles;
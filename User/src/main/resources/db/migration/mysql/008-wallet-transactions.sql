@@ -0,0 +1,24 @@
+-- Transaction history of the wallets, read by GET /api/wallets/{userId}/transactions newest first, one keyset page
+-- at a time. Every combination of the optional direction and type filters has an index that puts the filtered
+-- columns before (created_at, id), so a page is one seek plus a scan of its own rows, whatever its depth.
+-- The indexes cover the page query: the columns after (created_at, id) are the rest of what it selects, so a page
+-- is read from the index alone, with no primary key lookup per row.
+-- ddl-auto=update creates the table on an empty schema.
+
+CREATE TABLE IF NOT EXISTS wallet_transactions (
+    id                     BINARY(16)  NOT NULL PRIMARY KEY,
+    wallet_id              BINARY(16)  NOT NULL,
+    type                   VARCHAR(16) NOT NULL,
+    direction              VARCHAR(8)  NOT NULL,
+    amount                 BIGINT      NOT NULL,
+    counterparty_wallet_id BINARY(16)  NULL,
+    created_at             DATETIME(6) NOT NULL,
+    INDEX idx_wallet_transactions_wallet (wallet_id, created_at DESC, id DESC,
+        type, direction, amount, counterparty_wallet_id),
+    INDEX idx_wallet_transactions_direction (wallet_id, direction, created_at DESC, id DESC,
+        type, amount, counterparty_wallet_id),
+    INDEX idx_wallet_transactions_type (wallet_id, type, created_at DESC, id DESC,
+        direction, amount, counterparty_wallet_id),
+    INDEX idx_wallet_transactions_direction_type (wallet_id, direction, type, created_at DESC, id DESC,
+        amount, counterparty_wallet_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,87 @@
+package com.example.User.cache;
+
+import com.example.User.entities.User;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.UserVersionTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    UserCache userCache;
+
+    User user;
+
+    @BeforeEach
+    void setup() {
+        userCache = new UserCache(userRepository, new InProcessUserInvalidationBus(),
+                new UserVersionTracker(300000), 100, 60000);
+        user = User.builder()
+                .id(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"))
+                .name("Hari")
+                .email("hari@gmail.com")
+                .build();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        when(userRepository.findByEmail("hari@gmail.com")).thenReturn(Optional.of(user));
+
+        assertThat(userCache.findByEmail("hari@gmail.com")).contains(user);
+        assertThat(userCache.findByEmail("hari@gmail.com")).contains(user);
+        assertThat(userCache.findById(user.getId())).contains(user);
+
+        verify(userRepository).findByEmail("hari@gmail.com");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        when(userRepository.findByEmail("hari@gmail.com")).thenReturn(Optional.of(user));
+        userCache.findByEmail("hari@gmail.com");
+
+        User updated = User.builder()
+                .id(user.getId())
+                .name("Hari")
+                .email("hari@gmail.com")
+                .version(1)
+                .build();
+        userCache.invalidate(updated);
+        when(userRepository.findByEmail("hari@gmail.com")).thenReturn(Optional.of(updated));
+
+        assertThat(userCache.findByEmail("hari@gmail.com")).contains(updated);
+        verify(userRepository, times(2)).findByEmail("hari@gmail.com");
+    }
+
+    @Test
+    void shouldNotCacheVersionsOlderThanAnInvalidation() {
+        User updated = User.builder()
+                .id(user.getId())
+                .email("hari@gmail.com")
+                .version(1)
+                .build();
+        userCache.invalidate(updated);
+        when(userRepository.findByEmail("hari@gmail.com")).thenReturn(Optional.of(user));
+
+        userCache.findByEmail("hari@gmail.com");
+        userCache.findByEmail("hari@gmail.com");
+
+        verify(userRepository, times(2)).findByEmail("hari@gmail.com");
+    }
+}
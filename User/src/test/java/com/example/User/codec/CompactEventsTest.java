@@ -0,0 +1,121 @@
+package com.example.User.codec;
+
+import com.example.User.entities.models.UserInvalidationEvent;
+import com.example.User.entities.models.WalletCreationEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompactEventsTest {
+
+    private static final String TOPIC = "wallet-creation-topic";
+
+    private final WalletCreationEvent walletCreationEvent = WalletCreationEvent.builder()
+            .userId(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"))
+            .phoneNumber("+919876543210")
+            .build();
+
+    @Test
+    void walletCreationEventHasAFixedLayout() {
+        byte[] encoded = CompactEvents.encode(walletCreationEvent);
+
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        assertThat(buffer.get()).isEqualTo(CompactEvents.MAGIC);
+        assertThat(buffer.get()).isEqualTo((byte) 1);
+        assertThat(buffer.get()).isEqualTo((byte) 1);
+        assertThat(new UUID(buffer.getLong(), buffer.getLong())).isEqualTo(walletCreationEvent.getUserId());
+        assertThat(buffer.getShort()).isEqualTo((short) 13);
+        assertThat(encoded).hasSize(3 + 16 + 2 + 13);
+    }
+
+    @Test
+    void roundTripsEveryEventType() {
+        UserInvalidationEvent invalidation = new UserInvalidationEvent(UUID.randomUUID(), "ravi@gmail.com", 42);
+        WalletCreationEvent withoutPhone = WalletCreationEvent.builder().userId(UUID.randomUUID()).build();
+
+        assertThat(CompactEvents.decode(CompactEvents.encode(walletCreationEvent))).isEqualTo(walletCreationEvent);
+        assertThat(CompactEvents.decode(CompactEvents.encode(invalidation))).isEqualTo(invalidation);
+        assertThat(CompactEvents.decode(CompactEvents.encode(withoutPhone), WalletCreationEvent.class))
+                .isEqualTo(withoutPhone);
+    }
+
+    @Test
+    void isSmallerThanJson() throws Exception {
+        byte[] json = new ObjectMapper().writeValueAsBytes(walletCreationEvent);
+
+        assertThat(CompactEvents.encode(walletCreationEvent).length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void readsFieldsAppendedByANewerVersionAsTheVersionItKnows() {
+        byte[] encoded = CompactEvents.encode(walletCreationEvent);
+        byte[] newer = Arrays.copyOf(encoded, encoded.length + 8);
+        newer[2] = 2;
+
+        assertThat(CompactEvents.decode(newer)).isEqualTo(walletCreationEvent);
+    }
+
+    @Test
+    void rejectsMalformedMessages() {
+        byte[] encoded = CompactEvents.encode(walletCreationEvent);
+        byte[] unknownType = encoded.clone();
+        unknownType[1] = 99;
+
+        assertThatThrownBy(() -> CompactEvents.decode(unknownType)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompactEvents.decode(Arrays.copyOf(encoded, encoded.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompactEvents.decode(encoded, UserInvalidationEvent.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deserializerReadsJsonWrittenBeforeTheRollout() {
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json = jsonSerializer.serialize(TOPIC, headers, walletCreationEvent);
+
+        // Typed consumers, like the wallet provisioning listener, need no header
+        assertThat(new CompactEventDeserializer<>(WalletCreationEvent.class).deserialize(TOPIC, json))
+                .isEqualTo(walletCreationEvent);
+        // Untyped consumers use the type header of the JsonSerializer
+        assertThat(new CompactEventDeserializer<>().deserialize(TOPIC, headers, json))
+                .isEqualTo(walletCreationEvent);
+    }
+
+    @Test
+    void serializerFollowsTheConfiguredFormat() {
+        CompactEventSerializer serializer = new CompactEventSerializer();
+        CompactEventDeserializer<Object> deserializer = new CompactEventDeserializer<>();
+
+        // JSON until the rollout switches producers to binary
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json = serializer.serialize(TOPIC, jsonHeaders, walletCreationEvent);
+        assertThat(json[0]).isEqualTo((byte) '{');
+        assertThat(deserializer.deserialize(TOPIC, jsonHeaders, json)).isEqualTo(walletCreationEvent);
+
+        serializer.configure(Map.of(CompactEventSerializer.FORMAT_CONFIG, "binary"), false);
+        RecordHeaders headers = new RecordHeaders();
+        byte[] compact = serializer.serialize(TOPIC, headers, walletCreationEvent);
+        assertThat(CompactEvents.isCompact(compact)).isTrue();
+        assertThat(deserializer.deserialize(TOPIC, headers, compact)).isEqualTo(walletCreationEvent);
+    }
+
+    @Test
+    void deserializerOnlyInstantiatesEventTypesFromHeaders() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("__TypeId__", "java.util.HashMap".getBytes());
+
+        assertThatThrownBy(() -> new CompactEventDeserializer<>().deserialize(TOPIC, headers, "{}".getBytes()))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.User.controller;
+
+import com.example.User.cache.UserCache;
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.runner.SeedRunner;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of JDBC statements a login costs: one read of the user, one bulk revoke of the user's
+ * refresh tokens and one insert of the new token. Users served from the near-cache cost no read at all.
+ */
+@SpringBootTest(properties = {
+        "refresh-token.store=jpa",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // The statistics count every session; keep the relay's polls out of them
+        "outbox.relay.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+public class LoginStatementCountTest {
+
+    private static final long LOGIN_STATEMENTS = 3;
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    UserCache userCache;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User saveUser(String passwordHash) {
+        User user = userRepository.save(User.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password(passwordHash)
+                .roles(Role.USER.mask())
+                .build());
+        // Start from a cold cache, as other tests may have cached an earlier user with this email
+        userCache.invalidate(user);
+        return user;
+    }
+
+    private void login() throws Exception {
+        mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"ravi@gmail.com\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void loginReadsTheUserOnce() throws Exception {
+        saveUser(passwordEncoder.encode(PASSWORD));
+
+        statistics.clear();
+        login();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(LOGIN_STATEMENTS);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loginOfACachedUserOnlyWritesTheRefreshToken() throws Exception {
+        saveUser(passwordEncoder.encode(PASSWORD));
+        login();
+
+        statistics.clear();
+        login();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(LOGIN_STATEMENTS - 1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void rehashAddsOneUpdateAndKeepsTheVersion() throws Exception {
+        String outdatedHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        User user = saveUser(outdatedHash);
+
+        statistics.clear();
+        login();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(LOGIN_STATEMENTS + 1);
+        User rehashed = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(rehashed.getPassword()).isNotEqualTo(outdatedHash);
+        assertThat(passwordEncoder.matches(PASSWORD, rehashed.getPassword())).isTrue();
+        assertThat(rehashed.getVersion()).isEqualTo(user.getVersion());
+    }
+}
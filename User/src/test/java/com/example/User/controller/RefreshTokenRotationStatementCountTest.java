@@ -0,0 +1,127 @@
+package com.example.User.controller;
+
+import com.example.User.entities.RefreshToken;
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.RefreshTokenService;
+import com.example.User.service.runner.SeedRunner;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of JDBC statements a refresh costs: one fetch-join read of the token with its user,
+ * one bulk revoke of the user's tokens and one insert of the new token.
+ */
+@SpringBootTest(properties = {
+        "refresh-token.store=jpa",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // The statistics count every session; keep the relay's polls out of them
+        "outbox.relay.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+public class RefreshTokenRotationStatementCountTest {
+
+    private static final long REFRESH_STATEMENTS = 3;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        user = userRepository.save(User.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("{noop}password123")
+                .roles(Role.USER.mask())
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void refresh(String refreshToken) throws Exception {
+        mockMvc.perform(post("/api/users/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void refreshRunsOneReadAndOneWriteGroup() throws Exception {
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+
+        statistics.clear();
+        refresh(refreshToken);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(REFRESH_STATEMENTS);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheNumberOfTokensOfTheUser() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            refreshTokenService.createRefreshToken(user);
+        }
+        // Each new token revokes the previous ones, so only the last one is still valid
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+
+        statistics.clear();
+        refresh(refreshToken);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(REFRESH_STATEMENTS);
+        List<RefreshToken> tokens = refreshTokenRepository.findAll();
+        assertThat(tokens).hasSize(7);
+        assertThat(tokens).filteredOn(token -> !token.isRevoked()).hasSize(1);
+    }
+
+    @Test
+    void tokensOfADeletedUserAreRejected() throws Exception {
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+        // user_id is not a foreign key, so the user goes and the token stays
+        userRepository.deleteById(user.getId());
+
+        mockMvc.perform(post("/api/users/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isUnauthorized());
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.User.controller;
+
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.runner.SeedRunner;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Changes roles and passwords through the API, and checks that access tokens issued before the change are no
+ * longer trusted for their claims.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-admin-test;DB_CLOSE_DELAY=-1",
+        "outbox.relay.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+public class UserAdminControllerTest {
+
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    // The version tracker and the user cache outlive each test, so every test has its own user
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        email = "ravi-" + UUID.randomUUID() + "@gmail.com";
+    }
+
+    private User saveUser(int roles) {
+        return userRepository.save(User.builder()
+                .name("Ravi")
+                .email(email)
+                .phoneNumber("+14155550100")
+                .password(passwordEncoder.encode(PASSWORD))
+                .roles(roles)
+                .build());
+    }
+
+    private String login(String password) throws Exception {
+        String response = mockMvc.perform(post("/api/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode body = objectMapper.readTree(response);
+        return body.get("token").asText();
+    }
+
+    private ResultActions changeRoles(String token, UUID userId, String roles) throws Exception {
+        return mockMvc.perform(put("/api/admin/users/" + userId + "/roles")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"roles\":" + roles + "}"));
+    }
+
+    private ResultActions changePassword(String token, String currentPassword, String newPassword)
+            throws Exception {
+        return mockMvc.perform(put("/api/users/me/password")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"currentPassword\":\"" + currentPassword + "\",\"newPassword\":\"" + newPassword
+                        + "\"}"));
+    }
+
+    @Test
+    void tokensIssuedBeforeARoleChangeLoseTheOldRoles() throws Exception {
+        User admin = saveUser(Role.mask(Role.USER, Role.ADMIN));
+        String token = login(PASSWORD);
+
+        changeRoles(token, admin.getId(), "[\"USER\"]").andExpect(status().isOk());
+
+        User changed = userRepository.findById(admin.getId()).orElseThrow();
+        assertThat(changed.getRoles()).isEqualTo(Role.USER.mask());
+        assertThat(changed.getVersion()).isGreaterThan(admin.getVersion());
+        // The token still claims ROLE_ADMIN, but it was issued for the previous version
+        changeRoles(token, admin.getId(), "[\"USER\", \"ADMIN\"]").andExpect(status().isForbidden());
+    }
+
+    @Test
+    void rejectsUnknownRolesAndUsers() throws Exception {
+        User admin = saveUser(Role.mask(Role.USER, Role.ADMIN));
+        String token = login(PASSWORD);
+
+        changeRoles(token, admin.getId(), "[\"OWNER\"]").andExpect(status().isBadRequest());
+        changeRoles(token, UUID.randomUUID(), "[\"USER\"]").andExpect(status().isNotFound());
+        changeRoles(token, admin.getId(), "[]").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void isForAdminsOnly() throws Exception {
+        User user = saveUser(Role.USER.mask());
+        String token = login(PASSWORD);
+
+        changeRoles(token, user.getId(), "[\"USER\", \"ADMIN\"]").andExpect(status().isForbidden());
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getRoles()).isEqualTo(Role.USER.mask());
+    }
+
+    @Test
+    void changesThePasswordOnceTheCurrentOneIsConfirmed() throws Exception {
+        User user = saveUser(Role.USER.mask());
+        String token = login(PASSWORD);
+
+        changePassword(token, "wrong-password", "newPassword123").andExpect(status().isUnauthorized());
+        changePassword(token, PASSWORD, "newPassword123").andExpect(status().isNoContent());
+
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getVersion())
+                .isGreaterThan(user.getVersion());
+        login("newPassword123");
+    }
+}
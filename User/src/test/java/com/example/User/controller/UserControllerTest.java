@@ -2,6 +2,7 @@ package com.example.User.controller;
 
 import com.example.User.config.SecurityConfiguration;
 import com.example.User.customExceptions.UserAlreadyExistsException;
+import com.example.User.entities.Role;
 import com.example.User.entities.User;
 import com.example.User.entities.request.UserRequestDTO;
 import com.example.User.entities.response.UserResponseDTO;
@@ -9,6 +10,7 @@ import com.example.User.filter.JsonUsernamePasswordAuthFilter;
 import com.example.User.handler.SuccessfullLoginHandler;
 import com.example.User.handler.UnsuccessfulLoginHandler;
 import com.example.User.repository.UserRepository;
+import com.example.User.service.UserAuthenticationProvider;
 import com.example.User.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -29,7 +31,6 @@ import org.springframework.test.web.servlet.ResultMatcher;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -50,6 +51,9 @@ public class UserControllerTest {
     @MockitoBean
     UserDetailsService uds;
 
+    @MockitoBean
+    UserAuthenticationProvider userAuthenticationProvider;
+
     @MockitoBean
     SuccessfullLoginHandler successfullLoginHandler;
 
@@ -100,7 +104,7 @@ public class UserControllerTest {
                     .email("hari@gmail.com")
                     .createdAt(LocalDateTime.parse("2023-10-01T12:00:00"))
                     .isKycDone(false)
-                    .roles(Set.of("USER"))
+                    .roles(Role.USER.mask())
                     .build();
 
             Mockito.when(userService.register(Mockito.any(UserRequestDTO.class))
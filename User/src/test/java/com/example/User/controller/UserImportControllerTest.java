@@ -0,0 +1,208 @@
+package com.example.User.controller;
+
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.entities.models.UserImportResult;
+import com.example.User.entities.request.UserRequestDTO;
+import com.example.User.outbox.OutboxWriter;
+import com.example.User.repository.OutboxEventRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.UserService;
+import com.example.User.service.runner.SeedRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-import-test;DB_CLOSE_DELAY=-1",
+        "outbox.relay.initial-delay-ms=3600000",
+        "user.import.chunk-size=50",
+        "user.import.hashing-parallelism=4"
+})
+@AutoConfigureMockMvc
+public class UserImportControllerTest {
+
+    private static final String IMPORT_URL = "/api/admin/users/import";
+    private static final int BULK_USERS = 120;
+    private static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    OutboxWriter outboxWriter;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private static String line(String name, String email, String phoneNumber) {
+        return "{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"phoneNumber\":\"" + phoneNumber
+                + "\",\"password\":\"password123\",\"confirmPassword\":\"password123\"}";
+    }
+
+    private List<UserImportResult> importUsers(String body) throws Exception {
+        MvcResult started = mockMvc.perform(post(IMPORT_URL)
+                        .contentType(UserImportController.NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<UserImportResult> results = new ArrayList<>();
+        for (String result : response.split("\n")) {
+            results.add(objectMapper.readValue(result, UserImportResult.class));
+        }
+        return results;
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void reportsEveryLineAndCreatesTheValidUsersInBatches() throws Exception {
+        userService.register(UserRequestDTO.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("password123")
+                .confirmPassword("password123")
+                .build());
+
+        StringBuilder body = new StringBuilder()
+                .append(line("First", "first@example.com", "+14155551000")).append('\n')
+                .append("{not json").append('\n')
+                .append(line("Bad", "not-an-email", "+14155551001")).append('\n')
+                .append(line("Again", "first@example.com", "+14155551002")).append('\n')
+                .append(line("Ravi", "ravi@gmail.com", "+14155551003")).append('\n')
+                .append('\n');
+        for (int i = 0; i < BULK_USERS; i++) {
+            body.append(line("User " + i, "user" + i + "@example.com", "+1415556" + String.format("%04d", i)))
+                    .append('\n');
+        }
+
+        List<UserImportResult> results = importUsers(body.toString());
+
+        // The blank line 6 has no result
+        assertThat(results).hasSize(5 + BULK_USERS);
+        assertThat(results.get(0).status()).isEqualTo(UserImportResult.Status.CREATED);
+        assertThat(results.get(0).userId()).isNotNull();
+        assertThat(results.get(1).status()).isEqualTo(UserImportResult.Status.INVALID);
+        assertThat(results.get(2).status()).isEqualTo(UserImportResult.Status.INVALID);
+        assertThat(results.get(2).error()).contains("email");
+        assertThat(results.get(3).status()).isEqualTo(UserImportResult.Status.DUPLICATE);
+        assertThat(results.get(4).status()).isEqualTo(UserImportResult.Status.DUPLICATE);
+        assertThat(results.get(5).line()).isEqualTo(7);
+        assertThat(results.subList(5, results.size()))
+                .allMatch(result -> result.status() == UserImportResult.Status.CREATED);
+
+        assertThat(userRepository.count()).isEqualTo(1 + 1 + BULK_USERS);
+        // One wallet creation event per user, the registered one included
+        assertThat(outboxEventRepository.count()).isEqualTo(1 + 1 + BULK_USERS);
+        User imported = userRepository.findById(results.get(0).userId()).orElseThrow();
+        assertThat(imported.getPassword()).startsWith("$2");
+        assertThat(imported.getRoles()).isEqualTo(Role.USER.mask());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void duplicatesTheEmailFilterDoesNotKnowAreCaughtByTheUniqueConstraint() throws Exception {
+        // Written past the service, as by another node, so the email filter has not seen it
+        userRepository.save(User.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("{noop}password123")
+                .roles(Role.USER.mask())
+                .build());
+
+        List<UserImportResult> results = importUsers(String.join("\n",
+                line("First", "first@example.com", "+14155551000"),
+                line("Ravi", "ravi@gmail.com", "+14155551001"),
+                line("Second", "second@example.com", "+14155550100"),
+                line("Third", "third@example.com", "+14155551003")));
+
+        assertThat(results).extracting(UserImportResult::status).containsExactly(
+                UserImportResult.Status.CREATED,
+                UserImportResult.Status.DUPLICATE,
+                UserImportResult.Status.DUPLICATE,
+                UserImportResult.Status.CREATED);
+        assertThat(userRepository.count()).isEqualTo(3);
+        assertThat(outboxEventRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void isForAdminsOnly() throws Exception {
+        mockMvc.perform(post(IMPORT_URL)
+                        .contentType(UserImportController.NDJSON)
+                        .content(line("First", "first@example.com", "+14155551000")))
+                .andExpect(status().isForbidden());
+
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void keepsOnlyTheCurrentChunkInThePersistenceContext() throws Exception {
+        // Sampled once per chunk, inside its transaction, once its users are saved
+        List<Integer> managedEntities = new ArrayList<>();
+        doAnswer(invocation -> {
+            managedEntities.add(entityManager.unwrap(SessionImplementor.class)
+                    .getPersistenceContext().getNumberOfManagedEntities());
+            return invocation.callRealMethod();
+        }).when(AopTestUtils.<OutboxWriter>getUltimateTargetObject(outboxWriter)).appendAll(any(), any(), any());
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < BULK_USERS; i++) {
+            body.append(line("User " + i, "user" + i + "@example.com", "+1415556" + String.format("%04d", i)))
+                    .append('\n');
+        }
+        importUsers(body.toString());
+
+        // 50 + 50 + 20 users, and the request's open EntityManager holds none of the earlier chunks
+        assertThat(managedEntities).containsExactly(CHUNK_SIZE, CHUNK_SIZE, BULK_USERS - 2 * CHUNK_SIZE);
+    }
+}
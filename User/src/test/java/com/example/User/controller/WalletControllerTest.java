@@ -0,0 +1,178 @@
+package com.example.User.controller;
+
+import com.example.User.cache.UserCache;
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.entities.Wallet;
+import com.example.User.repository.UserRepository;
+import com.example.User.repository.WalletRepository;
+import com.example.User.service.runner.SeedRunner;
+import com.example.User.utility.UuidBytes;
+import com.example.User.utility.UuidV7;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:wallet-controller-test;DB_CLOSE_DELAY=-1",
+        "wallet.transactions.default-page-size=4"
+})
+@AutoConfigureMockMvc
+public class WalletControllerTest {
+
+    private static final String OWNER = "ravi@gmail.com";
+    private static final String OTHER = "asha@gmail.com";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    WalletRepository walletRepository;
+
+    @Autowired
+    UserCache userCache;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM wallet_transactions");
+        walletRepository.deleteAll();
+        userRepository.deleteAll();
+        ownerId = saveUser("Ravi", OWNER, "+14155550100").getId();
+        saveUser("Asha", OTHER, "+14155550101");
+
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .userId(ownerId)
+                .phoneNumber("+14155550100")
+                .build());
+        UUID counterparty = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        // Ten entries, alternating CREDIT and DEBIT, all transfers but the first, which is a deposit
+        for (int i = 0; i < 10; i++) {
+            rows.add(new Object[] {
+                    UuidBytes.toBytes(UuidV7.next()),
+                    UuidBytes.toBytes(wallet.getId()),
+                    i == 0 ? "DEPOSIT" : "TRANSFER",
+                    i % 2 == 0 ? "CREDIT" : "DEBIT",
+                    100L + i,
+                    i == 0 ? null : UuidBytes.toBytes(counterparty),
+                    Timestamp.valueOf(start.plusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO wallet_transactions "
+                + "(id, wallet_id, type, direction, amount, counterparty_wallet_id, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private User saveUser(String name, String email, String phoneNumber) {
+        User user = userRepository.save(User.builder()
+                .name(name)
+                .email(email)
+                .phoneNumber(phoneNumber)
+                .password("{noop}password123")
+                .roles(Role.USER.mask())
+                .build());
+        // Other tests may have cached an earlier user with this email
+        userCache.invalidate(user);
+        return user;
+    }
+
+    private JsonNode page(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/wallets/" + ownerId + "/transactions" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    @WithMockUser(username = OWNER)
+    void pagesThroughTheHistoryNewestFirst() throws Exception {
+        List<Long> amounts = new ArrayList<>();
+        JsonNode page = page("");
+        int pages = 1;
+        while (true) {
+            assertThat(page.get("transactions").size()).isLessThanOrEqualTo(4);
+            page.get("transactions").forEach(transaction -> amounts.add(transaction.get("amount").asLong()));
+            if (!page.hasNonNull("nextCursor")) {
+                break;
+            }
+            page = page("?cursor=" + page.get("nextCursor").asText());
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(amounts).containsExactly(109L, 108L, 107L, 106L, 105L, 104L, 103L, 102L, 101L, 100L);
+    }
+
+    @Test
+    @WithMockUser(username = OWNER)
+    void filtersByDirectionAndType() throws Exception {
+        JsonNode debits = page("?direction=DEBIT&limit=10");
+        assertThat(debits.get("transactions")).hasSize(5);
+        debits.get("transactions").forEach(transaction ->
+                assertThat(transaction.get("direction").asText()).isEqualTo("DEBIT"));
+        assertThat(debits.hasNonNull("nextCursor")).isFalse();
+
+        JsonNode credits = page("?direction=CREDIT&type=TRANSFER&limit=2");
+        assertThat(credits.get("transactions")).hasSize(2);
+        assertThat(credits.get("transactions").get(0).get("amount").asLong()).isEqualTo(108);
+        JsonNode rest = page("?direction=CREDIT&type=TRANSFER&limit=2&cursor=" + credits.get("nextCursor").asText());
+        assertThat(rest.get("transactions")).hasSize(2);
+        assertThat(rest.get("transactions").get(1).get("amount").asLong()).isEqualTo(102);
+        assertThat(rest.hasNonNull("nextCursor")).isFalse();
+
+        mockMvc.perform(get("/api/wallets/" + ownerId + "/transactions?type=DEPOSIT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].counterpartyWalletId").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = OTHER)
+    void forbidsReadingTheWalletOfAnotherUser() throws Exception {
+        mockMvc.perform(get("/api/wallets/" + ownerId + "/transactions"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.status").value(403));
+    }
+
+    @Test
+    @WithMockUser(username = OWNER)
+    void rejectsInvalidCursorsAndFilters() throws Exception {
+        mockMvc.perform(get("/api/wallets/" + ownerId + "/transactions?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/wallets/" + ownerId + "/transactions?direction=SIDEWAYS"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.User.customAnnotations.implementation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Differential tests proving the engine accepts exactly what the regular expressions it replaced accept.
+ */
+public class ValidationEngineTest {
+
+    private static final Pattern EMAIL_REGEX = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+    private static final Pattern PHONE_REGEX = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
+
+    private static final String[] EMAIL_SEEDS = {
+            "john.doe@example.com", "a@b.co", "x@y.z", "x@.co", "@a.co", "a@b.c1", "a@b-.co", "a.b@c.d.ef",
+            "a@@b.co", "a@b..co", "a@b.co.", "a@1.23", "a+tag%x@sub-domain.example.org"
+    };
+    private static final String EMAIL_ALPHABET = "ab9._-%+@Z \né";
+    private static final String PHONE_ALPHABET = "+0159a \n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abhishekray1894@gmail.com", "a@b.co", "A.B_C%D+E-F@x-y.z.COM", "a@b..co",
+            "a@-.co", "a@1.co"})
+    void shouldAcceptValidEmails(String email) {
+        assertThat(ValidationEngine.isValidEmail(email)).isTrue();
+        assertThat(EMAIL_REGEX.matcher(email).matches()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abhishekray1894gmailcom", "@gmail.com", "a@.co", "a@b.c", "a@b.c0", "a@b.co.",
+            "a@b@c.co", "a b@c.co", "a@b.co\n", "é@b.co", "a@b"})
+    void shouldRejectInvalidEmails(String email) {
+        assertThat(ValidationEngine.isValidEmail(email)).isFalse();
+        assertThat(EMAIL_REGEX.matcher(email).matches()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"+919876543210", "12", "+12", "123456789012345", "+123456789012345"})
+    void shouldAcceptValidPhoneNumbers(String phoneNumber) {
+        assertThat(ValidationEngine.isValidE164(phoneNumber)).isTrue();
+        assertThat(PHONE_REGEX.matcher(phoneNumber).matches()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "+", "1", "+1", "0123", "+0123", "1234567890123456", "++12", "12a", "12\n", " 12"})
+    void shouldRejectInvalidPhoneNumbers(String phoneNumber) {
+        assertThat(ValidationEngine.isValidE164(phoneNumber)).isFalse();
+        assertThat(PHONE_REGEX.matcher(phoneNumber).matches()).isFalse();
+    }
+
+    @Test
+    void shouldAgreeWithEmailRegexOnRandomInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String email = randomString(random, EMAIL_ALPHABET, 14);
+            assertThat(ValidationEngine.isValidEmail(email))
+                    .as("email [%s]", email)
+                    .isEqualTo(EMAIL_REGEX.matcher(email).matches());
+        }
+    }
+
+    @Test
+    void shouldAgreeWithEmailRegexOnMutatedAddresses() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder email = new StringBuilder(EMAIL_SEEDS[random.nextInt(EMAIL_SEEDS.length)]);
+            int mutations = random.nextInt(4);
+            for (int m = 0; m < mutations && email.length() > 0; m++) {
+                int position = random.nextInt(email.length());
+                char c = EMAIL_ALPHABET.charAt(random.nextInt(EMAIL_ALPHABET.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> email.insert(position, c);
+                    case 1 -> email.deleteCharAt(position);
+                    default -> email.setCharAt(position, c);
+                }
+            }
+            String candidate = email.toString();
+            assertThat(ValidationEngine.isValidEmail(candidate))
+                    .as("email [%s]", candidate)
+                    .isEqualTo(EMAIL_REGEX.matcher(candidate).matches());
+        }
+    }
+
+    @Test
+    void shouldAgreeWithPhoneRegexOnRandomInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String phoneNumber = randomString(random, PHONE_ALPHABET, 19);
+            assertThat(ValidationEngine.isValidE164(phoneNumber))
+                    .as("phone [%s]", phoneNumber)
+                    .isEqualTo(PHONE_REGEX.matcher(phoneNumber).matches());
+        }
+    }
+
+    @Test
+    void shouldMatchPasswordsLikeStringEquals() {
+        assertThat(ValidationEngine.passwordsMatch("password123", "password123")).isTrue();
+        assertThat(ValidationEngine.passwordsMatch("password123", "password124")).isFalse();
+        assertThat(ValidationEngine.passwordsMatch("password123", "password1234")).isFalse();
+        assertThat(ValidationEngine.passwordsMatch("", "")).isTrue();
+        assertThat(ValidationEngine.passwordsMatch(null, "password123")).isFalse();
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.User.entities;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RoleTest {
+
+    @Test
+    void mapsMasksToAuthorities() {
+        int mask = Role.mask(Role.USER, Role.ADMIN);
+
+        assertThat(Role.authorities(mask)).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(Role.names(Role.ADMIN.mask())).containsExactly("ROLE_ADMIN");
+        assertThat(Role.names(0)).isEmpty();
+    }
+
+    @Test
+    void sharesTheAuthoritiesOfAMask() {
+        assertThat(Role.authorities(Role.USER.mask())).isSameAs(Role.authorities(Role.USER.mask()));
+        assertThat(Role.names(Role.USER.mask())).isSameAs(Role.names(Role.USER.mask()));
+    }
+
+    @Test
+    void readsMasksFromAuthorityNames() {
+        assertThat(Role.mask(List.of("ROLE_ADMIN", "ROLE_UNKNOWN"))).isEqualTo(Role.ADMIN.mask());
+        assertThat(Role.has(Role.mask(List.of("ROLE_USER", "ROLE_ADMIN")), Role.ADMIN)).isTrue();
+    }
+
+    @Test
+    void rejectsUnknownBits() {
+        assertThatThrownBy(() -> Role.authorities(1 << 30)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void newUsersAreUsers() {
+        assertThat(User.builder().build().getRoles()).isEqualTo(Role.USER.mask());
+        assertThat(new User().getRoles()).isEqualTo(Role.USER.mask());
+    }
+}
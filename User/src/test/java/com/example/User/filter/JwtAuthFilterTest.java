@@ -0,0 +1,146 @@
+package com.example.User.filter;
+
+import com.example.User.repository.UserRepository;
+import com.example.User.service.JPAUserDetailService;
+import com.example.User.service.UserVersionTracker;
+import com.example.User.utility.JWTUtility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JwtAuthFilterTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    JWTUtility jwtUtility;
+    JPAUserDetailService userDetailService;
+    UserVersionTracker userVersionTracker;
+    UserRepository userRepository;
+    JwtAuthFilter filter;
+
+    @BeforeEach
+    void setup() {
+        jwtUtility = new JWTUtility(SECRET, 300000, 100, 60000);
+        userDetailService = Mockito.mock(JPAUserDetailService.class);
+        userVersionTracker = new UserVersionTracker(60000);
+        userRepository = Mockito.mock(UserRepository.class);
+        when(userRepository.findVersionByEmail("hari@gmail.com")).thenReturn(Optional.of(0L));
+        filter = new JwtAuthFilter(jwtUtility, userDetailService, userVersionTracker, userRepository, true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateFromClaimsWithoutLoadingUser() throws Exception {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+
+        Authentication authentication = filter(token);
+
+        assertThat(authentication.getName()).isEqualTo("hari@gmail.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userDetailService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void shouldLoadUserWhenTokenVersionIsStale() throws Exception {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+        userVersionTracker.recordVersion("hari@gmail.com", 1);
+        when(userDetailService.loadUserByUsername("hari@gmail.com")).thenReturn(User.builder()
+                .username("hari@gmail.com")
+                .password("encoded")
+                .authorities("ROLE_ADMIN")
+                .build());
+
+        Authentication authentication = filter(token);
+
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+        verify(userDetailService).loadUserByUsername("hari@gmail.com");
+    }
+
+    @Test
+    void shouldReadTheVersionFromTheDatabaseWhenTheNodeHasNoHistory() throws Exception {
+        // As on a node that restarted, or missed the invalidation, after the roles changed
+        when(userRepository.findVersionByEmail("hari@gmail.com")).thenReturn(Optional.of(1L));
+        when(userDetailService.loadUserByUsername("hari@gmail.com")).thenReturn(User.builder()
+                .username("hari@gmail.com")
+                .password("encoded")
+                .authorities("ROLE_USER")
+                .build());
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_ADMIN", "ROLE_USER"), 0);
+
+        Authentication authentication = filter(token);
+
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userDetailService).loadUserByUsername("hari@gmail.com");
+    }
+
+    @Test
+    void shouldReadTheVersionOnceWhileItIsTrusted() throws Exception {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+
+        filter(token);
+        SecurityContextHolder.clearContext();
+        filter(token);
+
+        verify(userRepository, times(1)).findVersionByEmail("hari@gmail.com");
+        verify(userDetailService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void shouldLeaveTokensOfDeletedUsersUnauthenticated() throws Exception {
+        when(userRepository.findVersionByEmail("hari@gmail.com")).thenReturn(Optional.empty());
+        when(userDetailService.loadUserByUsername("hari@gmail.com"))
+                .thenThrow(new UsernameNotFoundException("User not found with email: hari@gmail.com"));
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+
+        assertThat(filter(token)).isNull();
+    }
+
+    @Test
+    void shouldLoadUserForTokensWithoutVersionClaim() throws Exception {
+        String token = jwtUtility.generateToken("hari@gmail.com", Map.of());
+        when(userDetailService.loadUserByUsername("hari@gmail.com")).thenReturn(User.builder()
+                .username("hari@gmail.com")
+                .password("encoded")
+                .authorities("ROLE_USER")
+                .build());
+
+        Authentication authentication = filter(token);
+
+        assertThat(authentication.getName()).isEqualTo("hari@gmail.com");
+        verify(userDetailService).loadUserByUsername("hari@gmail.com");
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.User.maintenance;
+
+import com.example.User.entities.RefreshToken;
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.runner.SeedRunner;
+import com.example.User.utility.TokenHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against H2, which has no range partitioning, so this covers the DELETE fallback and the bound parsing.
+ */
+@SpringBootTest(properties = "refresh-token.partitioning.enabled=true")
+public class RefreshTokenPartitionManagerTest {
+
+    @Autowired
+    RefreshTokenRetention retention;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        user = userRepository.save(User.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("{noop}password123")
+                .roles(Role.USER.mask())
+                .build());
+    }
+
+    private void saveToken(LocalDateTime expiryDate) {
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(TokenHasher.sha256(UUID.randomUUID().toString()))
+                .user(user)
+                .expiryDate(expiryDate)
+                .build());
+    }
+
+    @Test
+    void partitionRetentionIsSelected() {
+        assertThat(retention).isInstanceOf(RefreshTokenPartitionManager.class);
+    }
+
+    @Test
+    void removesOnlyWholeMonthsBeforeTheThreshold() {
+        saveToken(LocalDateTime.of(2026, 7, 20, 10, 0));
+        saveToken(LocalDateTime.of(2026, 8, 31, 23, 59));
+        saveToken(LocalDateTime.of(2026, 9, 1, 0, 0));
+        saveToken(LocalDateTime.of(2026, 9, 10, 0, 0));
+
+        int removed = retention.purgeOlderThan(LocalDateTime.of(2026, 9, 18, 3, 0));
+
+        // September is not entirely past the threshold, so its tokens stay until its partition can go
+        assertThat(removed).isEqualTo(2);
+        assertThat(refreshTokenRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void parsesRangeColumnsBounds() {
+        assertThat(RefreshTokenPartitionManager.parseBound("'2026-11-01 00:00:00'"))
+                .isEqualTo(LocalDate.of(2026, 11, 1));
+        assertThat(RefreshTokenPartitionManager.parseBound("'2026-11-01'")).isEqualTo(LocalDate.of(2026, 11, 1));
+        assertThat(RefreshTokenPartitionManager.parseBound("MAXVALUE")).isNull();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.User.maintenance;
+
+import com.example.User.entities.MaintenanceJobState;
+import com.example.User.entities.RefreshToken;
+import com.example.User.entities.Role;
+import com.example.User.entities.User;
+import com.example.User.repository.MaintenanceJobStateRepository;
+import com.example.User.repository.RefreshTokenRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.runner.SeedRunner;
+import com.example.User.utility.TokenHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "refresh-token.purge.batch-size=10",
+        "refresh-token.purge.rows-per-second=0"
+})
+public class RefreshTokenPurgeJobTest {
+
+    @Autowired
+    RefreshTokenPurgeJob purgeJob;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    MaintenanceJobStateRepository jobStateRepository;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jobStateRepository.deleteAll();
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        user = userRepository.save(User.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("{noop}password123")
+                .roles(Role.USER.mask())
+                .build());
+    }
+
+    private void saveToken(LocalDateTime expiryDate, LocalDateTime revokedAt) {
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(TokenHasher.sha256(UUID.randomUUID().toString()))
+                .user(user)
+                .expiryDate(expiryDate)
+                .revoked(revokedAt != null)
+                .revokedAt(revokedAt)
+                .build());
+    }
+
+    @Test
+    void purgesExpiredAndLongRevokedTokensInBatches() {
+        for (int i = 0; i < 25; i++) {
+            saveToken(now.minusDays(40).plusMinutes(i), null);
+        }
+        for (int i = 0; i < 7; i++) {
+            saveToken(now.plusDays(5), now.minusDays(35));
+        }
+        for (int i = 0; i < 4; i++) {
+            saveToken(now.plusDays(5), null);
+        }
+        saveToken(now.plusDays(5), now.minusDays(1));
+
+        int purged = purgeJob.purgeOlderThan(now.minusDays(30));
+
+        assertThat(purged).isEqualTo(32);
+        assertThat(refreshTokenRepository.count()).isEqualTo(5);
+        MaintenanceJobState state = jobStateRepository.findById(RefreshTokenPurgeJob.JOB_NAME).orElseThrow();
+        assertThat(state.getRunThreshold()).isNull();
+        assertThat(state.getLastCompletedAt()).isNotNull();
+        assertThat(state.getLeaseOwner()).isNull();
+    }
+
+    @Test
+    void resumesAnInterruptedRunWithItsOwnThreshold() {
+        LocalDateTime interruptedThreshold = now.minusDays(60);
+        saveToken(now.minusDays(90), null);
+        saveToken(now.minusDays(45), null);
+        jobStateRepository.save(MaintenanceJobState.builder()
+                .jobName(RefreshTokenPurgeJob.JOB_NAME)
+                .runThreshold(interruptedThreshold)
+                .phase(RefreshTokenPurgeJob.Phase.EXPIRED.name())
+                .cursorTime(LocalDateTime.of(1000, 1, 1, 0, 0))
+                .cursorId(new UUID(0, 0))
+                .rowsProcessed(100)
+                .build());
+
+        assertThat(purgeJob.purgeOlderThan(now.minusDays(30))).isEqualTo(1);
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+
+        // The next run starts fresh with the requested threshold
+        assertThat(purgeJob.purgeOlderThan(now.minusDays(30))).isEqualTo(1);
+        assertThat(refreshTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void skipsWhileAnotherNodeHoldsTheLease() {
+        saveToken(now.minusDays(40), null);
+        jobStateRepository.save(MaintenanceJobState.builder()
+                .jobName(RefreshTokenPurgeJob.JOB_NAME)
+                .leaseOwner("other-node")
+                .leaseExpiresAt(now.plusMinutes(5))
+                .build());
+
+        assertThat(purgeJob.purgeOlderThan(now.minusDays(30))).isZero();
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+    }
+}
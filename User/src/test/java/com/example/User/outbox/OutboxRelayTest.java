@@ -0,0 +1,164 @@
+package com.example.User.outbox;
+
+import com.example.User.entities.User;
+import com.example.User.entities.models.WalletCreationEvent;
+import com.example.User.entities.request.UserRequestDTO;
+import com.example.User.maintenance.JobLease;
+import com.example.User.repository.MaintenanceJobStateRepository;
+import com.example.User.repository.OutboxEventRepository;
+import com.example.User.repository.UserRepository;
+import com.example.User.service.UserService;
+import com.example.User.service.runner.SeedRunner;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * The relay is driven by hand: the scheduled poll is pushed out of the test's way, and the test gets its own
+ * database so that relays of other cached contexts cannot take the lease or the events.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay-test;DB_CLOSE_DELAY=-1",
+        "outbox.relay.initial-delay-ms=3600000",
+        "outbox.relay.batch-size=10"
+})
+public class OutboxRelayTest {
+
+    private static final String TOPIC = "wallet-creation-topic";
+
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    @Autowired
+    InMemoryOutboxPublisher publisher;
+
+    @Autowired
+    OutboxWriter outboxWriter;
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    MaintenanceJobStateRepository jobStateRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    JobLease jobLease;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        jobStateRepository.deleteAll();
+        userRepository.deleteAll();
+        publisher.clear();
+    }
+
+    private List<String> appendEvents(int count) {
+        List<String> keys = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                UUID userId = UUID.randomUUID();
+                outboxWriter.append(TOPIC, userId.toString(),
+                        WalletCreationEvent.builder().userId(userId).phoneNumber("+14155550100").build());
+                keys.add(userId.toString());
+            }
+        });
+        return keys;
+    }
+
+    @Test
+    void registrationIsPublishedOnceTheRelayRuns() throws Exception {
+        User user = userService.register(UserRequestDTO.builder()
+                .name("Ravi")
+                .email("ravi@gmail.com")
+                .phoneNumber("+14155550100")
+                .password("password123")
+                .confirmPassword("password123")
+                .build());
+
+        assertThat(publisher.getPublished(TOPIC)).isEmpty();
+        assertThat(outboxRelay.relayPending()).isEqualTo(1);
+
+        List<InMemoryOutboxPublisher.PublishedMessage> messages = publisher.getPublished(TOPIC);
+        assertThat(messages).hasSize(1);
+        InMemoryOutboxPublisher.PublishedMessage message = messages.get(0);
+        assertThat(message.key()).isEqualTo(user.getId().toString());
+        assertThat(message.eventType()).isEqualTo("WalletCreationEvent");
+        JsonNode payload = objectMapper.readTree(message.payload());
+        assertThat(payload.get("userId").asText()).isEqualTo(user.getId().toString());
+        assertThat(payload.get("phoneNumber").asText()).isEqualTo("+14155550100");
+        assertThat(outboxEventRepository.findAll()).allMatch(event -> event.getSentAt() != null);
+    }
+
+    @Test
+    void drainsTheOutboxInBatchesAndMarksEveryEventSent() {
+        List<String> keys = appendEvents(25);
+
+        assertThat(outboxRelay.relayPending()).isEqualTo(25);
+
+        assertThat(publisher.getBatchSizes()).containsExactly(10, 10, 5);
+        assertThat(publisher.getPublished(TOPIC))
+                .extracting(InMemoryOutboxPublisher.PublishedMessage::key)
+                .containsExactlyElementsOf(keys);
+        assertThat(outboxEventRepository.findAll()).allMatch(event -> event.getSentAt() != null);
+
+        // Sent events are not published again
+        assertThat(outboxRelay.relayPending()).isZero();
+        assertThat(publisher.getPublished(TOPIC)).hasSize(25);
+    }
+
+    @Test
+    void stopsDrainingOnceTheLeaseIsLost() {
+        List<String> keys = appendEvents(25);
+        // Another node takes the lease while the first batch is published
+        doReturn(true).doReturn(false).when(jobLease).tryAcquire(eq(OutboxRelay.JOB_NAME), any());
+
+        assertThat(outboxRelay.relayPending()).isEqualTo(10);
+
+        assertThat(publisher.getBatchSizes()).containsExactly(10);
+        assertThat(publisher.getPublished(TOPIC))
+                .extracting(InMemoryOutboxPublisher.PublishedMessage::key)
+                .containsExactlyElementsOf(keys.subList(0, 10));
+        assertThat(outboxEventRepository.findAll()).filteredOn(event -> event.getSentAt() == null).hasSize(15);
+    }
+
+    @Test
+    void appendRequiresTheTransactionOfTheChange() {
+        assertThatThrownBy(() -> outboxWriter.append(TOPIC, "key",
+                WalletCreationEvent.builder().userId(UUID.randomUUID()).build()))
+                .isInstanceOf(IllegalTransactionStateException.class);
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+}
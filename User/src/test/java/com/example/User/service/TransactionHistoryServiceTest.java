@@ -0,0 +1,125 @@
+package com.example.User.service;
+
+import com.example.User.entities.WalletTransaction;
+import com.example.User.entities.models.TransactionCursor;
+import com.example.User.service.runner.SeedRunner;
+import com.example.User.utility.UuidBytes;
+import com.example.User.utility.UuidV7;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Pins the cost of a history page to its size, whatever its depth, with the rows H2 reports reading for the
+ * query of the page in EXPLAIN ANALYZE.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transaction-history-test;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionHistoryServiceTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 10_000;
+    private static final int ENTRIES = DEEP_PAGE * PAGE_SIZE + PAGE_SIZE;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private final UUID walletId = UUID.randomUUID();
+    private final List<UUID> ids = new ArrayList<>(ENTRIES);
+
+    @BeforeAll
+    void insertHistory() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            UUID id = UuidV7.next();
+            ids.add(id);
+            rows.add(new Object[] {
+                    UuidBytes.toBytes(id),
+                    UuidBytes.toBytes(walletId),
+                    "TRANSFER",
+                    i % 2 == 0 ? "CREDIT" : "DEBIT",
+                    1L + i,
+                    Timestamp.valueOf(START.plusSeconds(i))});
+            if (rows.size() == 10_000 || i == ENTRIES - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO wallet_transactions "
+                        + "(id, wallet_id, type, direction, amount, created_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * The cursor a client holds when asking for the given page: the last entry of the page before it.
+     */
+    private TransactionCursor cursorBefore(int page) {
+        int last = ENTRIES - (page - 1) * PAGE_SIZE;
+        return new TransactionCursor(START.plusSeconds(last), ids.get(last));
+    }
+
+    private long rowsRead(String sql, Object... arguments) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN ANALYZE " + sql, String.class, arguments);
+        Matcher matcher = SCAN_COUNT.matcher(String.join("\n", plan));
+        long rows = 0;
+        while (matcher.find()) {
+            rows += Long.parseLong(matcher.group(1));
+        }
+        return rows;
+    }
+
+    private long pageCost(int page, WalletTransaction.Direction direction) {
+        TransactionCursor after = page == 1 ? null : cursorBefore(page);
+        return rowsRead(TransactionHistoryService.pageSql(direction != null, false, after != null),
+                TransactionHistoryService.pageArguments(walletId, direction, null, after, PAGE_SIZE + 1));
+    }
+
+    @Test
+    void pageTenThousandReadsAsManyRowsAsPageOne() {
+        long first = pageCost(1, null);
+        long second = pageCost(2, null);
+        long deep = pageCost(DEEP_PAGE, null);
+
+        assertThat(first).isBetween((long) PAGE_SIZE + 1, (long) PAGE_SIZE + 2);
+        // Later pages also read the entry of their cursor, which the keyset condition then drops
+        assertThat(deep).isEqualTo(second);
+        assertThat(deep).isCloseTo(first, within(1L));
+    }
+
+    @Test
+    void filteredPagesAreAsCheapAtAnyDepth() {
+        // Half the entries are debits, so this cursor is still about 2,500 debit pages from the end
+        long first = pageCost(1, WalletTransaction.Direction.DEBIT);
+        long deep = pageCost(DEEP_PAGE / 2, WalletTransaction.Direction.DEBIT);
+
+        assertThat(first).isLessThanOrEqualTo(PAGE_SIZE + 2);
+        assertThat(deep).isCloseTo(first, within(1L));
+    }
+
+    @Test
+    void offsetPagesReadEveryRowTheySkip() {
+        long deep = rowsRead("SELECT id FROM wallet_transactions WHERE wallet_id = ? "
+                        + "ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?",
+                UuidBytes.toBytes(walletId), PAGE_SIZE + 1, (DEEP_PAGE - 1) * PAGE_SIZE);
+
+        assertThat(deep).isGreaterThanOrEqualTo((long) (DEEP_PAGE - 1) * PAGE_SIZE);
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.User.service;
 
+import com.example.User.cache.EmailExistenceFilter;
+import com.example.User.cache.UserCache;
 import com.example.User.customExceptions.UserAlreadyExistsException;
+import com.example.User.entities.Role;
 import com.example.User.entities.User;
 import com.example.User.entities.models.WalletCreationEvent;
 import com.example.User.entities.request.UserRequestDTO;
+import com.example.User.outbox.OutboxWriter;
 import com.example.User.repository.UserRepository;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -12,7 +16,8 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
@@ -38,7 +43,13 @@ public class UserServiceTest {
     UserRepository userRepository;
 
     @Mock
-    KafkaTemplate<String, WalletCreationEvent> kafkaTemplate;
+    OutboxWriter outboxWriter;
+
+    @Mock
+    EmailExistenceFilter emailExistenceFilter;
+
+    @Mock
+    UserCache userCache;
 
 
     @Nested
@@ -55,8 +66,7 @@ public class UserServiceTest {
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
-            when(userRepository.save(ArgumentMatchers.any(User.class))).thenReturn(user);
+            when(userRepository.saveAndFlush(ArgumentMatchers.any(User.class))).thenReturn(user);
 
             User registeredUser = userService.register(userRequestDTO);
             assertThat(registeredUser.getId()).isNotNull();
@@ -65,9 +75,11 @@ public class UserServiceTest {
             assertThat(registeredUser.getPassword()).isEqualTo(user.getPassword());
             assertThat(registeredUser.getCreatedAt()).isNotNull();
 
-            verify(userRepository).findByEmail("abhishekray1234@gmail.com");
-            verify(userRepository).save(ArgumentMatchers.any(User.class));
-            verify(kafkaTemplate).send(eq("wallet-creation-topic"), ArgumentMatchers.any(WalletCreationEvent.class));
+            // A new email costs the insert only
+            verify(userRepository).saveAndFlush(ArgumentMatchers.any(User.class));
+            verify(emailExistenceFilter).add("abhishekray1234@gmail.com");
+            verify(outboxWriter).append(eq("wallet-creation-topic"), eq(user.getId().toString()),
+                    ArgumentMatchers.any(WalletCreationEvent.class));
             verifyNoMoreInteractions(userRepository);
         }
 
@@ -75,21 +87,124 @@ public class UserServiceTest {
         void shouldThrowErrorForAlreadyExistingUser(){
             UserRequestDTO userRequestDTO = base();
 
-            when(userRepository.findByEmail(userRequestDTO.getEmail())).thenThrow(new UserAlreadyExistsException(userRequestDTO.getName(),userRequestDTO.getEmail()));
-            when(passwordEncoder.encode(userRequestDTO.getPassword())).thenReturn("encodedPassword123");
+            when(emailExistenceFilter.mightContain(userRequestDTO.getEmail())).thenReturn(true);
+            when(userRepository.existsByEmail(userRequestDTO.getEmail())).thenReturn(true);
 
             assertThatThrownBy(()-> userService.register(userRequestDTO))
                     .isInstanceOf(UserAlreadyExistsException.class)
                     .hasMessageContaining("User already exists username: " + userRequestDTO.getName() + " email: " + userRequestDTO.getEmail());
+            verifyNoInteractions(passwordEncoder, outboxWriter);
+        }
+
+        @Test
+        void shouldTranslateUniqueConstraintViolationForDuplicateMissedByFilter(){
+            UserRequestDTO userRequestDTO = base();
+
+            when(userRepository.saveAndFlush(ArgumentMatchers.any(User.class)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'user_entity.email'"));
+
+            assertThatThrownBy(()-> userService.register(userRequestDTO))
+                    .isInstanceOf(UserAlreadyExistsException.class);
+            verify(emailExistenceFilter, never()).add(ArgumentMatchers.anyString());
+            verifyNoInteractions(outboxWriter);
+        }
+
+        @Test
+        void shouldRegisterUserWhenFilterHitIsAFalsePositive(){
+            UserRequestDTO userRequestDTO = base();
+            User user = User.builder()
+                    .id(UUID.randomUUID())
+                    .email(userRequestDTO.getEmail())
+                    .build();
+
+            when(emailExistenceFilter.mightContain(userRequestDTO.getEmail())).thenReturn(true);
+            when(userRepository.existsByEmail(userRequestDTO.getEmail())).thenReturn(false);
+            when(userRepository.saveAndFlush(ArgumentMatchers.any(User.class))).thenReturn(user);
+
+            assertThat(userService.register(userRequestDTO)).isSameAs(user);
+            verify(emailExistenceFilter).recordFalsePositive();
         }
 
         static UserRequestDTO base() {
             return UserRequestDTO.builder()
                     .name("Abhishek Ray")
                     .email("abhishekray1234@gmail.com")
+                    .phoneNumber("+14155550100")
                     .password("password123")
                     .confirmPassword("password123")
                     .build();
         }
     }
+
+    @Nested
+    class CredentialChangeTests {
+
+        private User stored() {
+            return User.builder()
+                    .id(UUID.randomUUID())
+                    .email("abhishekray1234@gmail.com")
+                    .password("old-hash")
+                    .roles(Role.USER.mask())
+                    .version(3)
+                    .build();
+        }
+
+        private User savedWithNextVersion(User user) {
+            return User.builder()
+                    .id(user.getId())
+                    .email(user.getEmail())
+                    .password(user.getPassword())
+                    .roles(user.getRoles())
+                    .version(user.getVersion() + 1)
+                    .build();
+        }
+
+        @Test
+        void shouldPublishTheNewVersionWhenRolesChange() {
+            User user = stored();
+            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+            when(userRepository.save(user)).thenAnswer(invocation -> savedWithNextVersion(user));
+
+            User changed = userService.changeRoles(user.getId(), Role.USER.mask() | Role.ADMIN.mask());
+
+            assertThat(changed.getRoles()).isEqualTo(Role.USER.mask() | Role.ADMIN.mask());
+            assertThat(changed.getVersion()).isEqualTo(4);
+            verify(userCache).invalidate(changed);
+        }
+
+        @Test
+        void shouldPublishTheNewVersionWhenThePasswordChanges() {
+            User user = stored();
+            when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(passwordEncoder.matches("password123", "old-hash")).thenReturn(true);
+            when(passwordEncoder.encode("newPassword123")).thenReturn("new-hash");
+            when(userRepository.save(user)).thenAnswer(invocation -> savedWithNextVersion(user));
+
+            User changed = userService.changePassword(user.getEmail(), "password123", "newPassword123");
+
+            assertThat(changed.getPassword()).isEqualTo("new-hash");
+            verify(userCache).invalidate(changed);
+        }
+
+        @Test
+        void shouldKeepThePasswordWhenTheCurrentOneDoesNotMatch() {
+            User user = stored();
+            when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(passwordEncoder.matches("wrong", "old-hash")).thenReturn(false);
+
+            assertThatThrownBy(() -> userService.changePassword(user.getEmail(), "wrong", "newPassword123"))
+                    .isInstanceOf(BadCredentialsException.class);
+            verify(userRepository, never()).save(ArgumentMatchers.any());
+            verifyNoInteractions(userCache);
+        }
+
+        @Test
+        void shouldIgnoreUnknownUsers() {
+            UUID userId = UUID.randomUUID();
+            when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+            assertThat(userService.changeRoles(userId, Role.ADMIN.mask())).isNull();
+            verifyNoInteractions(userCache);
+        }
+    }
 }
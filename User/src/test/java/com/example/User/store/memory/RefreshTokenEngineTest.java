@@ -0,0 +1,207 @@
+package com.example.User.store.memory;
+
+import com.example.User.entities.models.RefreshTokenRecord;
+import com.example.User.utility.TokenHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenEngineTest {
+
+    private static final long TICK_MS = 1000;
+
+    @TempDir
+    Path dataDir;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private RefreshTokenEngine engine;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    private RefreshTokenEngine open() throws IOException {
+        if (engine != null) {
+            engine.close();
+        }
+        engine = new RefreshTokenEngine(dataDir, TICK_MS, 16, false, clock::get);
+        return engine;
+    }
+
+    private RefreshTokenRecord token(String raw, UUID userId, long ttlMs) {
+        return RefreshTokenRecord.withoutUser(TokenHasher.sha256(raw), userId, clock.get() + ttlMs, 0);
+    }
+
+    @Test
+    void putThenGetReturnsTheStoredToken() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("a", userId, 60_000));
+
+        RefreshTokenRecord found = engine.get(TokenHasher.sha256("a"));
+        assertNotNull(found);
+        assertEquals(userId, found.userId());
+        assertEquals(clock.get() + 60_000, found.expiresAtMs());
+        assertFalse(found.isRevoked());
+        assertNull(engine.get(TokenHasher.sha256("b")));
+    }
+
+    @Test
+    void revokeAllForUserOnlyTouchesThatUser() throws IOException {
+        open();
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        engine.put(token("a1", alice, 60_000));
+        engine.put(token("a2", alice, 60_000));
+        engine.put(token("b1", bob, 60_000));
+
+        assertEquals(2, engine.revokeAllForUser(alice, clock.get()));
+        assertEquals(0, engine.revokeAllForUser(alice, clock.get()));
+
+        assertTrue(engine.get(TokenHasher.sha256("a1")).isRevoked());
+        assertTrue(engine.get(TokenHasher.sha256("a2")).isRevoked());
+        assertFalse(engine.get(TokenHasher.sha256("b1")).isRevoked());
+    }
+
+    @Test
+    void tickDropsTokensOnceTheyExpire() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("short", userId, 5_000));
+        engine.put(token("long", userId, 10_000_000));
+
+        clock.addAndGet(4_000);
+        assertEquals(0, engine.tick());
+        clock.addAndGet(2_000);
+        assertEquals(1, engine.tick());
+
+        assertNull(engine.get(TokenHasher.sha256("short")));
+        assertNotNull(engine.get(TokenHasher.sha256("long")));
+
+        // Crosses several wheel levels
+        clock.addAndGet(10_000_000);
+        assertEquals(1, engine.tick());
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void deletedTokenDoesNotExpireItsSuccessorInTheSameSlot() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("first", userId, 2_000));
+        assertTrue(engine.delete(TokenHasher.sha256("first")));
+        engine.put(token("second", userId, 60_000));
+
+        clock.addAndGet(3_000);
+        assertEquals(0, engine.tick());
+        assertNotNull(engine.get(TokenHasher.sha256("second")));
+    }
+
+    @Test
+    void manyTokensCanBeStoredAndDeleted() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5_000; i++) {
+            engine.put(token("t" + i, i % 2 == 0 ? userId : UUID.randomUUID(), 60_000));
+        }
+        for (int i = 0; i < 5_000; i += 3) {
+            assertTrue(engine.delete(TokenHasher.sha256("t" + i)));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i % 3 != 0, engine.get(TokenHasher.sha256("t" + i)) != null, "token t" + i);
+        }
+        assertEquals(2_500 - 834, engine.revokeAllForUser(userId, clock.get()));
+    }
+
+    @Test
+    void stateSurvivesRestartFromTheJournal() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("kept", userId, 60_000));
+        engine.put(token("deleted", userId, 60_000));
+        engine.delete(TokenHasher.sha256("deleted"));
+        engine.revokeAllForUser(userId, clock.get());
+
+        open();
+
+        assertTrue(engine.get(TokenHasher.sha256("kept")).isRevoked());
+        assertNull(engine.get(TokenHasher.sha256("deleted")));
+    }
+
+    @Test
+    void stateSurvivesRestartFromSnapshotAndLaterJournal() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("before", userId, 60_000));
+        engine.snapshot();
+        engine.put(token("after", userId, 60_000));
+
+        open();
+
+        assertNotNull(engine.get(TokenHasher.sha256("before")));
+        assertNotNull(engine.get(TokenHasher.sha256("after")));
+        assertEquals(2, engine.size());
+        List<String> files = new ArrayList<>();
+        try (var listing = Files.list(dataDir)) {
+            listing.forEach(file -> files.add(file.getFileName().toString()));
+        }
+        assertTrue(files.contains("snapshot.bin"));
+        assertFalse(files.contains("journal-0.log"), "journal covered by the snapshot should be deleted");
+    }
+
+    @Test
+    void expiredTokensAreDroppedOnRecovery() throws IOException {
+        open();
+        engine.put(token("expiring", UUID.randomUUID(), 1_000));
+
+        clock.addAndGet(5_000);
+        open();
+
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void tornTailIsTruncatedOnRecovery() throws IOException {
+        open();
+        UUID userId = UUID.randomUUID();
+        engine.put(token("whole", userId, 60_000));
+        engine.put(token("torn", userId, 60_000));
+        engine.close();
+        engine = null;
+
+        Path journal = dataDir.resolve("journal-0.log");
+        long size = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 10);
+        }
+
+        open();
+
+        assertNotNull(engine.get(TokenHasher.sha256("whole")));
+        assertNull(engine.get(TokenHasher.sha256("torn")));
+        engine.put(token("next", userId, 60_000));
+        open();
+        assertNotNull(engine.get(TokenHasher.sha256("next")));
+    }
+
+    @Test
+    void rejectsDigestsOfTheWrongLength() throws IOException {
+        open();
+        assertThrows(IllegalArgumentException.class, () -> engine.get(new byte[16]));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.User.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CalibratedBCryptPasswordEncoderTest {
+
+    CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(11);
+
+    @Test
+    void shouldRequestRehashForLowerCost() {
+        String hash = new BCryptPasswordEncoder(10).encode("password123");
+
+        assertThat(encoder.upgradeEncoding(hash)).isTrue();
+    }
+
+    @Test
+    void shouldKeepHashWithHigherCost() {
+        // Written by a node that calibrated to a higher cost
+        String hash = new BCryptPasswordEncoder(12).encode("password123");
+
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+        assertThat(encoder.matches("password123", hash)).isTrue();
+    }
+
+    @Test
+    void shouldKeepHashWithCalibratedCost() {
+        String hash = encoder.encode("password123");
+
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+        assertThat(encoder.matches("password123", hash)).isTrue();
+    }
+
+    @Test
+    void shouldIgnoreNonBCryptHashes() {
+        assertThat(encoder.upgradeEncoding("plain")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+}
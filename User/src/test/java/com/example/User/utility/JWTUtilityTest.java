@@ -0,0 +1,54 @@
+package com.example.User.utility;
+
+import com.example.User.entities.models.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JWTUtilityTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    JWTUtility jwtUtility;
+
+    @BeforeEach
+    void setup() {
+        jwtUtility = new JWTUtility(SECRET, 300000, 100, 60000);
+    }
+
+    @Test
+    void shouldReturnTypedClaims() {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 3);
+
+        VerifiedToken verifiedToken = jwtUtility.verify(token);
+
+        assertThat(verifiedToken.subject()).isEqualTo("hari@gmail.com");
+        assertThat(verifiedToken.roles()).containsExactly("ROLE_USER");
+        assertThat(verifiedToken.version()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldServeRepeatedTokensFromCache() {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+
+        VerifiedToken first = jwtUtility.verify(token);
+        VerifiedToken second = jwtUtility.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(jwtUtility.getVerifiedTokenCacheMisses()).isEqualTo(1);
+        assertThat(jwtUtility.getVerifiedTokenCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectTamperedTokens() {
+        String token = jwtUtility.generateToken("hari@gmail.com", List.of("ROLE_USER"), 0);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtility.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.User.utility;
+
+import com.example.User.customExceptions.PasswordHashingOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PasswordHashingExecutorTest {
+
+    PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 2);
+
+    @AfterEach
+    void shutdown() {
+        executor.destroy();
+    }
+
+    @Test
+    void shouldRunHashingOnThePool() {
+        String threadName = executor.encode(() -> Thread.currentThread().getName());
+
+        assertThat(threadName).startsWith("password-hashing-");
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.encode(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.encode(() -> "second"));
+        Thread.sleep(100);
+
+        assertThatThrownBy(() -> executor.encode(() -> "third"))
+                .isInstanceOf(PasswordHashingOverloadedException.class)
+                .hasFieldOrPropertyWithValue("retryAfterSeconds", 2L);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
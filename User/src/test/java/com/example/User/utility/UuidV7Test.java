@@ -0,0 +1,59 @@
+package com.example.User.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UuidV7Test {
+
+    @Test
+    void setsTheVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(UuidV7.timestamp(uuid)).isBetween(before, System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    void storedBytesIncreaseEvenWithinOneMillisecond() {
+        byte[] previous = UuidBytes.toBytes(UuidV7.next());
+        for (int i = 0; i < 100_000; i++) {
+            byte[] current = UuidBytes.toBytes(UuidV7.next());
+            assertThat(Arrays.compareUnsigned(previous, current)).isNegative();
+            previous = current;
+        }
+    }
+
+    @Test
+    void isUniqueAcrossThreads() throws InterruptedException {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(UuidV7.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids).hasSize(200_000);
+    }
+
+    @Test
+    void rejectsOtherVersionsWhenReadingTheTimestamp() {
+        assertThatThrownBy(() -> UuidV7.timestamp(UUID.randomUUID())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.User.wallet;
+
+import com.example.User.entities.WalletTransaction;
+import com.example.User.entities.response.TransactionResponseDTO;
+import com.example.User.service.TransactionHistoryService;
+import com.example.User.service.runner.SeedRunner;
+import com.example.User.utility.UuidBytes;
+import com.example.User.utility.UuidV7;
+import com.example.User.wallet.engine.TransferEngine;
+import com.example.User.wallet.engine.TransferResult;
+import com.example.User.wallet.journal.LedgerRecord;
+import com.example.User.wallet.journal.TransferLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:transaction-history-log-test;DB_CLOSE_DELAY=-1")
+public class TransactionHistoryLogTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TransactionHistoryService transactionHistoryService;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private TransactionHistoryLog historyLog;
+    private TransferEngine engine;
+
+    @BeforeEach
+    void insertWallets() {
+        jdbcTemplate.update("DELETE FROM wallet_transactions");
+        jdbcTemplate.update("DELETE FROM wallets");
+        insertWallet(alice, "+14155550100");
+        insertWallet(bob, "+14155550101");
+    }
+
+    @AfterEach
+    void close() throws InterruptedException {
+        if (engine != null) {
+            engine.close();
+        }
+        historyLog.close();
+    }
+
+    private void insertWallet(UUID userId, String phoneNumber) {
+        jdbcTemplate.update("INSERT INTO wallets (id, user_id, phone_number, balance, created_at, version) "
+                        + "VALUES (?, ?, ?, 0, ?, 0)",
+                UuidBytes.toBytes(UuidV7.next()), UuidBytes.toBytes(userId), phoneNumber,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void start(TransferLog delegate) {
+        historyLog = new TransactionHistoryLog(delegate, jdbcTemplate, new TransactionTemplate(transactionManager),
+                16);
+        engine = new TransferEngine(2, 64, historyLog);
+        engine.openWallet(alice).join();
+        engine.openWallet(bob).join();
+    }
+
+    private List<TransactionResponseDTO> history(UUID userId) {
+        return transactionHistoryService.getTransactions(userId, null, null, null, null).transactions();
+    }
+
+    private UUID walletIdOf(UUID userId) {
+        return UuidBytes.fromBytes(jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE user_id = ?",
+                byte[].class, UuidBytes.toBytes(userId)));
+    }
+
+    @Test
+    void writesOneEntryPerDepositAndTwoPerTransfer() {
+        start(TransferLog.NONE);
+
+        assertThat(engine.deposit(alice, 1_000).join()).isEqualTo(TransferResult.COMPLETED);
+        assertThat(engine.transfer(alice, bob, 300).join()).isEqualTo(TransferResult.COMPLETED);
+        // Refused, so nothing to write
+        assertThat(engine.transfer(bob, alice, 500).join()).isEqualTo(TransferResult.INSUFFICIENT_FUNDS);
+
+        List<TransactionResponseDTO> aliceHistory = history(alice);
+        assertThat(aliceHistory).extracting(TransactionResponseDTO::type, TransactionResponseDTO::direction,
+                        TransactionResponseDTO::amount, TransactionResponseDTO::counterpartyWalletId)
+                .containsExactlyInAnyOrder(
+                        tuple(WalletTransaction.Type.DEPOSIT,
+                                WalletTransaction.Direction.CREDIT, 1_000L, null),
+                        tuple(WalletTransaction.Type.TRANSFER,
+                                WalletTransaction.Direction.DEBIT, 300L, walletIdOf(bob)));
+        assertThat(history(bob)).extracting(TransactionResponseDTO::type, TransactionResponseDTO::direction,
+                        TransactionResponseDTO::amount, TransactionResponseDTO::counterpartyWalletId)
+                .containsExactly(tuple(WalletTransaction.Type.TRANSFER,
+                        WalletTransaction.Direction.CREDIT, 300L, walletIdOf(alice)));
+    }
+
+    @Test
+    void writesNothingTheLogItWrapsDidNotMakeDurable() {
+        start(record -> record.type() == LedgerRecord.Type.OPEN
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.failedFuture(new IOException("disk full")));
+
+        assertThatThrownBy(() -> engine.deposit(alice, 1_000).join()).isInstanceOf(CompletionException.class);
+
+        assertThat(history(alice)).isEmpty();
+        assertThat(engine.isFailed()).isTrue();
+    }
+}
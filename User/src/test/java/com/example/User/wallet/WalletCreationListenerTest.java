@@ -0,0 +1,225 @@
+package com.example.User.wallet;
+
+import com.example.User.entities.Wallet;
+import com.example.User.entities.models.WalletCreationEvent;
+import com.example.User.repository.WalletRepository;
+import com.example.User.service.runner.SeedRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publishes a registration burst the way the outbox does, as raw JSON with redeliveries mixed in, and checks
+ * that it becomes one wallet per user within seconds through batched inserts, and that events the database
+ * rejects or that cannot be read are dead-lettered without holding up the others.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:wallet-provisioning-test;DB_CLOSE_DELAY=-1",
+        "spring.kafka.producer.value-serializer=com.example.User.codec.CompactEventSerializer",
+        "wallet.provisioning.enabled=true",
+        "wallet.provisioning.concurrency=3",
+        "wallet.provisioning.retry-backoff-ms=50",
+        "wallet.provisioning.max-retries=2"
+})
+@EmbeddedKafka(partitions = 3, topics = {WalletCreationListenerTest.TOPIC, WalletCreationListenerTest.DEAD_LETTERS},
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+public class WalletCreationListenerTest {
+
+    static final String TOPIC = "wallet-creation-topic";
+    static final String DEAD_LETTERS = "wallet-creation-topic.DLT";
+    private static final String GROUP_ID = "wallet-provisioning";
+    private static final int USERS = 20_000;
+    private static final int REDELIVERED = 2_000;
+    private static final long TIMEOUT_MS = 60_000;
+    // Well below what batched inserts reach, so that only a fall back to one insert per event trips it
+    private static final double MIN_WALLETS_PER_SECOND = 500;
+
+    @Autowired
+    EmbeddedKafkaBroker broker;
+
+    @Autowired
+    WalletRepository walletRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockitoBean
+    SeedRunner seedRunner;
+
+    @Test
+    void turnsARegistrationBurstIntoOneWalletPerUser() throws Exception {
+        long before = walletRepository.count();
+        List<UUID> userIds = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(UUID.randomUUID());
+        }
+
+        long started = System.nanoTime();
+        Map<String, Object> producerProperties = KafkaTestUtils.producerProps(broker);
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        try (KafkaProducer<String, byte[]> producer =
+                     new KafkaProducer<>(producerProperties, new StringSerializer(), new ByteArraySerializer())) {
+            for (UUID userId : userIds) {
+                send(producer, userId);
+            }
+            // At-least-once delivery from the outbox: some events arrive twice
+            for (int i = 0; i < REDELIVERED; i++) {
+                send(producer, userIds.get(i * (USERS / REDELIVERED)));
+            }
+        }
+
+        // Every event is processed, redeliveries that arrive after the batches holding the originals included,
+        // once the committed offsets of the group reach the end of the topic
+        awaitCondition(this::consumedEverything);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertThat(walletRepository.count()).isEqualTo(before + USERS);
+        assertThat(USERS / seconds).isGreaterThan(MIN_WALLETS_PER_SECOND);
+        Wallet wallet = walletRepository.findByUserId(userIds.get(0)).orElseThrow();
+        assertThat(wallet.getPhoneNumber()).isEqualTo("+14155550100");
+        assertThat(wallet.getBalance()).isZero();
+
+        DistributionSummary batchSizes = meterRegistry.get("wallets.provisioning.batch.size").summary();
+        assertThat(batchSizes.max()).isGreaterThan(100);
+        assertThat(batchSizes.count()).isLessThan((USERS + REDELIVERED) / 10);
+    }
+
+    @Test
+    void deadLettersAnEventTheDatabaseRejects() throws Exception {
+        long before = walletRepository.count();
+        UUID rejected = UUID.randomUUID();
+        List<UUID> accepted = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accepted.add(UUID.randomUUID());
+        }
+
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new ByteArraySerializer())) {
+            // Without a phone number the wallet breaks the NOT NULL constraint of wallets.phone_number
+            producer.send(new ProducerRecord<>(TOPIC, rejected.toString(),
+                    objectMapper.writeValueAsBytes(WalletCreationEvent.builder().userId(rejected).build())));
+            for (UUID userId : accepted) {
+                send(producer, userId);
+            }
+        }
+
+        assertThat(deadLetter(rejected.toString())).isNotNull();
+        awaitCondition(this::consumedEverything);
+
+        assertThat(walletRepository.count()).isEqualTo(before + accepted.size());
+        assertThat(accepted).allMatch(userId -> walletRepository.findByUserId(userId).isPresent());
+        assertThat(walletRepository.findByUserId(rejected)).isEmpty();
+    }
+
+    @Test
+    void deadLettersAnEventThatCannotBeRead() throws Exception {
+        long before = walletRepository.count();
+        String unreadableKey = UUID.randomUUID().toString();
+        byte[] unreadable = "{not json".getBytes(StandardCharsets.UTF_8);
+        List<UUID> accepted = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            accepted.add(UUID.randomUUID());
+        }
+
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new ByteArraySerializer())) {
+            for (UUID userId : accepted.subList(0, 5)) {
+                send(producer, userId);
+            }
+            producer.send(new ProducerRecord<>(TOPIC, unreadableKey, unreadable));
+            for (UUID userId : accepted.subList(5, accepted.size())) {
+                send(producer, userId);
+            }
+        }
+
+        // Published as it was received, so that it can be inspected and replayed
+        assertThat(deadLetter(unreadableKey).value()).isEqualTo(unreadable);
+        awaitCondition(this::consumedEverything);
+
+        assertThat(walletRepository.count()).isEqualTo(before + accepted.size());
+        assertThat(accepted).allMatch(userId -> walletRepository.findByUserId(userId).isPresent());
+    }
+
+    private ConsumerRecord<String, byte[]> deadLetter(String key) {
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("dead-letter-reader-" + key, "false", broker),
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTERS);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                    if (key.equals(record.key())) {
+                        return record;
+                    }
+                }
+            }
+        }
+        throw new AssertionError("No dead letter with key " + key);
+    }
+
+    private boolean consumedEverything() {
+        try (AdminClient admin = AdminClient.create(Map.of("bootstrap.servers", broker.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(GROUP_ID)
+                    .partitionsToOffsetAndMetadata().get();
+            Map<TopicPartition, OffsetSpec> latest = IntStream.range(0, 3).boxed()
+                    .collect(Collectors.toMap(partition -> new TopicPartition(TOPIC, partition),
+                            partition -> OffsetSpec.latest()));
+            return admin.listOffsets(latest).all().get().entrySet().stream().allMatch(end -> {
+                OffsetAndMetadata offset = committed.get(end.getKey());
+                return (offset == null ? 0 : offset.offset()) == end.getValue().offset();
+            });
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private void send(KafkaProducer<String, byte[]> producer, UUID userId) throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(
+                WalletCreationEvent.builder().userId(userId).phoneNumber("+14155550100").build());
+        producer.send(new ProducerRecord<>(TOPIC, userId.toString(), payload));
+    }
+}
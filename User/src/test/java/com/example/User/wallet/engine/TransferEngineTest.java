@@ -0,0 +1,238 @@
+package com.example.User.wallet.engine;
+
+import com.example.User.wallet.journal.TransferLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TransferEngineTest {
+
+    private static final int SHARDS = 4;
+
+    private TransferEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new TransferEngine(SHARDS, 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    private UUID openWallet(long balance) {
+        UUID walletId = UUID.randomUUID();
+        assertThat(engine.openWallet(walletId).join()).isTrue();
+        if (balance > 0) {
+            assertThat(engine.deposit(walletId, balance).join()).isEqualTo(TransferResult.COMPLETED);
+        }
+        return walletId;
+    }
+
+    /**
+     * Opens a wallet on the same shard as the given one, or on another shard.
+     */
+    private UUID openWallet(long balance, UUID other, boolean sameShard) {
+        while (true) {
+            UUID walletId = UUID.randomUUID();
+            if ((engine.shardOf(walletId) == engine.shardOf(other)) == sameShard) {
+                engine.openWallet(walletId).join();
+                engine.deposit(walletId, balance).join();
+                return walletId;
+            }
+        }
+    }
+
+    private long balance(UUID walletId) {
+        return engine.balance(walletId).join().orElseThrow();
+    }
+
+    private void restartWith(HotWalletPolicy hotWalletPolicy) throws InterruptedException {
+        engine.close();
+        engine = new TransferEngine(SHARDS, 1024, TransferLog.NONE, hotWalletPolicy);
+    }
+
+    /**
+     * Opens one funded wallet on every shard.
+     */
+    private List<UUID> openBuyers(long balance) {
+        List<UUID> buyers = new ArrayList<>();
+        while (buyers.size() < SHARDS) {
+            UUID buyer = UUID.randomUUID();
+            if (buyers.stream().noneMatch(other -> engine.shardOf(other) == engine.shardOf(buyer))) {
+                engine.openWallet(buyer).join();
+                engine.deposit(buyer, balance).join();
+                buyers.add(buyer);
+            }
+        }
+        return buyers;
+    }
+
+    @Test
+    void transfersWithinAndAcrossShards() {
+        UUID from = openWallet(1_000);
+        UUID sameShard = openWallet(0, from, true);
+        UUID otherShard = openWallet(0, from, false);
+
+        assertThat(engine.transfer(from, sameShard, 300).join()).isEqualTo(TransferResult.COMPLETED);
+        assertThat(engine.transfer(from, otherShard, 200).join()).isEqualTo(TransferResult.COMPLETED);
+
+        assertThat(balance(from)).isEqualTo(500);
+        assertThat(balance(sameShard)).isEqualTo(300);
+        assertThat(balance(otherShard)).isEqualTo(200);
+    }
+
+    @Test
+    void refusedTransfersChangeNothing() {
+        UUID from = openWallet(100);
+        UUID otherShard = openWallet(0, from, false);
+        UUID unknown = UUID.randomUUID();
+
+        assertThat(engine.transfer(from, otherShard, 101).join()).isEqualTo(TransferResult.INSUFFICIENT_FUNDS);
+        // The hold of the source is released when the destination votes no
+        assertThat(engine.transfer(from, unknown, 100).join()).isEqualTo(TransferResult.UNKNOWN_WALLET);
+        assertThat(engine.transfer(unknown, from, 1).join()).isEqualTo(TransferResult.UNKNOWN_WALLET);
+        assertThat(engine.transfer(from, from, 1).join()).isEqualTo(TransferResult.INVALID);
+        assertThat(engine.transfer(from, otherShard, 0).join()).isEqualTo(TransferResult.INVALID);
+
+        assertThat(engine.transfer(from, otherShard, 100).join()).isEqualTo(TransferResult.COMPLETED);
+        assertThat(balance(from)).isZero();
+        assertThat(engine.balance(unknown).join()).isEqualTo(OptionalLong.empty());
+    }
+
+    @Test
+    void openingAnExistingWalletKeepsItsBalance() {
+        UUID walletId = openWallet(100);
+
+        assertThat(engine.openWallet(walletId).join()).isFalse();
+        assertThat(balance(walletId)).isEqualTo(100);
+    }
+
+    @Test
+    void concurrentTransfersConserveMoneyAndNeverOverdraw() throws Exception {
+        int wallets = 200;
+        long initialBalance = 1_000;
+        List<UUID> walletIds = new ArrayList<>();
+        for (int i = 0; i < wallets; i++) {
+            walletIds.add(openWallet(initialBalance));
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int client = 0; client < 8; client++) {
+                runs.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    List<CompletableFuture<TransferResult>> pending = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        pending.add(engine.transfer(walletIds.get(random.nextInt(wallets)),
+                                walletIds.get(random.nextInt(wallets)), 1 + random.nextInt(400)));
+                    }
+                    pending.forEach(CompletableFuture::join);
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        long total = 0;
+        for (UUID walletId : walletIds) {
+            long balance = balance(walletId);
+            assertThat(balance).isNotNegative();
+            total += balance;
+        }
+        assertThat(total).isEqualTo(wallets * initialBalance);
+    }
+
+    @Test
+    void rejectsOperationsOnceClosed() throws InterruptedException {
+        UUID walletId = openWallet(100);
+        engine.close();
+
+        assertThatThrownBy(() -> engine.deposit(walletId, 1).join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void splitWalletReportsTheSumOfItsSubBalances() throws InterruptedException {
+        restartWith(new HotWalletPolicy(SHARDS, 100, Integer.MAX_VALUE, 0));
+        UUID merchant = openWallet(500);
+        List<UUID> buyers = openBuyers(1_000);
+
+        assertThat(engine.split(merchant).join()).isTrue();
+        assertThat(engine.split(merchant).join()).isFalse();
+        assertThat(engine.split(UUID.randomUUID()).join()).isFalse();
+        for (UUID buyer : buyers) {
+            assertThat(engine.transfer(buyer, merchant, 100).join()).isEqualTo(TransferResult.COMPLETED);
+        }
+        assertThat(engine.deposit(merchant, 50).join()).isEqualTo(TransferResult.COMPLETED);
+
+        assertThat(engine.isSplit(merchant)).isTrue();
+        assertThat(balance(merchant)).isEqualTo(500 + SHARDS * 100 + 50);
+        assertThat(engine.openWallet(merchant).join()).isFalse();
+    }
+
+    @Test
+    void debitsSweepTheSubBalancesWhenOneRunsShort() throws InterruptedException {
+        restartWith(new HotWalletPolicy(SHARDS, 100, Integer.MAX_VALUE, 0));
+        UUID merchant = openWallet(0);
+        engine.split(merchant).join();
+        List<UUID> buyers = openBuyers(1_000);
+        for (UUID buyer : buyers) {
+            engine.transfer(buyer, merchant, 250).join();
+        }
+        UUID supplier = openWallet(0);
+
+        // No sub-balance holds the whole amount on its own
+        assertThat(engine.transfer(merchant, supplier, SHARDS * 250).join()).isEqualTo(TransferResult.COMPLETED);
+        assertThat(engine.transfer(merchant, supplier, 1).join()).isEqualTo(TransferResult.INSUFFICIENT_FUNDS);
+        assertThat(balance(merchant)).isZero();
+        assertThat(balance(supplier)).isEqualTo(SHARDS * 250);
+    }
+
+    @Test
+    void splitsAWalletUnderContentionAndConservesMoney() throws Exception {
+        restartWith(new HotWalletPolicy(SHARDS, 1_000, 2_000, 0));
+        UUID merchant = openWallet(0);
+        List<UUID> buyers = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            buyers.add(openWallet(10_000));
+        }
+
+        List<CompletableFuture<TransferResult>> payments = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            payments.add(engine.transfer(buyers.get(i % buyers.size()), merchant, 100));
+        }
+        payments.forEach(CompletableFuture::join);
+        // The split is published by the coordinator thread, possibly after the last payment
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!engine.isSplit(merchant) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(engine.isSplit(merchant)).isTrue();
+        assertThat(payments).allMatch(payment -> payment.join() == TransferResult.COMPLETED);
+        assertThat(balance(merchant)).isEqualTo(40_000 * 100L);
+        for (UUID buyer : buyers) {
+            assertThat(balance(buyer)).isZero();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.User.wallet.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OffHeapBalanceMapTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void updatesBalancesByVersion() {
+        OffHeapBalanceMap map = OffHeapBalanceMap.withCapacity(16);
+        UUID walletId = UUID.randomUUID();
+
+        assertThat(map.get(walletId)).isNull();
+        assertThat(map.putIfAbsent(walletId, 100)).isTrue();
+        assertThat(map.putIfAbsent(walletId, 999)).isFalse();
+        assertThat(map.get(walletId)).isEqualTo(new OffHeapBalanceMap.Balance(100, 0));
+
+        assertThat(map.compareAndSet(walletId, 0, 150)).isTrue();
+        assertThat(map.compareAndSet(walletId, 0, 999)).isFalse();
+        assertThat(map.addAndGet(walletId, -50)).isEqualTo(100);
+        assertThat(map.get(walletId)).isEqualTo(new OffHeapBalanceMap.Balance(100, 2));
+
+        assertThat(map.compareAndSet(UUID.randomUUID(), 0, 1)).isFalse();
+        assertThatThrownBy(() -> map.addAndGet(UUID.randomUUID(), 1)).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void growsWhileUpdatesAndReadsRunConcurrently() throws Exception {
+        OffHeapBalanceMap map = OffHeapBalanceMap.withCapacity(16);
+        List<UUID> hot = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            hot.add(UUID.randomUUID());
+            map.putIfAbsent(hot.get(i), 0);
+        }
+        int threads = 8;
+        int inserts = 50_000;
+        int increments = 100_000;
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<UUID>>> runs = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                runs.add(workers.submit(() -> {
+                    List<UUID> inserted = new ArrayList<>();
+                    for (int i = 0; i < Math.max(inserts, increments); i++) {
+                        if (i < inserts) {
+                            UUID walletId = UUID.randomUUID();
+                            map.putIfAbsent(walletId, i);
+                            inserted.add(walletId);
+                        }
+                        if (i < increments) {
+                            map.addAndGet(hot.get((thread + i) % hot.size()), 1);
+                        }
+                        // Every wallet inserted so far stays visible through the resizes
+                        assertThat(map.get(inserted.get(i % inserted.size()))).isNotNull();
+                    }
+                    return inserted;
+                }));
+            }
+            for (Future<List<UUID>> run : runs) {
+                List<UUID> inserted = run.get();
+                for (int i = 0; i < inserted.size(); i++) {
+                    assertThat(map.get(inserted.get(i))).isEqualTo(new OffHeapBalanceMap.Balance(i, 0));
+                }
+            }
+            long sum = 0;
+            for (UUID walletId : hot) {
+                sum += map.get(walletId).balance();
+            }
+            assertThat(sum).isEqualTo((long) threads * increments);
+        } finally {
+            workers.shutdown();
+        }
+        assertThat(map.size()).isEqualTo(hot.size() + (long) threads * inserts);
+    }
+
+    @Test
+    void snapshotsToDiskAndLoadsBack() throws IOException {
+        OffHeapBalanceMap map = OffHeapBalanceMap.withCapacity(1_000);
+        Map<UUID, Long> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID walletId = UUID.randomUUID();
+            map.putIfAbsent(walletId, i);
+            map.addAndGet(walletId, 1);
+            expected.put(walletId, i + 1L);
+        }
+
+        Path snapshot = directory.resolve("balances.snapshot");
+        assertThat(map.snapshot(snapshot)).isEqualTo(5_000);
+        assertThat(Files.size(snapshot)).isEqualTo(12 + 5_000 * 32);
+
+        OffHeapBalanceMap loaded = OffHeapBalanceMap.load(snapshot);
+        assertThat(loaded.size()).isEqualTo(5_000);
+        expected.forEach((walletId, balance) ->
+                assertThat(loaded.get(walletId)).isEqualTo(new OffHeapBalanceMap.Balance(balance, 1)));
+
+        Files.write(snapshot, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThatThrownBy(() -> OffHeapBalanceMap.load(snapshot)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.User.wallet.journal;
+
+import com.example.User.wallet.engine.HotWalletPolicy;
+import com.example.User.wallet.engine.TransferEngine;
+import com.example.User.wallet.engine.TransferResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTripAndRejectTornWrites() {
+        ByteBuffer buffer = ByteBuffer.allocate(LedgerRecord.SIZE);
+        LedgerRecord record = LedgerRecord.transfer(UUID.randomUUID(), UUID.randomUUID(), 1_250);
+        record.writeTo(buffer, 0, 7);
+
+        LedgerRecord read = LedgerRecord.readFrom(buffer, 0);
+        assertThat(read.sequence()).isEqualTo(7);
+        assertThat(read.type()).isEqualTo(LedgerRecord.Type.TRANSFER);
+        assertThat(read.from()).isEqualTo(record.from());
+        assertThat(read.to()).isEqualTo(record.to());
+        assertThat(read.amount()).isEqualTo(1_250);
+
+        buffer.put(40, (byte) (buffer.get(40) ^ 1));
+        assertThat(LedgerRecord.readFrom(buffer, 0)).isNull();
+    }
+
+    @Test
+    void recoversAppendedRecordsAcrossSegments() throws Exception {
+        UUID wallet = UUID.randomUUID();
+        try (LedgerJournal journal = LedgerJournal.open(directory, 16, 8, 0)) {
+            journal.append(LedgerRecord.open(wallet)).join();
+            for (int i = 0; i < 39; i++) {
+                journal.append(LedgerRecord.deposit(wallet, 10)).join();
+            }
+        }
+
+        assertThat(LedgerSegment.list(directory)).hasSize(3);
+        try (LedgerJournal journal = LedgerJournal.open(directory, 16, 8, 0)) {
+            assertThat(journal.recoveredRecords()).isEqualTo(40);
+            journal.append(LedgerRecord.deposit(wallet, 5)).join();
+        }
+
+        List<LedgerRecord> records = new ArrayList<>();
+        assertThat(LedgerReplayer.replay(directory, records::add)).isEqualTo(41);
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(records.get(i).sequence()).isEqualTo(i + 1);
+        }
+        assertThat(LedgerReplayer.rebuildBalances(directory).get(wallet).balance()).isEqualTo(39 * 10L + 5);
+    }
+
+    @Test
+    void discardsATornTailAndAppendsAfterTheLastValidRecord() throws Exception {
+        UUID wallet = UUID.randomUUID();
+        try (LedgerJournal journal = LedgerJournal.open(directory, 64, 8, 0)) {
+            journal.append(LedgerRecord.open(wallet)).join();
+            for (int i = 0; i < 5; i++) {
+                journal.append(LedgerRecord.deposit(wallet, 100)).join();
+            }
+        }
+        // A crash in the middle of a batch: the fourth record is torn, the fifth and sixth made it to disk
+        try (RandomAccessFile file = new RandomAccessFile(LedgerSegment.list(directory).get(0).toFile(), "rw")) {
+            file.seek(3L * LedgerRecord.SIZE + 20);
+            file.write(0xFF);
+        }
+
+        try (LedgerJournal journal = LedgerJournal.open(directory, 64, 8, 0)) {
+            assertThat(journal.recoveredRecords()).isEqualTo(3);
+            journal.append(LedgerRecord.deposit(wallet, 1)).join();
+        }
+
+        // The stale records after the torn one must not come back once the sequence catches up with them
+        assertThat(LedgerReplayer.replay(directory, record -> { })).isEqualTo(4);
+        assertThat(LedgerReplayer.rebuildBalances(directory).get(wallet).balance()).isEqualTo(201);
+    }
+
+    @Test
+    void refusesToOpenWithACorruptEarlierSegment() throws Exception {
+        UUID wallet = UUID.randomUUID();
+        try (LedgerJournal journal = LedgerJournal.open(directory, 4, 8, 0)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(LedgerRecord.open(wallet)).join();
+            }
+        }
+        try (RandomAccessFile file = new RandomAccessFile(LedgerSegment.list(directory).get(0).toFile(), "rw")) {
+            file.seek(LedgerRecord.SIZE + 8);
+            file.write(0xFF);
+        }
+
+        assertThatThrownBy(() -> LedgerJournal.open(directory, 4, 8, 0)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void concurrentAppendsShareAnFsync() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UUID wallet = UUID.randomUUID();
+        try (LedgerJournal journal = LedgerJournal.open(directory, 1 << 16, 256, 2_000)) {
+            journal.bindTo(registry);
+            List<CompletableFuture<Void>> durable = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                durable.add(journal.append(LedgerRecord.deposit(wallet, 1)));
+            }
+            CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).join();
+        }
+
+        DistributionSummary batchSizes = registry.get("wallet.journal.batch.size").summary();
+        assertThat(batchSizes.totalAmount()).isEqualTo(10_000);
+        assertThat(batchSizes.count()).isLessThan(10_000 / 10);
+        assertThat(batchSizes.max()).isLessThanOrEqualTo(256);
+    }
+
+    @Test
+    void engineBalancesSurviveARestart() throws Exception {
+        List<UUID> wallets = new ArrayList<>();
+        Map<UUID, Long> before;
+        try (LedgerJournal journal = LedgerJournal.open(directory, 1 << 12, 256, 100);
+             TransferEngine engine = new TransferEngine(4, 1024, journal)) {
+            for (int i = 0; i < 32; i++) {
+                UUID wallet = UUID.randomUUID();
+                engine.openWallet(wallet).join();
+                assertThat(engine.deposit(wallet, 1_000).join()).isEqualTo(TransferResult.COMPLETED);
+                wallets.add(wallet);
+            }
+            List<CompletableFuture<TransferResult>> transfers = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                transfers.add(engine.transfer(wallets.get(i % 32), wallets.get((i * 7 + 3) % 32), 1 + i % 50));
+            }
+            CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new)).join();
+            before = new HashMap<>();
+            for (UUID wallet : wallets) {
+                before.put(wallet, engine.balance(wallet).join().orElseThrow());
+            }
+        }
+
+        Map<UUID, Long> rebuilt = new HashMap<>();
+        LedgerReplayer.rebuildBalances(directory)
+                .forEach((msb, lsb, balance, version) -> rebuilt.put(new UUID(msb, lsb), balance));
+        assertThat(rebuilt).isEqualTo(before);
+        assertThat(rebuilt.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(32 * 1_000L);
+    }
+
+    @Test
+    void splitWalletsComeBackWholeAfterARestart() throws Exception {
+        UUID merchant = UUID.randomUUID();
+        UUID supplier = UUID.randomUUID();
+        HotWalletPolicy splitOnDemand = new HotWalletPolicy(4, 100, Integer.MAX_VALUE, 0);
+        try (LedgerJournal journal = LedgerJournal.open(directory, 1 << 12, 256, 100);
+             TransferEngine engine = new TransferEngine(4, 1024, journal, splitOnDemand)) {
+            engine.openWallet(merchant).join();
+            engine.openWallet(supplier).join();
+            assertThat(engine.split(merchant).join()).isTrue();
+            // Buyers spread over the shards credit different sub-balances
+            for (int i = 0; i < 64; i++) {
+                UUID buyer = UUID.randomUUID();
+                engine.openWallet(buyer).join();
+                engine.deposit(buyer, 100).join();
+                assertThat(engine.transfer(buyer, merchant, 100).join()).isEqualTo(TransferResult.COMPLETED);
+            }
+            // More than any one sub-balance holds, so the others are swept into it, which is not journaled
+            assertThat(engine.transfer(merchant, supplier, 6_000).join()).isEqualTo(TransferResult.COMPLETED);
+        }
+
+        // The journal has the moves of the wallet, so the wallet comes back with its balance, but not split
+        try (LedgerJournal journal = LedgerJournal.open(directory, 1 << 12, 256, 100);
+             TransferEngine engine = new TransferEngine(4, 1024, journal, splitOnDemand)) {
+            LedgerReplayer.rebuildBalances(directory).forEach((msb, lsb, balance, version) ->
+                    engine.restore(new UUID(msb, lsb), balance).join());
+
+            assertThat(engine.isSplit(merchant)).isFalse();
+            assertThat(engine.balance(merchant).join()).hasValue(64 * 100 - 6_000);
+            assertThat(engine.balance(supplier).join()).hasValue(6_000);
+            assertThat(engine.transfer(merchant, supplier, 400).join()).isEqualTo(TransferResult.COMPLETED);
+        }
+    }
+
+    @Test
+    void failsStopOnTheFirstWriteThatFails() throws Exception {
+        UUID wallet = UUID.randomUUID();
+        try (LedgerJournal journal = LedgerJournal.open(directory, 4, 8, 0)) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(LedgerRecord.open(wallet)).join();
+            }
+            // The next append needs a new segment, which cannot be created in a directory that is gone
+            for (Path segment : LedgerSegment.list(directory)) {
+                Files.delete(segment);
+            }
+            Files.delete(directory);
+
+            assertThatThrownBy(() -> journal.append(LedgerRecord.deposit(wallet, 1)).join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(IOException.class);
+            assertThat(journal.isFailed()).isTrue();
+            // Nothing is appended after the hole, even once the directory is back
+            Files.createDirectories(directory);
+            assertThatThrownBy(() -> journal.append(LedgerRecord.deposit(wallet, 2)).join())
+                    .hasMessageContaining("accepts no more records");
+        }
+        assertThat(LedgerSegment.list(directory)).isEmpty();
+    }
+
+    @Test
+    void engineRejectsEveryOperationOnceTheLogFails() throws Exception {
+        UUID wallet = UUID.randomUUID();
+        TransferLog failingLog = record -> record.type() == LedgerRecord.Type.DEPOSIT && record.amount() == 13
+                ? CompletableFuture.failedFuture(new IOException("fsync failed"))
+                : CompletableFuture.completedFuture(null);
+        try (TransferEngine engine = new TransferEngine(2, 1024, failingLog)) {
+            engine.openWallet(wallet).join();
+            assertThat(engine.deposit(wallet, 100).join()).isEqualTo(TransferResult.COMPLETED);
+
+            assertThatThrownBy(() -> engine.deposit(wallet, 13).join()).hasRootCauseInstanceOf(IOException.class);
+
+            assertThat(engine.isFailed()).isTrue();
+            // Memory holds the deposit the log lost, so not even reads are served
+            assertThatThrownBy(() -> engine.balance(wallet).join()).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> engine.deposit(wallet, 1).join()).hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+}